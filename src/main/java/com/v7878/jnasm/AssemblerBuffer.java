@@ -74,9 +74,11 @@ final class AssemblerBuffer implements CodeBuffer {
     public void move(int new_position, int old_position, int size) {
         Objects.checkFromIndexSize(new_position, size, size());
         Objects.checkFromIndexSize(old_position, size, size());
-        data.duplicate().position(new_position).put(
-                data.duplicate().position(old_position + size)
-                        .flip().position(old_position));
+        // The buffer is always heap-allocated, so its backing array is available
+        // and arraycopy handles overlapping ranges in both directions.
+        byte[] array = data.array();
+        System.arraycopy(array, data.arrayOffset() + old_position,
+                array, data.arrayOffset() + new_position, size);
     }
 
     public void emit8(int value) {
@@ -55,7 +55,7 @@ public class Utils {
         assert width > 0 : "width must be > 0";
         assert width <= 32 : "width must be <= max (32)";
         if (width >= 32) return true;
-        value = value >> width;
+        value = value >> (width - 1);
         return value == 0 || value == -1;
     }
 
@@ -89,7 +89,7 @@ public class Utils {
         assert width > 0 : "width must be > 0";
         assert width <= 64 : "width must be <= max (64)";
         if (width >= 64) return true;
-        value = value >> width;
+        value = value >> (width - 1);
         return value == 0 || value == -1;
     }
 
@@ -0,0 +1,2497 @@
+package com.v7878.jnasm.common_x86;
+
+import static com.v7878.jnasm.Utils.CHECK;
+import static com.v7878.jnasm.Utils.CHECK_EQ;
+import static com.v7878.jnasm.Utils.CHECK_GE;
+import static com.v7878.jnasm.Utils.CHECK_GT;
+import static com.v7878.jnasm.Utils.CHECK_LE;
+import static com.v7878.jnasm.Utils.CHECK_LT;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.GET_REX_B;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.GET_REX_X;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEL_L_256;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_B;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_L_128;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_M_0F;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_M_0F_38;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_M_0F_3A;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_PP_66;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_PP_F3;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_PP_NONE;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_R;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_W;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.SET_VEX_X;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.THREE_BYTE_VEX;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.TWO_BYTE_VEX;
+import static com.v7878.jnasm.common_x86.X86VEXConstants.VEX_INIT;
+
+import com.v7878.jnasm.Assembler;
+import com.v7878.jnasm.AssemblerFixup;
+import com.v7878.jnasm.Label;
+import com.v7878.jnasm.Utils;
+
+// Encoder core shared by the x86 and x86_64 assemblers.
+//
+// Everything that does not depend on the mode lives here: ModRM/SIB and label emission,
+// the VEX prefix builders and every instruction whose encoding is the same in both modes,
+// which covers the SSE, AVX and x87 memory instructions. The front ends bind the register,
+// address and immediate types and only keep the instructions with mode specific operands.
+// The only mode specific part of the shared encoders is the REX prefix, which is provided
+// by the front end.
+public abstract class X86CommonAssembler<C extends X86CommonCpuRegister, X extends X86CommonXmmRegister,
+        A extends X86CommonOperand, I extends X86CommonImmediate>
+        extends Assembler implements X86CommonAssemblerI<C, X, A, I> {
+    private final boolean has_AVX_or_AVX2;
+
+    protected X86CommonAssembler(boolean has_AVX_or_AVX2) {
+        this.has_AVX_or_AVX2 = has_AVX_or_AVX2;
+    }
+
+    public boolean cpuHasAVXorAVX2FeatureFlag() {
+        return has_AVX_or_AVX2;
+    }
+
+    protected void EmitRegisterOperand(int rm, int reg) {
+        CHECK_GE(rm, 0);
+        CHECK_LT(rm, 8);
+        emit8((0xC0 | (reg & 7)) + (rm << 3));
+    }
+
+    protected void EmitOperandSizeOverride() {
+        emit8(0x66);
+    }
+
+    protected void EmitOperand(int reg_or_opcode, X86CommonOperand operand) {
+        CHECK_GE(reg_or_opcode, 0);
+        CHECK_LT(reg_or_opcode, 8);
+        final int length = operand.length;
+        CHECK_GT(length, 0);
+        // Emit the ModRM byte updated with the given reg value.
+        CHECK_EQ(operand.encoding[0] & 0x38, 0);
+        emit8(operand.encoding[0] + (reg_or_opcode << 3));
+        // Emit the rest of the encoded operand.
+        for (int i = 1; i < length; i++) {
+            emit8(operand.encoding[i]);
+        }
+        AssemblerFixup fixup = operand.getFixup();
+        if (fixup != null) {
+            emitFixup(fixup);
+        }
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    protected void EmitLabel(Label label, int instruction_size) {
+        if (label.isBound()) {
+            int offset = label.getPosition() - size();
+            CHECK_LE(offset, 0);
+            emit32(offset - instruction_size);
+        } else {
+            EmitLabelLink(label);
+        }
+    }
+
+    protected void EmitLabelLink(Label label) {
+        CHECK(!label.isBound());
+        int position = size();
+        emit32(label.position);
+        label.linkTo(position);
+    }
+
+    protected void EmitLabelLink(X86NearLabel label) {
+        CHECK(!label.isBound());
+        int position = size();
+        if (label.isLinked()) {
+            // Save the delta in the byte that we have to play with.
+            int delta = position - label.getLinkPosition();
+            CHECK(Utils.isUInt(8, delta));
+            emit8(delta & 0xFF);
+        } else {
+            emit8(0);
+        }
+        label.linkTo(position);
+    }
+
+    // Emits a REX prefix if any of the bits is set (or force is true).
+    // The 32-bit front end has no REX prefix and rejects all of them.
+    protected abstract void EmitOptionalRex(boolean force, boolean w, boolean r, boolean x, boolean b);
+
+    protected byte EmitVexPrefixByteZero(boolean is_twobyte_form) {
+        // Vex Byte 0,
+        // Bits [7:0] must contain the value 11000101b (0xC5) for 2-byte Vex
+        // Bits [7:0] must contain the value 11000100b (0xC4) for 3-byte Vex
+        int vex_prefix = 0xC0;
+        if (is_twobyte_form) {
+            vex_prefix |= TWO_BYTE_VEX;  // 2-Byte Vex
+        } else {
+            vex_prefix |= THREE_BYTE_VEX;  // 3-Byte Vex
+        }
+        return (byte) vex_prefix;
+    }
+
+    protected byte EmitVexPrefixByteOne(boolean R, boolean X, boolean B, int SET_VEX_M) {
+        // Vex Byte 1,
+        int vex_prefix = VEX_INIT;
+        // Bit[7] This bit needs to be set to '1'
+        // otherwise the instruction is LES or LDS
+        if (!R) {
+            // R .
+            vex_prefix |= SET_VEX_R;
+        }
+        // Bit[6] This bit needs to be set to '1'
+        // otherwise the instruction is LES or LDS
+        if (!X) {
+            // X .
+            vex_prefix |= SET_VEX_X;
+        }
+        // Bit[5] This bit needs to be set to '1'
+        if (!B) {
+            // B .
+            vex_prefix |= SET_VEX_B;
+        }
+        // Bits[4:0], Based on the instruction documentaion
+        vex_prefix |= SET_VEX_M;
+        return (byte) vex_prefix;
+    }
+
+    // Note: vvvv is the register number, an unused vvvv field is encoded as register 0.
+    protected byte EmitVexPrefixByteOne(boolean R, int vvvv, int SET_VEX_L, int SET_VEX_PP) {
+        // Vex Byte 1,
+        int vex_prefix = VEX_INIT;
+        // Bit[7] This bit needs to be set to '1'
+        // otherwise the instruction is LES or LDS
+        if (!R) {
+            // R .
+            vex_prefix |= SET_VEX_R;
+        }
+        // Bits[6:3] - 'vvvv' the source or dest register specifier
+        vex_prefix |= ((~vvvv & 0x0F) << 3);
+        // Bit[2] - "L" If VEX.L = 1 indicates 256-bit vector operation,
+        // VEX.L = 0 indicates 128 bit vector operation
+        vex_prefix |= SET_VEX_L;
+        // Bits[1:0] - "pp"
+        vex_prefix |= SET_VEX_PP;
+        return (byte) vex_prefix;
+    }
+
+    protected byte EmitVexPrefixByteTwo(boolean W, int vvvv, int SET_VEX_L, int SET_VEX_PP) {
+        // Vex Byte 2,
+        int vex_prefix = VEX_INIT;
+        // Bit[7] This bits needs to be set to '1' with default value.
+        // When using C4H form of VEX prefix, W value is ignored
+        if (W) {
+            vex_prefix |= SET_VEX_W;
+        }
+        // Bits[6:3] - 'vvvv' the source or dest register specifier
+        vex_prefix |= ((~vvvv & 0x0F) << 3);
+        // Bit[2] - "L" If VEX.L = 1 indicates 256-bit vector operation,
+        // VEX.L = 0 indicates 128 bit vector operation
+        vex_prefix |= SET_VEX_L;
+        // Bits[1:0] - "pp"
+        vex_prefix |= SET_VEX_PP;
+        return (byte) vex_prefix;
+    }
+
+    protected byte EmitVexPrefixByteTwo(boolean W, int SET_VEX_L, int SET_VEX_PP) {
+        return EmitVexPrefixByteTwo(W, /*vvvv=*/ 0, SET_VEX_L, SET_VEX_PP);
+    }
+
+    // Emits VEX prefix, the two-byte form is used whenever possible.
+    protected void EmitVexPrefix(boolean r, boolean x, boolean b, int vex_m, boolean w,
+                                 int vvvv, int vex_l, int vex_pp) {
+        CHECK(cpuHasAVXorAVX2FeatureFlag());
+        EmitVexPrefixBytes(r, x, b, vex_m, w, vvvv, vex_l, vex_pp);
+    }
+
+    private void EmitVexPrefixBytes(boolean r, boolean x, boolean b, int vex_m, boolean w,
+                                    int vvvv, int vex_l, int vex_pp) {
+        boolean is_twobyte_form = !x && !b && !w && vex_m == SET_VEX_M_0F;
+        emit8(EmitVexPrefixByteZero(is_twobyte_form));
+        if (is_twobyte_form) {
+            emit8(EmitVexPrefixByteOne(r, vvvv, vex_l, vex_pp));
+        } else {
+            emit8(EmitVexPrefixByteOne(r, x, b, vex_m));
+            emit8(EmitVexPrefixByteTwo(w, vvvv, vex_l, vex_pp));
+        }
+    }
+
+    protected void EmitVexPrefix(boolean r, X86CommonOperand operand, int vex_m, boolean w,
+                                 int vvvv, int vex_l, int vex_pp) {
+        int rex = operand.rex();
+        EmitVexPrefix(r, (rex & GET_REX_X) != 0, (rex & GET_REX_B) != 0,
+                vex_m, w, vvvv, vex_l, vex_pp);
+    }
+
+    private void EmitOpcodeMap(int map) {
+        // map is one of 0x0F, 0x0F38 and 0x0F3A.
+        CHECK(map == 0x0F || map == 0x0F38 || map == 0x0F3A);
+        emit8(0x0F);
+        if (map != 0x0F) {
+            emit8(map & 0xFF);
+        }
+    }
+
+    private static void CheckSseRegister(int reg) {
+        // Registers that need more than a REX prefix (APX) are not supported by legacy and VEX encodings.
+        CHECK_GE(reg, 0);
+        CHECK_LT(reg, 16);
+    }
+
+    // Legacy SSE encoding: [prefix] [REX] <map> opcode ModRM, with the register form of ModRM.
+    // The prefix is one of 0x66, 0xF2, 0xF3 or 0 if there is none.
+    protected void EmitSseOperation(int prefix, boolean w, int map, int opcode, int reg, int rm) {
+        CheckSseRegister(reg);
+        CheckSseRegister(rm);
+        if (prefix != 0) {
+            emit8(prefix);
+        }
+        EmitOptionalRex(false, w, (reg & 8) != 0, false, (rm & 8) != 0);
+        EmitOpcodeMap(map);
+        emit8(opcode);
+        EmitRegisterOperand(reg & 7, rm);
+    }
+
+    protected void EmitSseOperation(int prefix, boolean w, int map, int opcode,
+                                    int reg, X86CommonOperand rm) {
+        CheckSseRegister(reg);
+        if (prefix != 0) {
+            emit8(prefix);
+        }
+        int rex = rm.rex();
+        EmitOptionalRex(false, w, (reg & 8) != 0, (rex & GET_REX_X) != 0, (rex & GET_REX_B) != 0);
+        EmitOpcodeMap(map);
+        emit8(opcode);
+        EmitOperand(reg & 7, rm);
+    }
+
+    protected void EmitSseOperation(int prefix, int map, int opcode, int reg, int rm) {
+        EmitSseOperation(prefix, /*W=*/ false, map, opcode, reg, rm);
+    }
+
+    protected void EmitSseOperation(int prefix, int map, int opcode, int reg, X86CommonOperand rm) {
+        EmitSseOperation(prefix, /*W=*/ false, map, opcode, reg, rm);
+    }
+
+    // VEX encoding: VEX opcode ModRM, with the register form of ModRM.
+    // vvvv is the register number of the extra source or 0 if the instruction has none.
+    protected void EmitVexOperation(int vex_m, boolean w, int vex_l, int vex_pp, int opcode,
+                                    int reg, int vvvv, int rm) {
+        CheckSseRegister(reg);
+        CheckSseRegister(vvvv);
+        CheckSseRegister(rm);
+        EmitVexPrefix((reg & 8) != 0, /*X=*/ false, (rm & 8) != 0, vex_m, w, vvvv, vex_l, vex_pp);
+        emit8(opcode);
+        EmitRegisterOperand(reg & 7, rm);
+    }
+
+    protected void EmitVexOperation(int vex_m, boolean w, int vex_l, int vex_pp, int opcode,
+                                    int reg, int vvvv, X86CommonOperand rm) {
+        CheckSseRegister(reg);
+        CheckSseRegister(vvvv);
+        EmitVexPrefix((reg & 8) != 0, rm, vex_m, w, vvvv, vex_l, vex_pp);
+        emit8(opcode);
+        EmitOperand(reg & 7, rm);
+    }
+
+    // VEX.LZ.0F38 encoding of the general purpose BMI1 and BMI2 instructions, which do not
+    // depend on AVX support. vvvv is the register number of the extra operand.
+    protected void EmitVexGprOperation(int vex_pp, boolean w, int opcode, int reg, int vvvv, int rm) {
+        CheckSseRegister(reg);
+        CheckSseRegister(vvvv);
+        CheckSseRegister(rm);
+        EmitVexPrefixBytes((reg & 8) != 0, /*X=*/ false, (rm & 8) != 0, SET_VEX_M_0F_38, w, vvvv,
+                SET_VEX_L_128, vex_pp);
+        emit8(opcode);
+        EmitRegisterOperand(reg & 7, rm);
+    }
+
+    protected void EmitVexGprOperation(int vex_pp, boolean w, int opcode, int reg, int vvvv,
+                                       X86CommonOperand rm) {
+        CheckSseRegister(reg);
+        CheckSseRegister(vvvv);
+        int rex = rm.rex();
+        EmitVexPrefixBytes((reg & 8) != 0, (rex & GET_REX_X) != 0, (rex & GET_REX_B) != 0,
+                SET_VEX_M_0F_38, w, vvvv, SET_VEX_L_128, vex_pp);
+        emit8(opcode);
+        EmitOperand(reg & 7, rm);
+    }
+
+    // VEX.128.0F encoding of the three operand arithmetic and logical instructions. The sources
+    // of a commutative operation are swapped if that allows the two-byte VEX prefix.
+    private void EmitVecArithAndLogicalOperation(X dst, X src1, X src2, int opcode,
+                                                 int vex_pp, boolean is_commutative) {
+        if (is_commutative && src2.needsRex() && !src1.needsRex()) {
+            X tmp = src1;
+            src1 = src2;
+            src2 = tmp;
+        }
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, vex_pp, opcode,
+                dst.index(), src1.index(), src2.index());
+    }
+
+    private void EmitVecArithAndLogicalOperation(X dst, X src1, X src2, int opcode, int vex_pp) {
+        EmitVecArithAndLogicalOperation(dst, src1, src2, opcode, vex_pp, false);
+    }
+
+    // Register to register VEX move. The store form, which swaps the operands, is used
+    // unless dst needs VEX.R, so that the two-byte VEX prefix is used whenever possible.
+    private void EmitVexMove(int vex_pp, int load_opcode, int store_opcode, X dst, X src) {
+        if (dst.needsRex()) {
+            EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, vex_pp, load_opcode,
+                    dst.index(), /*vvvv=*/ 0, src.index());
+        } else {
+            EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, vex_pp, store_opcode,
+                    src.index(), /*vvvv=*/ 0, dst.index());
+        }
+    }
+
+    public void call(Label label) {
+        emit8(0xE8);
+        final int kSize = 5;
+        // Offset by one because we already have emitted the opcode.
+        EmitLabel(label, kSize - 1);
+    }
+
+    @Override
+    public void bind(Label label) {
+        int bound = size();
+        CHECK(!label.isBound());  // Labels can only be bound once.
+        while (label.isLinked()) {
+            int position = label.getLinkPosition();
+            int next = load32(position);
+            store32(position, bound - (position + 4));
+            label.position = next;
+        }
+        label.bindTo(bound);
+    }
+
+    public void bind(X86NearLabel label) {
+        int bound = size();
+        CHECK(!label.isBound());  // Labels can only be bound once.
+        while (label.isLinked()) {
+            int position = label.getLinkPosition();
+            int delta = loadU8(position);
+            int offset = bound - (position + 1);
+            CHECK(Utils.isInt(8, offset));
+            store8(position, offset);
+            label.position = delta != 0 ? label.position - delta : 0;
+        }
+        label.bindTo(bound);
+    }
+
+    @Override
+    public void jump(Label label) {
+        jmp(label);
+    }
+
+    public void j(X86Condition condition, Label label) {
+        if (label.isBound()) {
+            final int kShortSize = 2;
+            final int kLongSize = 6;
+            int offset = label.getPosition() - size();
+            CHECK_LE(offset, 0);
+            if (Utils.isInt(8, offset - kShortSize)) {
+                emit8(0x70 + condition.index());
+                emit8((offset - kShortSize) & 0xFF);
+            } else {
+                emit8(0x0F);
+                emit8(0x80 + condition.index());
+                emit32(offset - kLongSize);
+            }
+        } else {
+            emit8(0x0F);
+            emit8(0x80 + condition.index());
+            EmitLabelLink(label);
+        }
+    }
+
+    public void j(X86Condition condition, X86NearLabel label) {
+        if (label.isBound()) {
+            final int kShortSize = 2;
+            int offset = label.getPosition() - size();
+            CHECK_LE(offset, 0);
+            CHECK(Utils.isInt(8, offset - kShortSize));
+            emit8(0x70 + condition.index());
+            emit8((offset - kShortSize) & 0xFF);
+        } else {
+            emit8(0x70 + condition.index());
+            EmitLabelLink(label);
+        }
+    }
+
+    public void jmp(Label label) {
+        if (label.isBound()) {
+            final int kShortSize = 2;
+            final int kLongSize = 5;
+            int offset = label.getPosition() - size();
+            CHECK_LE(offset, 0);
+            if (Utils.isInt(8, offset - kShortSize)) {
+                emit8(0xEB);
+                emit8((offset - kShortSize) & 0xFF);
+            } else {
+                emit8(0xE9);
+                emit32(offset - kLongSize);
+            }
+        } else {
+            emit8(0xE9);
+            EmitLabelLink(label);
+        }
+    }
+
+    public void jmp(X86NearLabel label) {
+        if (label.isBound()) {
+            final int kShortSize = 2;
+            int offset = label.getPosition() - size();
+            CHECK_LE(offset, 0);
+            CHECK(Utils.isInt(8, offset - kShortSize));
+            emit8(0xEB);
+            emit8((offset - kShortSize) & 0xFF);
+        } else {
+            emit8(0xEB);
+            EmitLabelLink(label);
+        }
+    }
+
+    public void ret() {
+        emit8(0xC3);
+    }
+
+    public void leave() {
+        emit8(0xC9);
+    }
+
+    public void nop() {
+        emit8(0x90);
+    }
+
+    public void int3() {
+        emit8(0xCC);
+    }
+
+    public void hlt() {
+        emit8(0xF4);
+    }
+
+    public void ud2() {
+        emit8(0x0F);
+        emit8(0x0B);
+    }
+
+    public void pause() {
+        emit8(0xF3);
+        emit8(0x90);
+    }
+
+    public void cdq() {
+        emit8(0x99);
+    }
+
+    public void mfence() {
+        emit8(0x0F);
+        emit8(0xAE);
+        emit8(0xF0);
+    }
+
+    public void lfence() {
+        emit8(0x0F);
+        emit8(0xAE);
+        emit8(0xE8);
+    }
+
+    public void sfence() {
+        emit8(0x0F);
+        emit8(0xAE);
+        emit8(0xF8);
+    }
+
+    public void rdtsc() {
+        emit8(0x0F);
+        emit8(0x31);
+    }
+
+    public void rdtscp() {
+        emit8(0x0F);
+        emit8(0x01);
+        emit8(0xF9);
+    }
+
+    public void cpuid() {
+        emit8(0x0F);
+        emit8(0xA2);
+    }
+
+    public void serialize() {
+        emit8(0x0F);
+        emit8(0x01);
+        emit8(0xE8);
+    }
+
+    public void fstsw() {
+        emit8(0x9B);
+        emit8(0xDF);
+        emit8(0xE0);
+    }
+
+    public void fincstp() {
+        emit8(0xD9);
+        emit8(0xF7);
+    }
+
+    public void fsin() {
+        emit8(0xD9);
+        emit8(0xFE);
+    }
+
+    public void fcos() {
+        emit8(0xD9);
+        emit8(0xFF);
+    }
+
+    public void fptan() {
+        emit8(0xD9);
+        emit8(0xF2);
+    }
+
+    public void fucompp() {
+        emit8(0xDA);
+        emit8(0xE9);
+    }
+
+    public void fprem() {
+        emit8(0xD9);
+        emit8(0xF8);
+    }
+
+    public void repne_scasb() {
+        emit8(0xF2);
+        emit8(0xAE);
+    }
+
+    public void repne_scasw() {
+        emit8(0x66);
+        emit8(0xF2);
+        emit8(0xAF);
+    }
+
+    public void repe_cmpsb() {
+        emit8(0xF3);
+        emit8(0xA6);
+    }
+
+    public void repe_cmpsw() {
+        emit8(0x66);
+        emit8(0xF3);
+        emit8(0xA7);
+    }
+
+    public void repe_cmpsl() {
+        emit8(0xF3);
+        emit8(0xA7);
+    }
+
+    public void rep_movsb() {
+        emit8(0xF3);
+        emit8(0xA4);
+    }
+
+    public void rep_movsw() {
+        emit8(0x66);
+        emit8(0xF3);
+        emit8(0xA5);
+    }
+
+    public void rep_movsl() {
+        emit8(0xF3);
+        emit8(0xA5);
+    }
+
+    public void movntdq(A dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xE7, src.index(), dst);
+    }
+
+    public void movntps(A dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x2B, src.index(), dst);
+    }
+
+    public void movntpd(A dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x2B, src.index(), dst);
+    }
+
+    public void movntdqa(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x2A, dst.index(), src);
+    }
+
+    public void movaps(X dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovaps(dst, src);
+            return;
+        }
+        EmitSseOperation(0, 0x0F, 0x28, dst.index(), src.index());
+    }
+
+    /*VEX.128.0F.WIG 28 /r VMOVAPS xmm1, xmm2 */
+    public void vmovaps(X dst, X src) {
+        EmitVexMove(SET_VEX_PP_NONE, 0x28, 0x29, dst, src);
+    }
+
+    public void movaps(X dst, A src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovaps(dst, src);
+            return;
+        }
+        EmitSseOperation(0, 0x0F, 0x28, dst.index(), src);
+    }
+
+    /*VEX.128.0F.WIG 28 /r VMOVAPS xmm1, m128 */
+    public void vmovaps(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_NONE, 0x28,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void movups(X dst, A src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovups(dst, src);
+            return;
+        }
+        EmitSseOperation(0, 0x0F, 0x10, dst.index(), src);
+    }
+
+    /* VEX.128.0F.WIG 10 /r VMOVUPS xmm1, m128 */
+    public void vmovups(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_NONE, 0x10,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void movaps(A dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovaps(dst, src);
+            return;
+        }
+        EmitSseOperation(0, 0x0F, 0x29, src.index(), dst);
+    }
+
+    /* VEX.128.0F.WIG 29 /r VMOVAPS m128, xmm1 */
+    public void vmovaps(A dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_NONE, 0x29,
+                src.index(), /*vvvv=*/ 0, dst);
+    }
+
+    public void movups(A dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovups(dst, src);
+            return;
+        }
+        EmitSseOperation(0, 0x0F, 0x11, src.index(), dst);
+    }
+
+    /* VEX.128.0F.WIG 11 /r VMOVUPS m128, xmm1 */
+    public void vmovups(A dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_NONE, 0x11,
+                src.index(), /*vvvv=*/ 0, dst);
+    }
+
+    public void movss(X dst, A src) {
+        EmitSseOperation(0xF3, 0x0F, 0x10, dst.index(), src);
+    }
+
+    public void movss(A dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x11, src.index(), dst);
+    }
+
+    public void movss(X dst, X src) {
+        // Movss is MR encoding instead of the usual RM.
+        EmitSseOperation(0xF3, 0x0F, 0x11, src.index(), dst.index());
+    }
+
+    public void movd(X dst, C src) {
+        EmitSseOperation(0x66, 0x0F, 0x6E, dst.index(), src.index());
+    }
+
+    public void movd(C dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x7E, src.index(), dst.index());
+    }
+
+    public void addss(X dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x58, dst.index(), src.index());
+    }
+
+    public void addss(X dst, A src) {
+        EmitSseOperation(0xF3, 0x0F, 0x58, dst.index(), src);
+    }
+
+    public void subss(X dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x5C, dst.index(), src.index());
+    }
+
+    public void subss(X dst, A src) {
+        EmitSseOperation(0xF3, 0x0F, 0x5C, dst.index(), src);
+    }
+
+    public void mulss(X dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x59, dst.index(), src.index());
+    }
+
+    public void mulss(X dst, A src) {
+        EmitSseOperation(0xF3, 0x0F, 0x59, dst.index(), src);
+    }
+
+    public void divss(X dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x5E, dst.index(), src.index());
+    }
+
+    public void divss(X dst, A src) {
+        EmitSseOperation(0xF3, 0x0F, 0x5E, dst.index(), src);
+    }
+
+    public void addps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x58, dst.index(), src.index());
+    }
+
+    public void subps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x5C, dst.index(), src.index());
+    }
+
+    public void vaddps(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(
+                dst, add_left, add_right, /*opcode=*/ 0x58, SET_VEX_PP_NONE, /*is_commutative=*/ true);
+    }
+
+    public void vsubps(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(dst, src1, src2, /*opcode=*/ 0x5C, SET_VEX_PP_NONE);
+    }
+
+    public void mulps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x59, dst.index(), src.index());
+    }
+
+    public void vmulps(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0x59, SET_VEX_PP_NONE, /*is_commutative=*/ true);
+    }
+
+    public void divps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x5E, dst.index(), src.index());
+    }
+
+    public void vdivps(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(dst, src1, src2, /*opcode=*/ 0x5E, SET_VEX_PP_NONE);
+    }
+
+    public void vfmadd213ss(X acc, X left, X right) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0xA9,
+                acc.index(), left.index(), right.index());
+    }
+
+    public void vfmadd213sd(X acc, X left, X right) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ true, SET_VEX_L_128, SET_VEX_PP_66, 0xA9,
+                acc.index(), left.index(), right.index());
+    }
+
+    public void flds(A src) {
+        emit8(0xD9);
+        EmitOperand(0, src);
+    }
+
+    public void fsts(A dst) {
+        emit8(0xD9);
+        EmitOperand(2, dst);
+    }
+
+    public void fstps(A dst) {
+        emit8(0xD9);
+        EmitOperand(3, dst);
+    }
+
+    public void movapd(X dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovapd(dst, src);
+            return;
+        }
+        EmitSseOperation(0x66, 0x0F, 0x28, dst.index(), src.index());
+    }
+
+    /* VEX.128.66.0F.WIG 28 /r VMOVAPD xmm1, xmm2 */
+    public void vmovapd(X dst, X src) {
+        EmitVexMove(SET_VEX_PP_66, 0x28, 0x29, dst, src);
+    }
+
+    public void movapd(X dst, A src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovapd(dst, src);
+            return;
+        }
+        EmitSseOperation(0x66, 0x0F, 0x28, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F.WIG 28 /r VMOVAPD xmm1, m128 */
+    public void vmovapd(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x28,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void movupd(X dst, A src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovupd(dst, src);
+            return;
+        }
+        EmitSseOperation(0x66, 0x0F, 0x10, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F.WIG 10 /r VMOVUPD xmm1, m128 */
+    public void vmovupd(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x10,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void movapd(A dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovapd(dst, src);
+            return;
+        }
+        EmitSseOperation(0x66, 0x0F, 0x29, src.index(), dst);
+    }
+
+    /* VEX.128.66.0F.WIG 29 /r VMOVAPD m128, xmm1 */
+    public void vmovapd(A dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x29,
+                src.index(), /*vvvv=*/ 0, dst);
+    }
+
+    public void movupd(A dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovupd(dst, src);
+            return;
+        }
+        EmitSseOperation(0x66, 0x0F, 0x11, src.index(), dst);
+    }
+
+    /* VEX.128.66.0F.WIG 11 /r VMOVUPD m128, xmm1 */
+    public void vmovupd(A dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x11,
+                src.index(), /*vvvv=*/ 0, dst);
+    }
+
+    public void movhpd(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F, 0x16, dst.index(), src);
+    }
+
+    public void movhpd(A dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x17, src.index(), dst);
+    }
+
+    public void movsd(X dst, A src) {
+        EmitSseOperation(0xF2, 0x0F, 0x10, dst.index(), src);
+    }
+
+    public void movsd(A dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x11, src.index(), dst);
+    }
+
+    public void movsd(X dst, X src) {
+        // Movsd is MR encoding instead of the usual RM.
+        EmitSseOperation(0xF2, 0x0F, 0x11, src.index(), dst.index());
+    }
+
+    public void addsd(X dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x58, dst.index(), src.index());
+    }
+
+    public void addsd(X dst, A src) {
+        EmitSseOperation(0xF2, 0x0F, 0x58, dst.index(), src);
+    }
+
+    public void subsd(X dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x5C, dst.index(), src.index());
+    }
+
+    public void subsd(X dst, A src) {
+        EmitSseOperation(0xF2, 0x0F, 0x5C, dst.index(), src);
+    }
+
+    public void mulsd(X dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x59, dst.index(), src.index());
+    }
+
+    public void mulsd(X dst, A src) {
+        EmitSseOperation(0xF2, 0x0F, 0x59, dst.index(), src);
+    }
+
+    public void divsd(X dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x5E, dst.index(), src.index());
+    }
+
+    public void divsd(X dst, A src) {
+        EmitSseOperation(0xF2, 0x0F, 0x5E, dst.index(), src);
+    }
+
+    public void addpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x58, dst.index(), src.index());
+    }
+
+    public void vaddpd(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(
+                dst, add_left, add_right, /*opcode=*/ 0x58, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void subpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x5C, dst.index(), src.index());
+    }
+
+    public void vsubpd(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(dst, src1, src2, /*opcode=*/ 0x5C, SET_VEX_PP_66);
+    }
+
+    public void mulpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x59, dst.index(), src.index());
+    }
+
+    public void vmulpd(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0x59, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void divpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x5E, dst.index(), src.index());
+    }
+
+    public void vdivpd(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(dst, src1, src2, /*opcode=*/ 0x5E, SET_VEX_PP_66);
+    }
+
+    public void movdqa(X dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovdqa(dst, src);
+            return;
+        }
+        EmitSseOperation(0x66, 0x0F, 0x6F, dst.index(), src.index());
+    }
+
+    /* VEX.128.66.0F.WIG 6F /r VMOVDQA xmm1, xmm2 */
+    public void vmovdqa(X dst, X src) {
+        EmitVexMove(SET_VEX_PP_66, 0x6F, 0x7F, dst, src);
+    }
+
+    public void movdqa(X dst, A src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovdqa(dst, src);
+            return;
+        }
+        EmitSseOperation(0x66, 0x0F, 0x6F, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F.WIG 6F /r VMOVDQA xmm1, m128 */
+    public void vmovdqa(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x6F,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void movdqu(X dst, A src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovdqu(dst, src);
+            return;
+        }
+        EmitSseOperation(0xF3, 0x0F, 0x6F, dst.index(), src);
+    }
+
+    public void vmovdqu(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_F3, 0x6F,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void movdqa(A dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovdqa(dst, src);
+            return;
+        }
+        EmitSseOperation(0x66, 0x0F, 0x7F, src.index(), dst);
+    }
+
+    /* VEX.128.66.0F.WIG 7F /r VMOVDQA m128, xmm1 */
+    public void vmovdqa(A dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x7F,
+                src.index(), /*vvvv=*/ 0, dst);
+    }
+
+    public void movdqu(A dst, X src) {
+        if (cpuHasAVXorAVX2FeatureFlag()) {
+            vmovdqu(dst, src);
+            return;
+        }
+        EmitSseOperation(0xF3, 0x0F, 0x7F, src.index(), dst);
+    }
+
+    /* VEX.128.F3.0F.WIG 7F /r VMOVDQU m128, xmm1 */
+    public void vmovdqu(A dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_F3, 0x7F,
+                src.index(), /*vvvv=*/ 0, dst);
+    }
+
+    public void paddb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xFC, dst.index(), src.index());
+    }
+
+    public void vpaddb(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(
+                dst, add_left, add_right, /*opcode=*/ 0xFC, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void psubb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xF8, dst.index(), src.index());
+    }
+
+    public void vpsubb(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(dst, add_left, add_right, /*opcode=*/ 0xF8, SET_VEX_PP_66);
+    }
+
+    public void paddw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xFD, dst.index(), src.index());
+    }
+
+    public void vpaddw(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(
+                dst, add_left, add_right, /*opcode=*/ 0xFD, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void psubw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xF9, dst.index(), src.index());
+    }
+
+    public void vpsubw(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(dst, add_left, add_right, /*opcode=*/ 0xF9, SET_VEX_PP_66);
+    }
+
+    public void pmullw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xD5, dst.index(), src.index());
+    }
+
+    public void vpmullw(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0xD5, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void paddd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xFE, dst.index(), src.index());
+    }
+
+    public void vpaddd(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(
+                dst, add_left, add_right, /*opcode=*/ 0xFE, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void psubd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xFA, dst.index(), src.index());
+    }
+
+    public void pmulld(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x40, dst.index(), src.index());
+    }
+
+    public void vpmulld(X dst, X src1, X src2) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x40,
+                dst.index(), src1.index(), src2.index());
+    }
+
+    public void paddq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xD4, dst.index(), src.index());
+    }
+
+    public void vpaddq(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(
+                dst, add_left, add_right, /*opcode=*/ 0xD4, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void psubq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xFB, dst.index(), src.index());
+    }
+
+    public void vpsubq(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(dst, add_left, add_right, /*opcode=*/ 0xFB, SET_VEX_PP_66);
+    }
+
+    public void paddusb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xDC, dst.index(), src.index());
+    }
+
+    public void paddsb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xEC, dst.index(), src.index());
+    }
+
+    public void paddusw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xDD, dst.index(), src.index());
+    }
+
+    public void paddsw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xED, dst.index(), src.index());
+    }
+
+    public void psubusb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xD8, dst.index(), src.index());
+    }
+
+    public void psubsb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xE8, dst.index(), src.index());
+    }
+
+    public void vpsubd(X dst, X add_left, X add_right) {
+        EmitVecArithAndLogicalOperation(dst, add_left, add_right, /*opcode=*/ 0xFA, SET_VEX_PP_66);
+    }
+
+    public void psubusw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xD9, dst.index(), src.index());
+    }
+
+    public void psubsw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xE9, dst.index(), src.index());
+    }
+
+    public void cvtsi2ss(X dst, C src) {
+        EmitSseOperation(0xF3, 0x0F, 0x2A, dst.index(), src.index());
+    }
+
+    public void cvtsi2sd(X dst, C src) {
+        EmitSseOperation(0xF2, 0x0F, 0x2A, dst.index(), src.index());
+    }
+
+    public void cvtss2si(C dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x2D, dst.index(), src.index());
+    }
+
+    public void cvtss2sd(X dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x5A, dst.index(), src.index());
+    }
+
+    public void cvtss2sd(X dst, A src) {
+        EmitSseOperation(0xF3, 0x0F, 0x5A, dst.index(), src);
+    }
+
+    public void cvtsd2si(C dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x2D, dst.index(), src.index());
+    }
+
+    public void cvttss2si(C dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x2C, dst.index(), src.index());
+    }
+
+    public void cvttsd2si(C dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x2C, dst.index(), src.index());
+    }
+
+    public void cvtsd2ss(X dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x5A, dst.index(), src.index());
+    }
+
+    public void cvtsd2ss(X dst, A src) {
+        EmitSseOperation(0xF2, 0x0F, 0x5A, dst.index(), src);
+    }
+
+    public void cvtdq2ps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x5B, dst.index(), src.index());
+    }
+
+    public void cvtdq2pd(X dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0xE6, dst.index(), src.index());
+    }
+
+    public void cvtps2dq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x5B, dst.index(), src.index());
+    }
+
+    public void cvtps2dq(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F, 0x5B, dst.index(), src);
+    }
+
+    public void cvttps2dq(X dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x5B, dst.index(), src.index());
+    }
+
+    public void cvttps2dq(X dst, A src) {
+        EmitSseOperation(0xF3, 0x0F, 0x5B, dst.index(), src);
+    }
+
+    public void cvtps2pd(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x5A, dst.index(), src.index());
+    }
+
+    public void cvtps2pd(X dst, A src) {
+        EmitSseOperation(0, 0x0F, 0x5A, dst.index(), src);
+    }
+
+    public void cvtpd2ps(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x5A, dst.index(), src.index());
+    }
+
+    public void cvtpd2ps(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F, 0x5A, dst.index(), src);
+    }
+
+    public void vcvtph2ps(X dst, X src) {
+        vcvtph2ps(dst, src, false);
+    }
+
+    public void vcvtph2ps(X dst, X src, boolean is256bit) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, is256bit ? SET_VEL_L_256 : SET_VEX_L_128,
+                SET_VEX_PP_66, 0x13, dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vcvtph2ps(X dst, A src) {
+        vcvtph2ps(dst, src, false);
+    }
+
+    public void vcvtph2ps(X dst, A src, boolean is256bit) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, is256bit ? SET_VEL_L_256 : SET_VEX_L_128,
+                SET_VEX_PP_66, 0x13, dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void vcvtps2ph(X dst, X src, I imm) {
+        vcvtps2ph(dst, src, imm, false);
+    }
+
+    public void vcvtps2ph(X dst, X src, I imm, boolean is256bit) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, is256bit ? SET_VEL_L_256 : SET_VEX_L_128,
+                SET_VEX_PP_66, 0x1D, src.index(), /*vvvv=*/ 0, dst.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vcvtps2ph(A dst, X src, I imm) {
+        vcvtps2ph(dst, src, imm, false);
+    }
+
+    public void vcvtps2ph(A dst, X src, I imm, boolean is256bit) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, is256bit ? SET_VEL_L_256 : SET_VEX_L_128,
+                SET_VEX_PP_66, 0x1D, src.index(), /*vvvv=*/ 0, dst);
+        emit8((int) imm.longValue());
+    }
+
+    public void comiss(X a, X b) {
+        EmitSseOperation(0, 0x0F, 0x2F, a.index(), b.index());
+    }
+
+    public void comiss(X a, A b) {
+        EmitSseOperation(0, 0x0F, 0x2F, a.index(), b);
+    }
+
+    public void comisd(X a, X b) {
+        EmitSseOperation(0x66, 0x0F, 0x2F, a.index(), b.index());
+    }
+
+    public void comisd(X a, A b) {
+        EmitSseOperation(0x66, 0x0F, 0x2F, a.index(), b);
+    }
+
+    public void ucomiss(X a, X b) {
+        EmitSseOperation(0, 0x0F, 0x2E, a.index(), b.index());
+    }
+
+    public void ucomiss(X a, A b) {
+        EmitSseOperation(0, 0x0F, 0x2E, a.index(), b);
+    }
+
+    public void ucomisd(X a, X b) {
+        EmitSseOperation(0x66, 0x0F, 0x2E, a.index(), b.index());
+    }
+
+    public void ucomisd(X a, A b) {
+        EmitSseOperation(0x66, 0x0F, 0x2E, a.index(), b);
+    }
+
+    public void roundsd(X dst, X src, I imm) {
+        EmitSseOperation(0x66, 0x0F3A, 0x0B, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void roundss(X dst, X src, I imm) {
+        EmitSseOperation(0x66, 0x0F3A, 0x0A, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void sqrtsd(X dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x51, dst.index(), src.index());
+    }
+
+    public void sqrtss(X dst, X src) {
+        EmitSseOperation(0xF3, 0x0F, 0x51, dst.index(), src.index());
+    }
+
+    public void pclmulqdq(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x44, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pclmulqdq(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x44, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    public void sha1rnds4(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0, 0x0F3A, 0xCC, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void sha1rnds4(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0, 0x0F3A, 0xCC, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    public void sha1nexte(X dst, X src) {
+        EmitSseOperation(0, 0x0F38, 0xC8, dst.index(), src.index());
+    }
+
+    public void sha1nexte(X dst, A src) {
+        EmitSseOperation(0, 0x0F38, 0xC8, dst.index(), src);
+    }
+
+    public void sha1msg1(X dst, X src) {
+        EmitSseOperation(0, 0x0F38, 0xC9, dst.index(), src.index());
+    }
+
+    public void sha1msg1(X dst, A src) {
+        EmitSseOperation(0, 0x0F38, 0xC9, dst.index(), src);
+    }
+
+    public void sha1msg2(X dst, X src) {
+        EmitSseOperation(0, 0x0F38, 0xCA, dst.index(), src.index());
+    }
+
+    public void sha1msg2(X dst, A src) {
+        EmitSseOperation(0, 0x0F38, 0xCA, dst.index(), src);
+    }
+
+    // XMM0 is an implicit third operand.
+    public void sha256rnds2(X dst, X src) {
+        EmitSseOperation(0, 0x0F38, 0xCB, dst.index(), src.index());
+    }
+
+    // XMM0 is an implicit third operand.
+    public void sha256rnds2(X dst, A src) {
+        EmitSseOperation(0, 0x0F38, 0xCB, dst.index(), src);
+    }
+
+    public void sha256msg1(X dst, X src) {
+        EmitSseOperation(0, 0x0F38, 0xCC, dst.index(), src.index());
+    }
+
+    public void sha256msg1(X dst, A src) {
+        EmitSseOperation(0, 0x0F38, 0xCC, dst.index(), src);
+    }
+
+    public void sha256msg2(X dst, X src) {
+        EmitSseOperation(0, 0x0F38, 0xCD, dst.index(), src.index());
+    }
+
+    public void sha256msg2(X dst, A src) {
+        EmitSseOperation(0, 0x0F38, 0xCD, dst.index(), src);
+    }
+
+    public void xorpd(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F, 0x57, dst.index(), src);
+    }
+
+    public void xorpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x57, dst.index(), src.index());
+    }
+
+    public void xorps(X dst, A src) {
+        EmitSseOperation(0, 0x0F, 0x57, dst.index(), src);
+    }
+
+    public void xorps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x57, dst.index(), src.index());
+    }
+
+    public void pxor(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xEF, dst.index(), src.index());
+    }
+
+    /* VEX.128.66.0F.WIG EF /r VPXOR xmm1, xmm2, xmm3/m128 */
+    public void vpxor(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0xEF, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    /* VEX.128.0F.WIG 57 /r VXORPS xmm1,xmm2, xmm3/m128 */
+    public void vxorps(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0x57, SET_VEX_PP_NONE, /*is_commutative=*/ true);
+    }
+
+    /* VEX.128.66.0F.WIG 57 /r VXORPD xmm1,xmm2, xmm3/m128 */
+    public void vxorpd(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0x57, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void andpd(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F, 0x54, dst.index(), src);
+    }
+
+    public void andpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x54, dst.index(), src.index());
+    }
+
+    public void andps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x54, dst.index(), src.index());
+    }
+
+    public void andps(X dst, A src) {
+        EmitSseOperation(0, 0x0F, 0x54, dst.index(), src);
+    }
+
+    public void pand(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xDB, dst.index(), src.index());
+    }
+
+    /* VEX.128.66.0F.WIG DB /r VPAND xmm1, xmm2, xmm3/m128 */
+    public void vpand(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0xDB, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    /* VEX.128.0F 54 /r VANDPS xmm1,xmm2, xmm3/m128 */
+    public void vandps(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0x54, SET_VEX_PP_NONE, /*is_commutative=*/ true);
+    }
+
+    /* VEX.128.66.0F 54 /r VANDPD xmm1, xmm2, xmm3/m128 */
+    public void vandpd(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0x54, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void andnpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x55, dst.index(), src.index());
+    }
+
+    public void andnps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x55, dst.index(), src.index());
+    }
+
+    public void pandn(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xDF, dst.index(), src.index());
+    }
+
+    /* VEX.128.66.0F.WIG DF /r VPANDN xmm1, xmm2, xmm3/m128 */
+    public void vpandn(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(dst, src1, src2, /*opcode=*/ 0xDF, SET_VEX_PP_66);
+    }
+
+    /* VEX.128.0F 55 /r VANDNPS xmm1, xmm2, xmm3/m128 */
+    public void vandnps(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(dst, src1, src2, /*opcode=*/ 0x55, SET_VEX_PP_NONE);
+    }
+
+    /* VEX.128.66.0F 55 /r VANDNPD xmm1, xmm2, xmm3/m128 */
+    public void vandnpd(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(dst, src1, src2, /*opcode=*/ 0x55, SET_VEX_PP_66);
+    }
+
+    public void orpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x56, dst.index(), src.index());
+    }
+
+    public void orps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x56, dst.index(), src.index());
+    }
+
+    public void por(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xEB, dst.index(), src.index());
+    }
+
+    /* VEX.128.66.0F.WIG EB /r VPOR xmm1, xmm2, xmm3/m128 */
+    public void vpor(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0xEB, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    /* VEX.128.0F 56 /r VORPS xmm1,xmm2, xmm3/m128 */
+    public void vorps(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0x56, SET_VEX_PP_NONE, /*is_commutative=*/ true);
+    }
+
+    /* VEX.128.66.0F 56 /r VORPD xmm1,xmm2, xmm3/m128 */
+    public void vorpd(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0x56, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void pavgb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xE0, dst.index(), src.index());
+    }
+
+    public void pavgw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xE3, dst.index(), src.index());
+    }
+
+    public void psadbw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xF6, dst.index(), src.index());
+    }
+
+    public void pmaddwd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xF5, dst.index(), src.index());
+    }
+
+    public void vpmaddwd(X dst, X src1, X src2) {
+        EmitVecArithAndLogicalOperation(
+                dst, src1, src2, /*opcode=*/ 0xF5, SET_VEX_PP_66, /*is_commutative=*/ true);
+    }
+
+    public void phaddw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x01, dst.index(), src.index());
+    }
+
+    public void phaddd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x02, dst.index(), src.index());
+    }
+
+    public void haddps(X dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x7C, dst.index(), src.index());
+    }
+
+    public void haddpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x7C, dst.index(), src.index());
+    }
+
+    public void phsubw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x05, dst.index(), src.index());
+    }
+
+    public void phsubd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x06, dst.index(), src.index());
+    }
+
+    public void hsubps(X dst, X src) {
+        EmitSseOperation(0xF2, 0x0F, 0x7D, dst.index(), src.index());
+    }
+
+    public void hsubpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x7D, dst.index(), src.index());
+    }
+
+    public void pminsb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x38, dst.index(), src.index());
+    }
+
+    public void pmaxsb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x3C, dst.index(), src.index());
+    }
+
+    public void pminsw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xEA, dst.index(), src.index());
+    }
+
+    public void pmaxsw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xEE, dst.index(), src.index());
+    }
+
+    public void pminsd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x39, dst.index(), src.index());
+    }
+
+    public void pmaxsd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x3D, dst.index(), src.index());
+    }
+
+    public void pminub(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xDA, dst.index(), src.index());
+    }
+
+    public void pmaxub(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xDE, dst.index(), src.index());
+    }
+
+    public void pminuw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x3A, dst.index(), src.index());
+    }
+
+    public void pmaxuw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x3E, dst.index(), src.index());
+    }
+
+    public void pminud(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x3B, dst.index(), src.index());
+    }
+
+    public void pmaxud(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x3F, dst.index(), src.index());
+    }
+
+    public void minps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x5D, dst.index(), src.index());
+    }
+
+    public void maxps(X dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x5F, dst.index(), src.index());
+    }
+
+    public void minpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x5D, dst.index(), src.index());
+    }
+
+    public void maxpd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x5F, dst.index(), src.index());
+    }
+
+    public void pcmpeqb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x74, dst.index(), src.index());
+    }
+
+    public void pcmpeqw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x75, dst.index(), src.index());
+    }
+
+    public void pcmpeqd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x76, dst.index(), src.index());
+    }
+
+    public void pcmpeqq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x29, dst.index(), src.index());
+    }
+
+    public void pcmpgtb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x64, dst.index(), src.index());
+    }
+
+    public void pcmpgtw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x65, dst.index(), src.index());
+    }
+
+    public void pcmpgtd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x66, dst.index(), src.index());
+    }
+
+    public void pcmpgtq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x37, dst.index(), src.index());
+    }
+
+    public void shufpd(X dst, X src, I imm) {
+        EmitSseOperation(0x66, 0x0F, 0xC6, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void shufps(X dst, X src, I imm) {
+        EmitSseOperation(0, 0x0F, 0xC6, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pshufd(X dst, X src, I imm) {
+        EmitSseOperation(0x66, 0x0F, 0x70, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void punpcklbw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x60, dst.index(), src.index());
+    }
+
+    public void punpcklwd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x61, dst.index(), src.index());
+    }
+
+    public void punpckldq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x62, dst.index(), src.index());
+    }
+
+    public void punpcklqdq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x6C, dst.index(), src.index());
+    }
+
+    public void punpckhbw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x68, dst.index(), src.index());
+    }
+
+    public void punpckhwd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x69, dst.index(), src.index());
+    }
+
+    public void punpckhdq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x6A, dst.index(), src.index());
+    }
+
+    public void punpckhqdq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x6D, dst.index(), src.index());
+    }
+
+    public void pshufb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x00, dst.index(), src.index());
+    }
+
+    public void pshufb(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x00, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 00 /r VPSHUFB xmm1, xmm2, xmm3/m128 */
+    public void vpshufb(X dst, X src1, X src2) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x00,
+                dst.index(), src1.index(), src2.index());
+    }
+
+    public void vpshufb(X dst, X src1, A src2) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x00,
+                dst.index(), src1.index(), src2);
+    }
+
+    public void palignr(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x0F, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void palignr(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x0F, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.WIG 0F /r ib VPALIGNR xmm1, xmm2, xmm3/m128, imm8 */
+    public void vpalignr(X dst, X src1, X src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x0F,
+                dst.index(), src1.index(), src2.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpalignr(X dst, X src1, A src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x0F,
+                dst.index(), src1.index(), src2);
+        emit8((int) imm.longValue());
+    }
+
+    public void pblendw(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x0E, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pblendw(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x0E, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.WIG 0E /r ib VPBLENDW xmm1, xmm2, xmm3/m128, imm8 */
+    public void vpblendw(X dst, X src1, X src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x0E,
+                dst.index(), src1.index(), src2.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpblendw(X dst, X src1, A src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x0E,
+                dst.index(), src1.index(), src2);
+        emit8((int) imm.longValue());
+    }
+
+    // XMM0 is an implicit mask operand.
+    public void pblendvb(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x10, dst.index(), src.index());
+    }
+
+    // XMM0 is an implicit mask operand.
+    public void pblendvb(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x10, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F3A.W0 4C /r /is4 VPBLENDVB xmm1, xmm2, xmm3/m128, xmm4 */
+    public void vpblendvb(X dst, X src1, X src2, X mask) {
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x4C,
+                dst.index(), src1.index(), src2.index());
+        emit8(mask.index() << 4);
+    }
+
+    public void vpblendvb(X dst, X src1, A src2, X mask) {
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x4C,
+                dst.index(), src1.index(), src2);
+        emit8(mask.index() << 4);
+    }
+
+    public void ptest(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x17, dst.index(), src.index());
+    }
+
+    public void ptest(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x17, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 17 /r VPTEST xmm1, xmm2/m128 */
+    public void vptest(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x17,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vptest(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x17,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovsxbw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x20, dst.index(), src.index());
+    }
+
+    public void pmovsxbw(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x20, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 20 /r VPMOVSXBW xmm1, xmm2/m64 */
+    public void vpmovsxbw(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x20,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovsxbw(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x20,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovsxbd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x21, dst.index(), src.index());
+    }
+
+    public void pmovsxbd(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x21, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 21 /r VPMOVSXBD xmm1, xmm2/m32 */
+    public void vpmovsxbd(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x21,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovsxbd(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x21,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovsxbq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x22, dst.index(), src.index());
+    }
+
+    public void pmovsxbq(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x22, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 22 /r VPMOVSXBQ xmm1, xmm2/m16 */
+    public void vpmovsxbq(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x22,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovsxbq(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x22,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovsxwd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x23, dst.index(), src.index());
+    }
+
+    public void pmovsxwd(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x23, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 23 /r VPMOVSXWD xmm1, xmm2/m64 */
+    public void vpmovsxwd(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x23,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovsxwd(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x23,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovsxwq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x24, dst.index(), src.index());
+    }
+
+    public void pmovsxwq(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x24, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 24 /r VPMOVSXWQ xmm1, xmm2/m32 */
+    public void vpmovsxwq(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x24,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovsxwq(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x24,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovsxdq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x25, dst.index(), src.index());
+    }
+
+    public void pmovsxdq(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x25, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 25 /r VPMOVSXDQ xmm1, xmm2/m64 */
+    public void vpmovsxdq(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x25,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovsxdq(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x25,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovzxbw(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x30, dst.index(), src.index());
+    }
+
+    public void pmovzxbw(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x30, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 30 /r VPMOVZXBW xmm1, xmm2/m64 */
+    public void vpmovzxbw(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x30,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovzxbw(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x30,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovzxbd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x31, dst.index(), src.index());
+    }
+
+    public void pmovzxbd(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x31, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 31 /r VPMOVZXBD xmm1, xmm2/m32 */
+    public void vpmovzxbd(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x31,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovzxbd(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x31,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovzxbq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x32, dst.index(), src.index());
+    }
+
+    public void pmovzxbq(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x32, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 32 /r VPMOVZXBQ xmm1, xmm2/m16 */
+    public void vpmovzxbq(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x32,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovzxbq(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x32,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovzxwd(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x33, dst.index(), src.index());
+    }
+
+    public void pmovzxwd(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x33, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 33 /r VPMOVZXWD xmm1, xmm2/m64 */
+    public void vpmovzxwd(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x33,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovzxwd(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x33,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovzxwq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x34, dst.index(), src.index());
+    }
+
+    public void pmovzxwq(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x34, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 34 /r VPMOVZXWQ xmm1, xmm2/m32 */
+    public void vpmovzxwq(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x34,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovzxwq(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x34,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pmovzxdq(X dst, X src) {
+        EmitSseOperation(0x66, 0x0F38, 0x35, dst.index(), src.index());
+    }
+
+    public void pmovzxdq(X dst, A src) {
+        EmitSseOperation(0x66, 0x0F38, 0x35, dst.index(), src);
+    }
+
+    /* VEX.128.66.0F38.WIG 35 /r VPMOVZXDQ xmm1, xmm2/m64 */
+    public void vpmovzxdq(X dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x35,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void vpmovzxdq(X dst, A src) {
+        EmitVexOperation(SET_VEX_M_0F_38, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x35,
+                dst.index(), /*vvvv=*/ 0, src);
+    }
+
+    public void pcmpestrm(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x60, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pcmpestrm(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x60, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.WIG 60 /r ib VPCMPESTRM xmm1, xmm2/m128, imm8 */
+    public void vpcmpestrm(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x60,
+                dst.index(), /*vvvv=*/ 0, src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpcmpestrm(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x60,
+                dst.index(), /*vvvv=*/ 0, src);
+        emit8((int) imm.longValue());
+    }
+
+    public void pcmpestri(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x61, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pcmpestri(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x61, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.WIG 61 /r ib VPCMPESTRI xmm1, xmm2/m128, imm8 */
+    public void vpcmpestri(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x61,
+                dst.index(), /*vvvv=*/ 0, src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpcmpestri(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x61,
+                dst.index(), /*vvvv=*/ 0, src);
+        emit8((int) imm.longValue());
+    }
+
+    public void pcmpistrm(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x62, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pcmpistrm(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x62, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.WIG 62 /r ib VPCMPISTRM xmm1, xmm2/m128, imm8 */
+    public void vpcmpistrm(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x62,
+                dst.index(), /*vvvv=*/ 0, src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpcmpistrm(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x62,
+                dst.index(), /*vvvv=*/ 0, src);
+        emit8((int) imm.longValue());
+    }
+
+    public void pcmpistri(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x63, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pcmpistri(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x63, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.WIG 63 /r ib VPCMPISTRI xmm1, xmm2/m128, imm8 */
+    public void vpcmpistri(X dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x63,
+                dst.index(), /*vvvv=*/ 0, src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpcmpistri(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x63,
+                dst.index(), /*vvvv=*/ 0, src);
+        emit8((int) imm.longValue());
+    }
+
+    public void pinsrb(X dst, C src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x20, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pinsrb(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x20, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.W0 20 /r ib VPINSRB xmm1, xmm2, r/m, imm8 */
+    public void vpinsrb(X dst, X src1, C src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x20,
+                dst.index(), src1.index(), src2.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpinsrb(X dst, X src1, A src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x20,
+                dst.index(), src1.index(), src2);
+        emit8((int) imm.longValue());
+    }
+
+    public void pinsrw(X dst, C src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0xC4, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pinsrw(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0xC4, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F.W0 C4 /r ib VPINSRW xmm1, xmm2, r/m, imm8 */
+    public void vpinsrw(X dst, X src1, C src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0xC4,
+                dst.index(), src1.index(), src2.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpinsrw(X dst, X src1, A src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0xC4,
+                dst.index(), src1.index(), src2);
+        emit8((int) imm.longValue());
+    }
+
+    public void pinsrd(X dst, C src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x22, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pinsrd(X dst, A src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x22, dst.index(), src);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.W0 22 /r ib VPINSRD xmm1, xmm2, r/m, imm8 */
+    public void vpinsrd(X dst, X src1, C src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x22,
+                dst.index(), src1.index(), src2.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpinsrd(X dst, X src1, A src2, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x22,
+                dst.index(), src1.index(), src2);
+        emit8((int) imm.longValue());
+    }
+
+    public void pextrb(C dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x14, src.index(), dst.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pextrb(A dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x14, src.index(), dst);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.W0 14 /r ib VPEXTRB r/m, xmm1, imm8 */
+    public void vpextrb(C dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x14,
+                src.index(), /*vvvv=*/ 0, dst.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpextrb(A dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x14,
+                src.index(), /*vvvv=*/ 0, dst);
+        emit8((int) imm.longValue());
+    }
+
+    public void pextrw(C dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0xC5, dst.index(), src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pextrw(A dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x15, src.index(), dst);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F.W0 C5 /r ib VPEXTRW reg, xmm1, imm8 */
+    public void vpextrw(C dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0xC5,
+                dst.index(), /*vvvv=*/ 0, src.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpextrw(A dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x15,
+                src.index(), /*vvvv=*/ 0, dst);
+        emit8((int) imm.longValue());
+    }
+
+    public void pextrd(C dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x16, src.index(), dst.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void pextrd(A dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitSseOperation(0x66, 0x0F3A, 0x16, src.index(), dst);
+        emit8((int) imm.longValue());
+    }
+
+    /* VEX.128.66.0F3A.W0 16 /r ib VPEXTRD r/m, xmm1, imm8 */
+    public void vpextrd(C dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x16,
+                src.index(), /*vvvv=*/ 0, dst.index());
+        emit8((int) imm.longValue());
+    }
+
+    public void vpextrd(A dst, X src, I imm) {
+        CHECK(imm.isUInt8());
+        EmitVexOperation(SET_VEX_M_0F_3A, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x16,
+                src.index(), /*vvvv=*/ 0, dst);
+        emit8((int) imm.longValue());
+    }
+
+    public void pmovmskb(C dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0xD7, dst.index(), src.index());
+    }
+
+    /* VEX.128.66.0F.WIG D7 /r VPMOVMSKB reg, xmm1 */
+    public void vpmovmskb(C dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0xD7,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void movmskps(C dst, X src) {
+        EmitSseOperation(0, 0x0F, 0x50, dst.index(), src.index());
+    }
+
+    /* VEX.128.0F.WIG 50 /r VMOVMSKPS reg, xmm2 */
+    public void vmovmskps(C dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_NONE, 0x50,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void movmskpd(C dst, X src) {
+        EmitSseOperation(0x66, 0x0F, 0x50, dst.index(), src.index());
+    }
+
+    /* VEX.128.66.0F.WIG 50 /r VMOVMSKPD reg, xmm2 */
+    public void vmovmskpd(C dst, X src) {
+        EmitVexOperation(SET_VEX_M_0F, /*W=*/ false, SET_VEX_L_128, SET_VEX_PP_66, 0x50,
+                dst.index(), /*vvvv=*/ 0, src.index());
+    }
+
+    public void psllw(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x71, /*reg=*/ 6, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void pslld(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x72, /*reg=*/ 6, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void psllq(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x73, /*reg=*/ 6, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void psraw(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x71, /*reg=*/ 4, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void psrad(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x72, /*reg=*/ 4, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void psrlw(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x71, /*reg=*/ 2, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void psrld(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x72, /*reg=*/ 2, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void psrlq(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x73, /*reg=*/ 2, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void psrldq(X reg, I shift_count) {
+        CHECK(shift_count.isUInt8());
+        EmitSseOperation(0x66, 0x0F, 0x73, /*reg=*/ 3, reg.index());
+        emit8((int) shift_count.longValue());
+    }
+
+    public void fldl(A src) {
+        emit8(0xDD);
+        EmitOperand(0, src);
+    }
+
+    public void fstl(A dst) {
+        emit8(0xDD);
+        EmitOperand(2, dst);
+    }
+
+    public void fstpl(A dst) {
+        emit8(0xDD);
+        EmitOperand(3, dst);
+    }
+
+    public void fnstcw(A dst) {
+        emit8(0xD9);
+        EmitOperand(7, dst);
+    }
+
+    public void fldcw(A src) {
+        emit8(0xD9);
+        EmitOperand(5, src);
+    }
+
+    public void fistpl(A dst) {
+        emit8(0xDF);
+        EmitOperand(7, dst);
+    }
+
+    public void fistps(A dst) {
+        emit8(0xDB);
+        EmitOperand(3, dst);
+    }
+
+    public void fildl(A src) {
+        emit8(0xDF);
+        EmitOperand(5, src);
+    }
+
+    public void filds(A src) {
+        emit8(0xDB);
+        EmitOperand(0, src);
+    }
+
+    public void ffree(I index) {
+        CHECK_LT(index.longValue(), 7);
+        emit8(0xDD);
+        emit8((int) (0xC0 + index.longValue()));
+    }
+
+    public void prefetchnta(A address) {
+        EmitSseOperation(0, 0x0F, 0x18, 0, address);
+    }
+
+    public void prefetcht0(A address) {
+        EmitSseOperation(0, 0x0F, 0x18, 1, address);
+    }
+
+    public void prefetcht1(A address) {
+        EmitSseOperation(0, 0x0F, 0x18, 2, address);
+    }
+
+    public void prefetcht2(A address) {
+        EmitSseOperation(0, 0x0F, 0x18, 3, address);
+    }
+
+    public void prefetchw(A address) {
+        EmitSseOperation(0, 0x0F, 0x0D, 1, address);
+    }
+
+    public void clflush(A address) {
+        EmitSseOperation(0, 0x0F, 0xAE, 7, address);
+    }
+
+    public void clflushopt(A address) {
+        EmitSseOperation(0x66, 0x0F, 0xAE, 7, address);
+    }
+
+    public void clwb(A address) {
+        EmitSseOperation(0x66, 0x0F, 0xAE, 6, address);
+    }
+}
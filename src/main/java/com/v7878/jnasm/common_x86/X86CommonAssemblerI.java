@@ -0,0 +1,845 @@
+package com.v7878.jnasm.common_x86;
+
+import com.v7878.jnasm.Label;
+
+// Instructions that are encoded identically in 32-bit and 64-bit mode.
+public interface X86CommonAssemblerI<C extends X86CommonCpuRegister, X extends X86CommonXmmRegister,
+        A extends X86CommonOperand, I extends X86CommonImmediate> {
+    void call(Label label);
+
+    void j(X86Condition condition, Label label);
+
+    void j(X86Condition condition, X86NearLabel label);
+
+    void jmp(Label label);
+
+    void jmp(X86NearLabel label);
+
+    void ret();
+
+    void leave();
+
+    void nop();
+
+    void int3();
+
+    void hlt();
+
+    void ud2();
+
+    void pause();
+
+    void cdq();
+
+    void mfence();
+
+    void lfence();
+
+    void sfence();
+
+    void rdtsc();
+
+    void rdtscp();
+
+    void cpuid();
+
+    void serialize();
+
+    void fstsw();
+
+    void fincstp();
+
+    void fsin();
+
+    void fcos();
+
+    void fptan();
+
+    void fucompp();
+
+    void fprem();
+
+    void repne_scasb();
+
+    void repne_scasw();
+
+    void repe_cmpsb();
+
+    void repe_cmpsw();
+
+    void repe_cmpsl();
+
+    void rep_movsb();
+
+    void rep_movsw();
+
+    void rep_movsl();
+
+    void movntdq(A dst, X src);
+
+    void movntps(A dst, X src);
+
+    void movntpd(A dst, X src);
+
+    void movntdqa(X dst, A src);
+
+    void movaps(X dst, X src);     // move
+
+    void movaps(X dst, A src);  // load aligned
+
+    void movups(X dst, A src);  // load unaligned
+
+    void movaps(A dst, X src);  // store aligned
+
+    void movups(A dst, X src);  // store unaligned
+
+    void vmovaps(X dst, X src);     // move
+
+    void vmovaps(X dst, A src);  // load aligned
+
+    void vmovaps(A dst, X src);  // store aligned
+
+    void vmovups(X dst, A src);  // load unaligned
+
+    void vmovups(A dst, X src);  // store unaligned
+
+    void movss(X dst, A src);
+
+    void movss(A dst, X src);
+
+    void movss(X dst, X src);
+
+    void movd(X dst, C src);
+
+    void movd(C dst, X src);
+
+    void addss(X dst, X src);
+
+    void addss(X dst, A src);
+
+    void subss(X dst, X src);
+
+    void subss(X dst, A src);
+
+    void mulss(X dst, X src);
+
+    void mulss(X dst, A src);
+
+    void divss(X dst, X src);
+
+    void divss(X dst, A src);
+
+    void addps(X dst, X src);  // no addr variant (for now)
+
+    void subps(X dst, X src);
+
+    void mulps(X dst, X src);
+
+    void divps(X dst, X src);
+
+    void vmulps(X dst, X src1, X src2);
+
+    void vmulpd(X dst, X src1, X src2);
+
+    void vdivps(X dst, X src1, X src2);
+
+    void vdivpd(X dst, X src1, X src2);
+
+    void vaddps(X dst, X add_left, X add_right);
+
+    void vsubps(X dst, X add_left, X add_right);
+
+    void vsubpd(X dst, X add_left, X add_right);
+
+    void vaddpd(X dst, X add_left, X add_right);
+
+    void vfmadd213ss(X accumulator, X left, X right);
+
+    void vfmadd213sd(X accumulator, X left, X right);
+
+    void movapd(X dst, X src);     // move
+
+    void movapd(X dst, A src);  // load aligned
+
+    void movupd(X dst, A src);  // load unaligned
+
+    void movapd(A dst, X src);  // store aligned
+
+    void movupd(A dst, X src);  // store unaligned
+
+    void vmovapd(X dst, X src);     // move
+
+    void vmovapd(X dst, A src);  // load aligned
+
+    void vmovapd(A dst, X src);  // store aligned
+
+    void vmovupd(X dst, A src);  // load unaligned
+
+    void vmovupd(A dst, X src);  // store unaligned
+
+    void movhpd(X dst, A src);
+
+    void movhpd(A dst, X src);
+
+    void movsd(X dst, A src);
+
+    void movsd(A dst, X src);
+
+    void movsd(X dst, X src);
+
+    void addsd(X dst, X src);
+
+    void addsd(X dst, A src);
+
+    void subsd(X dst, X src);
+
+    void subsd(X dst, A src);
+
+    void mulsd(X dst, X src);
+
+    void mulsd(X dst, A src);
+
+    void divsd(X dst, X src);
+
+    void divsd(X dst, A src);
+
+    void addpd(X dst, X src);  // no addr variant (for now)
+
+    void subpd(X dst, X src);
+
+    void mulpd(X dst, X src);
+
+    void divpd(X dst, X src);
+
+    void movdqa(X dst, X src);     // move
+
+    void movdqa(X dst, A src);  // load aligned
+
+    void movdqu(X dst, A src);  // load unaligned
+
+    void movdqa(A dst, X src);  // store aligned
+
+    void movdqu(A dst, X src);  // store unaligned
+
+    void vmovdqa(X dst, X src);     // move
+
+    void vmovdqa(X dst, A src);  // load aligned
+
+    void vmovdqa(A dst, X src);  // store aligned
+
+    void vmovdqu(X dst, A src);  // load unaligned
+
+    void vmovdqu(A dst, X src);  // store unaligned
+
+    void paddb(X dst, X src);  // no addr variant (for now)
+
+    void psubb(X dst, X src);
+
+    void vpaddb(X dst, X add_left, X add_right);
+
+    void vpaddw(X dst, X add_left, X add_right);
+
+    void paddw(X dst, X src);
+
+    void psubw(X dst, X src);
+
+    void pmullw(X dst, X src);
+
+    void vpmullw(X dst, X src1, X src2);
+
+    void vpsubb(X dst, X src1, X src2);
+
+    void vpsubw(X dst, X src1, X src2);
+
+    void vpsubd(X dst, X src1, X src2);
+
+    void paddd(X dst, X src);
+
+    void psubd(X dst, X src);
+
+    void pmulld(X dst, X src);
+
+    void vpmulld(X dst, X src1, X src2);
+
+    void vpaddd(X dst, X src1, X src2);
+
+    void paddq(X dst, X src);
+
+    void psubq(X dst, X src);
+
+    void vpaddq(X dst, X add_left, X add_right);
+
+    void vpsubq(X dst, X add_left, X add_right);
+
+    void paddusb(X dst, X src);
+
+    void paddsb(X dst, X src);
+
+    void paddusw(X dst, X src);
+
+    void paddsw(X dst, X src);
+
+    void psubusb(X dst, X src);
+
+    void psubsb(X dst, X src);
+
+    void psubusw(X dst, X src);
+
+    void psubsw(X dst, X src);
+
+    void cvtsi2ss(X dst, C src);  // Note: this is the r/m32 version.
+
+    void cvtsi2sd(X dst, C src);  // Note: this is the r/m32 version.
+
+    void cvtss2si(C dst, X src);  // Note: this is the r32 version.
+
+    void cvtss2sd(X dst, X src);
+
+    void cvtss2sd(X dst, A src);
+
+    void cvtsd2si(C dst, X src);  // Note: this is the r32 version.
+
+    void cvtsd2ss(X dst, X src);
+
+    void cvtsd2ss(X dst, A src);
+
+    void cvttss2si(C dst, X src);  // Note: this is the r32 version.
+
+    void cvttsd2si(C dst, X src);  // Note: this is the r32 version.
+
+    void cvtdq2ps(X dst, X src);
+
+    void cvtdq2pd(X dst, X src);
+
+    void cvtps2dq(X dst, X src);
+
+    void cvtps2dq(X dst, A src);
+
+    void cvttps2dq(X dst, X src);
+
+    void cvttps2dq(X dst, A src);
+
+    void cvtps2pd(X dst, X src);
+
+    void cvtps2pd(X dst, A src);
+
+    void cvtpd2ps(X dst, X src);
+
+    void cvtpd2ps(X dst, A src);
+
+    void vcvtph2ps(X dst, X src);
+
+    // If is256bit is set, dst is the corresponding ymm register.
+    void vcvtph2ps(X dst, X src, boolean is256bit);
+
+    void vcvtph2ps(X dst, A src);
+
+    // If is256bit is set, dst is the corresponding ymm register.
+    void vcvtph2ps(X dst, A src, boolean is256bit);
+
+    void vcvtps2ph(X dst, X src, I imm);
+
+    // If is256bit is set, src is the corresponding ymm register.
+    void vcvtps2ph(X dst, X src, I imm, boolean is256bit);
+
+    void vcvtps2ph(A dst, X src, I imm);
+
+    // If is256bit is set, src is the corresponding ymm register.
+    void vcvtps2ph(A dst, X src, I imm, boolean is256bit);
+
+    void comiss(X a, X b);
+
+    void comiss(X a, A b);
+
+    void comisd(X a, X b);
+
+    void comisd(X a, A b);
+
+    void ucomiss(X a, X b);
+
+    void ucomiss(X a, A b);
+
+    void ucomisd(X a, X b);
+
+    void ucomisd(X a, A b);
+
+    void roundsd(X dst, X src, I imm);
+
+    void roundss(X dst, X src, I imm);
+
+    void sqrtsd(X dst, X src);
+
+    void sqrtss(X dst, X src);
+
+    void pclmulqdq(X dst, X src, I imm);
+
+    void pclmulqdq(X dst, A src, I imm);
+
+    void sha1rnds4(X dst, X src, I imm);
+
+    void sha1rnds4(X dst, A src, I imm);
+
+    void sha1nexte(X dst, X src);
+
+    void sha1nexte(X dst, A src);
+
+    void sha1msg1(X dst, X src);
+
+    void sha1msg1(X dst, A src);
+
+    void sha1msg2(X dst, X src);
+
+    void sha1msg2(X dst, A src);
+
+    void sha256rnds2(X dst, X src);  // XMM0 is implicit
+
+    void sha256rnds2(X dst, A src);  // XMM0 is implicit
+
+    void sha256msg1(X dst, X src);
+
+    void sha256msg1(X dst, A src);
+
+    void sha256msg2(X dst, X src);
+
+    void sha256msg2(X dst, A src);
+
+    void xorpd(X dst, A src);
+
+    void xorpd(X dst, X src);
+
+    void xorps(X dst, A src);
+
+    void xorps(X dst, X src);
+
+    void pxor(X dst, X src);  // no addr variant (for now)
+
+    void vpxor(X dst, X src1, X src2);
+
+    void vxorps(X dst, X src1, X src2);
+
+    void vxorpd(X dst, X src1, X src2);
+
+    void andpd(X dst, A src);
+
+    void andpd(X dst, X src);
+
+    void andps(X dst, X src);
+
+    void andps(X dst, A src);
+
+    void pand(X dst, X src);
+
+    void vpand(X dst, X src1, X src2);
+
+    void vandps(X dst, X src1, X src2);
+
+    void vandpd(X dst, X src1, X src2);
+
+    void andnpd(X dst, X src);  // no addr variant (for now)
+
+    void andnps(X dst, X src);
+
+    void pandn(X dst, X src);
+
+    void vpandn(X dst, X src1, X src2);
+
+    void vandnps(X dst, X src1, X src2);
+
+    void vandnpd(X dst, X src1, X src2);
+
+    void orpd(X dst, X src);  // no addr variant (for now)
+
+    void orps(X dst, X src);
+
+    void por(X dst, X src);
+
+    void vpor(X dst, X src1, X src2);
+
+    void vorps(X dst, X src1, X src2);
+
+    void vorpd(X dst, X src1, X src2);
+
+    void pavgb(X dst, X src);  // no addr variant (for now)
+
+    void pavgw(X dst, X src);
+
+    void psadbw(X dst, X src);
+
+    void pmaddwd(X dst, X src);
+
+    void vpmaddwd(X dst, X src1, X src2);
+
+    void phaddw(X dst, X src);
+
+    void phaddd(X dst, X src);
+
+    void haddps(X dst, X src);
+
+    void haddpd(X dst, X src);
+
+    void phsubw(X dst, X src);
+
+    void phsubd(X dst, X src);
+
+    void hsubps(X dst, X src);
+
+    void hsubpd(X dst, X src);
+
+    void pminsb(X dst, X src);  // no addr variant (for now)
+
+    void pmaxsb(X dst, X src);
+
+    void pminsw(X dst, X src);
+
+    void pmaxsw(X dst, X src);
+
+    void pminsd(X dst, X src);
+
+    void pmaxsd(X dst, X src);
+
+    void pminub(X dst, X src);  // no addr variant (for now)
+
+    void pmaxub(X dst, X src);
+
+    void pminuw(X dst, X src);
+
+    void pmaxuw(X dst, X src);
+
+    void pminud(X dst, X src);
+
+    void pmaxud(X dst, X src);
+
+    void minps(X dst, X src);  // no addr variant (for now)
+
+    void maxps(X dst, X src);
+
+    void minpd(X dst, X src);
+
+    void maxpd(X dst, X src);
+
+    void pcmpeqb(X dst, X src);
+
+    void pcmpeqw(X dst, X src);
+
+    void pcmpeqd(X dst, X src);
+
+    void pcmpeqq(X dst, X src);
+
+    void pcmpgtb(X dst, X src);
+
+    void pcmpgtw(X dst, X src);
+
+    void pcmpgtd(X dst, X src);
+
+    void pcmpgtq(X dst, X src);  // SSE4.2
+
+    void shufpd(X dst, X src, I imm);
+
+    void shufps(X dst, X src, I imm);
+
+    void pshufd(X dst, X src, I imm);
+
+    void punpcklbw(X dst, X src);
+
+    void punpcklwd(X dst, X src);
+
+    void punpckldq(X dst, X src);
+
+    void punpcklqdq(X dst, X src);
+
+    void punpckhbw(X dst, X src);
+
+    void punpckhwd(X dst, X src);
+
+    void punpckhdq(X dst, X src);
+
+    void punpckhqdq(X dst, X src);
+
+    void pshufb(X dst, X src);
+
+    void pshufb(X dst, A src);
+
+    void vpshufb(X dst, X src1, X src2);
+
+    void vpshufb(X dst, X src1, A src2);
+
+    void palignr(X dst, X src, I imm);
+
+    void palignr(X dst, A src, I imm);
+
+    void vpalignr(X dst, X src1, X src2, I imm);
+
+    void vpalignr(X dst, X src1, A src2, I imm);
+
+    void pblendw(X dst, X src, I imm);
+
+    void pblendw(X dst, A src, I imm);
+
+    void vpblendw(X dst, X src1, X src2, I imm);
+
+    void vpblendw(X dst, X src1, A src2, I imm);
+
+    void pblendvb(X dst, X src);
+
+    void pblendvb(X dst, A src);
+
+    void vpblendvb(X dst, X src1, X src2, X mask);
+
+    void vpblendvb(X dst, X src1, A src2, X mask);
+
+    void ptest(X dst, X src);
+
+    void ptest(X dst, A src);
+
+    void vptest(X dst, X src);
+
+    void vptest(X dst, A src);
+
+    void pmovsxbw(X dst, X src);
+
+    void pmovsxbw(X dst, A src);
+
+    void vpmovsxbw(X dst, X src);
+
+    void vpmovsxbw(X dst, A src);
+
+    void pmovsxbd(X dst, X src);
+
+    void pmovsxbd(X dst, A src);
+
+    void vpmovsxbd(X dst, X src);
+
+    void vpmovsxbd(X dst, A src);
+
+    void pmovsxbq(X dst, X src);
+
+    void pmovsxbq(X dst, A src);
+
+    void vpmovsxbq(X dst, X src);
+
+    void vpmovsxbq(X dst, A src);
+
+    void pmovsxwd(X dst, X src);
+
+    void pmovsxwd(X dst, A src);
+
+    void vpmovsxwd(X dst, X src);
+
+    void vpmovsxwd(X dst, A src);
+
+    void pmovsxwq(X dst, X src);
+
+    void pmovsxwq(X dst, A src);
+
+    void vpmovsxwq(X dst, X src);
+
+    void vpmovsxwq(X dst, A src);
+
+    void pmovsxdq(X dst, X src);
+
+    void pmovsxdq(X dst, A src);
+
+    void vpmovsxdq(X dst, X src);
+
+    void vpmovsxdq(X dst, A src);
+
+    void pmovzxbw(X dst, X src);
+
+    void pmovzxbw(X dst, A src);
+
+    void vpmovzxbw(X dst, X src);
+
+    void vpmovzxbw(X dst, A src);
+
+    void pmovzxbd(X dst, X src);
+
+    void pmovzxbd(X dst, A src);
+
+    void vpmovzxbd(X dst, X src);
+
+    void vpmovzxbd(X dst, A src);
+
+    void pmovzxbq(X dst, X src);
+
+    void pmovzxbq(X dst, A src);
+
+    void vpmovzxbq(X dst, X src);
+
+    void vpmovzxbq(X dst, A src);
+
+    void pmovzxwd(X dst, X src);
+
+    void pmovzxwd(X dst, A src);
+
+    void vpmovzxwd(X dst, X src);
+
+    void vpmovzxwd(X dst, A src);
+
+    void pmovzxwq(X dst, X src);
+
+    void pmovzxwq(X dst, A src);
+
+    void vpmovzxwq(X dst, X src);
+
+    void vpmovzxwq(X dst, A src);
+
+    void pmovzxdq(X dst, X src);
+
+    void pmovzxdq(X dst, A src);
+
+    void vpmovzxdq(X dst, X src);
+
+    void vpmovzxdq(X dst, A src);
+
+    void pcmpestrm(X dst, X src, I imm);
+
+    void pcmpestrm(X dst, A src, I imm);
+
+    void vpcmpestrm(X dst, X src, I imm);
+
+    void vpcmpestrm(X dst, A src, I imm);
+
+    void pcmpestri(X dst, X src, I imm);
+
+    void pcmpestri(X dst, A src, I imm);
+
+    void vpcmpestri(X dst, X src, I imm);
+
+    void vpcmpestri(X dst, A src, I imm);
+
+    void pcmpistrm(X dst, X src, I imm);
+
+    void pcmpistrm(X dst, A src, I imm);
+
+    void vpcmpistrm(X dst, X src, I imm);
+
+    void vpcmpistrm(X dst, A src, I imm);
+
+    void pcmpistri(X dst, X src, I imm);
+
+    void pcmpistri(X dst, A src, I imm);
+
+    void vpcmpistri(X dst, X src, I imm);
+
+    void vpcmpistri(X dst, A src, I imm);
+
+    void pinsrb(X dst, C src, I imm);
+
+    void pinsrb(X dst, A src, I imm);
+
+    void vpinsrb(X dst, X src1, C src2, I imm);
+
+    void vpinsrb(X dst, X src1, A src2, I imm);
+
+    void pinsrw(X dst, C src, I imm);
+
+    void pinsrw(X dst, A src, I imm);
+
+    void vpinsrw(X dst, X src1, C src2, I imm);
+
+    void vpinsrw(X dst, X src1, A src2, I imm);
+
+    void pinsrd(X dst, C src, I imm);
+
+    void pinsrd(X dst, A src, I imm);
+
+    void vpinsrd(X dst, X src1, C src2, I imm);
+
+    void vpinsrd(X dst, X src1, A src2, I imm);
+
+    void pextrb(C dst, X src, I imm);
+
+    void pextrb(A dst, X src, I imm);
+
+    void vpextrb(C dst, X src, I imm);
+
+    void vpextrb(A dst, X src, I imm);
+
+    void pextrw(C dst, X src, I imm);
+
+    void pextrw(A dst, X src, I imm);
+
+    void vpextrw(C dst, X src, I imm);
+
+    void vpextrw(A dst, X src, I imm);
+
+    void pextrd(C dst, X src, I imm);
+
+    void pextrd(A dst, X src, I imm);
+
+    void vpextrd(C dst, X src, I imm);
+
+    void vpextrd(A dst, X src, I imm);
+
+    void pmovmskb(C dst, X src);
+
+    void vpmovmskb(C dst, X src);
+
+    void movmskps(C dst, X src);
+
+    void vmovmskps(C dst, X src);
+
+    void movmskpd(C dst, X src);
+
+    void vmovmskpd(C dst, X src);
+
+    void psllw(X reg, I shift_count);
+
+    void pslld(X reg, I shift_count);
+
+    void psllq(X reg, I shift_count);
+
+    void psraw(X reg, I shift_count);
+
+    void psrad(X reg, I shift_count);
+
+    void psrlw(X reg, I shift_count);
+
+    void psrld(X reg, I shift_count);
+
+    void psrlq(X reg, I shift_count);
+
+    void psrldq(X reg, I shift_count);
+
+    void flds(A src);
+
+    void fstps(A dst);
+
+    void fsts(A dst);
+
+    void fldl(A src);
+
+    void fstpl(A dst);
+
+    void fstl(A dst);
+
+    void fnstcw(A dst);
+
+    void fldcw(A src);
+
+    void fistpl(A dst);
+
+    void fistps(A dst);
+
+    void fildl(A src);
+
+    void filds(A src);
+
+    void ffree(I index);
+
+    void prefetchnta(A address);
+
+    void prefetcht0(A address);
+
+    void prefetcht1(A address);
+
+    void prefetcht2(A address);
+
+    void prefetchw(A address);
+
+    void clflush(A address);
+
+    void clflushopt(A address);
+
+    void clwb(A address);
+}
@@ -0,0 +1,4 @@
+package com.v7878.jnasm.common_x86;
+
+public interface X86CommonCpuRegister extends X86CommonRegister {
+}
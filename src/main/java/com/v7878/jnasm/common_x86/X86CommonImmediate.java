@@ -0,0 +1,14 @@
+package com.v7878.jnasm.common_x86;
+
+// Immediate operand of either mode, the value is sign-extended to 64 bits.
+public interface X86CommonImmediate {
+    long longValue();
+
+    boolean isInt8();
+
+    boolean isUInt8();
+
+    boolean isInt16();
+
+    boolean isUInt16();
+}
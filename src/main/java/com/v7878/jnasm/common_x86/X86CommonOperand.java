@@ -0,0 +1,68 @@
+package com.v7878.jnasm.common_x86;
+
+import com.v7878.jnasm.AssemblerFixup;
+
+import java.util.Objects;
+
+// Mode independent part of the ModRM/SIB/displacement encoding of x86 operands.
+public abstract class X86CommonOperand {
+    protected int length;
+    protected AssemblerFixup fixup;
+    protected final byte[] encoding;
+
+    protected X86CommonOperand() {
+        this.length = 0;
+        this.fixup = null;
+        this.encoding = new byte[6];
+    }
+
+    public void setFixup(AssemblerFixup fixup) {
+        this.fixup = fixup;
+    }
+
+    public AssemblerFixup getFixup() {
+        return fixup;
+    }
+
+    // REX.X and REX.B bits of the operand, always zero in 32-bit mode.
+    protected int rex() {
+        return 0;
+    }
+
+    protected int mod() {
+        return (encodingAt(0) >> 6) & 3;
+    }
+
+    protected byte disp8() {
+        assert length >= 2;
+        return encodingAt(length - 1);
+    }
+
+    protected int disp32() {
+        assert length >= 5;
+        // little-endian
+        return (encodingAt(length - 1) & 0xff) << 24 |
+                (encodingAt(length - 2) & 0xff) << 16 |
+                (encodingAt(length - 3) & 0xff) << 8 |
+                (encodingAt(length - 4) & 0xff);
+    }
+
+    protected byte encodingAt(int index) {
+        Objects.checkIndex(index, length);
+        return encoding[index];
+    }
+
+    protected void setDisp8(byte disp) {
+        assert length == 1 || length == 2;
+        encoding[length++] = disp;
+    }
+
+    protected void setDisp32(int disp) {
+        assert length == 1 || length == 2;
+        // little-endian
+        encoding[length++] = (byte) disp;
+        encoding[length++] = (byte) (disp >> 8);
+        encoding[length++] = (byte) (disp >> 16);
+        encoding[length++] = (byte) (disp >> 24);
+    }
+}
@@ -0,0 +1,14 @@
+package com.v7878.jnasm.common_x86;
+
+// Register numbering shared by the general purpose and xmm registers of both modes.
+public interface X86CommonRegister {
+    int index();
+
+    default int lowBits() {
+        return index() & 7;
+    }
+
+    default boolean needsRex() {
+        return index() > 7;
+    }
+}
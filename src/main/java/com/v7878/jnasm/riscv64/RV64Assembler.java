@@ -18,9 +18,12 @@ import static com.v7878.jnasm.riscv64.RV64Branch.BranchCondition.kCondNE;
 import static com.v7878.jnasm.riscv64.RV64Extension.kRiscv64CompressedExtensionsMask;
 import static com.v7878.jnasm.riscv64.RV64FenceType.kFenceNNRW;
 import static com.v7878.jnasm.riscv64.RV64VRegister.V0;
+import static com.v7878.jnasm.riscv64.RV64XRegister.GP;
 import static com.v7878.jnasm.riscv64.RV64XRegister.RA;
 import static com.v7878.jnasm.riscv64.RV64XRegister.SP;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T0;
 import static com.v7878.jnasm.riscv64.RV64XRegister.TMP;
+import static com.v7878.jnasm.riscv64.RV64XRegister.TP;
 import static com.v7878.jnasm.riscv64.RV64XRegister.Zero;
 
 import com.v7878.jnasm.Assembler;
@@ -29,17 +32,20 @@ import com.v7878.jnasm.Utils;
 import com.v7878.jnasm.riscv64.RV64Branch.Type;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.function.BiConsumer;
-import java.util.function.IntConsumer;
+import java.util.Map;
+import java.util.Objects;
 
 public class RV64Assembler extends Assembler implements RV64AssemblerI {
     private static final int kXlen = 64;
 
-    private final List<RV64Branch> branches_;
+    private static final RV64XRegister[] kXRegisters = RV64XRegister.values();
 
-    private final int no_override_enabled_extensions;
-    private int enabled_extensions;
+    private final RV64BranchTable branches_;
+
+    private final long no_override_enabled_extensions;
+    private long enabled_extensions;
 
     // Whether appending instructions at the end of the buffer or overwriting the existing ones.
     private boolean overwriting;
@@ -48,24 +54,140 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
 
     private final List<RV64Literal> literals_;
     private final List<RV64Literal> long_literals_;  // 64-bit literals separated for alignment reasons.
+    // Literals interned by their raw bits, so that every load of the same value shares one slot.
+    private final Map<Integer, RV64Literal> literals_map_;
+    private final Map<Long, RV64Literal> long_literals_map_;
+
+    private final RV64MatInt mat_int_;
+    private RV64ConstPreference const_preference_;
+
+    // Vector configuration tracker, null if the tracking is disabled.
+    private RV64VectorConfigTracker vconfig_;
+
+    // Instruction scheduler, null if the scheduling was never enabled.
+    private RV64InstructionScheduler scheduler_;
 
-    public RV64Assembler(int enabled_extensions) {
+    // Bit mask of X registers that macros and long branches may clobber.
+    private int scratch_registers_;
+
+    // The enabled_extensions mask is built from `RV64Extension.extensionMask()` bits.
+    public RV64Assembler(long enabled_extensions) {
         this.no_override_enabled_extensions =
                 this.enabled_extensions = enabled_extensions;
-        this.branches_ = new ArrayList<>();
+        this.branches_ = new RV64BranchTable();
         this.literals_ = new ArrayList<>();
         this.long_literals_ = new ArrayList<>();
+        this.literals_map_ = new HashMap<>();
+        this.long_literals_map_ = new HashMap<>();
+        this.mat_int_ = new RV64MatInt();
+        this.const_preference_ = RV64ConstPreference.kSpeed;
+        this.scratch_registers_ = RegMask(TMP);
+    }
+
+    public RV64ConstPreference getConstPreference() {
+        return const_preference_;
+    }
+
+    public void setConstPreference(RV64ConstPreference preference) {
+        this.const_preference_ = Objects.requireNonNull(preference);
+    }
+
+    public boolean isVectorConfigTracking() {
+        return vconfig_ != null;
+    }
+
+    // When enabled, VSetvli and VSetivli with rd == Zero are skipped if they would
+    // set the same vtype and AVL as the configuration already known to be active.
+    // The known configuration is forgotten at labels, calls and invalidateVectorConfig().
+    public void setVectorConfigTracking(boolean enabled) {
+        this.vconfig_ = enabled ? new RV64VectorConfigTracker() : null;
+    }
+
+    // A barrier for the vector configuration tracking: the next VSetvli or VSetivli is
+    // always emitted. Use it when vtype or vl may be changed behind the assembler's back.
+    public void invalidateVectorConfig() {
+        if (vconfig_ != null) {
+            vconfig_.Invalidate();
+        }
+    }
+
+    public RV64SchedulingModel getSchedulingModel() {
+        return scheduler_ == null ? null : scheduler_.GetModel();
+    }
+
+    // When set, instructions emitted from now on are reordered by finalizeCode() to hide
+    // load-use, multiply and FP latencies of the given in-order core. Only straight-line
+    // code between labels, branches, literal loads and instructions with side effects
+    // (fences, CSR accesses, atomics, hints) is reordered, so offsets of individual
+    // instructions inside such code must not be relied upon. The instruction following a
+    // "Zihintntl" hint stays right after it. Null stops the scheduling.
+    public void setSchedulingModel(RV64SchedulingModel model) {
+        if (scheduler_ == null) {
+            if (model == null) {
+                return;
+            }
+            scheduler_ = new RV64InstructionScheduler();
+        }
+        scheduler_.SetModel(model);
+    }
+
+    public boolean isScratchRegister(RV64XRegister reg) {
+        return (scratch_registers_ & RegMask(reg)) != 0;
+    }
+
+    // Scratch registers are used by long branches and by macros called with tmp set
+    // to Zero. Only TMP is a scratch register by default. A long branch uses the
+    // scratch registers available when it is added, so changes affect later code only.
+    public void addScratchRegister(RV64XRegister reg) {
+        CHECK(reg != Zero);
+        CHECK(reg != SP);
+        scratch_registers_ |= RegMask(reg);
+    }
+
+    public void removeScratchRegister(RV64XRegister reg) {
+        scratch_registers_ &= ~RegMask(reg);
     }
 
     public void finalizeCode() {
         super.finalizeCode();
+        if (scheduler_ != null) {
+            scheduler_.Schedule((position, encoding, length) -> {
+                if (length == 2) {
+                    store16(position, encoding);
+                } else {
+                    store32(position, encoding);
+                }
+            });
+        }
         EmitLiterals();
         PromoteBranches();
         EmitBranches();
     }
 
     private boolean IsExtensionEnabled(RV64Extension ext) {
-        return (enabled_extensions & ext.extensionBit()) != 0;
+        return (enabled_extensions & ext.extensionMask()) != 0;
+    }
+
+    private static int RegMask(RV64XRegister reg) {
+        return 1 << reg.index();
+    }
+
+    // Returns the lowest scratch register not in used_mask or Zero if there is none.
+    private RV64XRegister FindScratchRegister(int used_mask) {
+        int available = scratch_registers_ & ~used_mask;
+        return available == 0 ? Zero : kXRegisters[Integer.numberOfTrailingZeros(available)];
+    }
+
+    // Returns tmp if it is set, otherwise a scratch register not in used_mask.
+    private RV64XRegister GetTmpOrScratch(RV64XRegister tmp, int used_mask) {
+        if (tmp != Zero) {
+            return tmp;
+        }
+        RV64XRegister scratch = FindScratchRegister(used_mask);
+        if (scratch == Zero) {
+            throw new IllegalStateException("No scratch register available");
+        }
+        return scratch;
     }
 
     private void AssertExtensionsEnabled(RV64Extension ext) {
@@ -82,6 +204,21 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         }
     }
 
+    private void AssertAnyExtensionEnabled(RV64Extension ext, RV64Extension other_ext) {
+        if (!IsExtensionEnabled(ext) && !IsExtensionEnabled(other_ext)) {
+            throw new IllegalStateException(String.format(
+                    "Neither extension %s nor %s is enabled", ext, other_ext));
+        }
+    }
+
+    // Conversions between SEW = 16 and SEW = 32 floating point need "Zvfhmin" (or "Zvfh").
+    // The SEW is only known while the vector configuration is tracked.
+    private void AssertHalfPrecisionConversion() {
+        if (vconfig_ != null && vconfig_.GetSew() == 16) {
+            AssertAnyExtensionEnabled(RV64Extension.kZvfhmin, RV64Extension.kZvfh);
+        }
+    }
+
     private enum Nf {
         k1(0b000),
         k2(0b001),
@@ -249,23 +386,23 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         return (value >>> lsb) & MaskLeastSignificant(width);
     }
 
-    private record OffsetPair(int imm20, int short_offset) {
-    }
-
     // Split 32-bit offset into an `imm20` for LUI/AUIPC and
     // a signed 12-bit short offset for ADDI/JALR/etc.
-    private static OffsetPair SplitOffset(int offset) {
+    private static int SplitOffsetImm20(int offset) {
         // The highest 0x800 values are out of range.
         CHECK_LT(offset, 0x7ffff800);
         // Round `offset` to nearest 4KiB offset because short offset has range [-0x800, 0x800).
+        int near_offset = (offset + 0x800) & ~0xfff;
+        // Extract the `imm20`.
+        return near_offset >>> 12;
+    }
+
+    private static int SplitOffsetShort(int offset) {
         int near_offset = (offset + 0x800) & ~0xfff;
         // Calculate the short offset.
         int short_offset = offset - near_offset;
         assert (isInt(12, short_offset));
-        // Extract the `imm20`.
-        int imm20 = near_offset >>> 12;
-        // Return the result as a pair.
-        return new OffsetPair(imm20, short_offset);
+        return short_offset;
     }
 
     private static int ToInt12(int uint12) {
@@ -378,10 +515,6 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         return Utils.isUInt(5, uimm - 0xfffe0);
     }
 
-    private RV64Branch GetBranch(int branch_id) {
-        return branches_.get(branch_id);
-    }
-
     @Override
     public void bind(Label label) {
         bind((RV64Label) label);
@@ -395,22 +528,28 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         // Store the previously unknown target addresses in them.
         while (label.isLinked()) {
             int branch_id = label.getLinkPosition();
-            RV64Branch branch = GetBranch(branch_id);
-            branch.Resolve(bound_pc);
+            branches_.Resolve(branch_id, bound_pc);
             // On to the next branch in the list...
-            label.position = branch.NextBranchId();
+            label.position = branches_.NextBranchId(branch_id);
         }
 
         // Now make the label object contain its own location (relative to the end of the preceding
         // branch, if any; it will be used by the branches referring to and following this label).
         int prev_branch_id = RV64Label.kNoPrevBranchId;
-        if (!branches_.isEmpty()) {
-            prev_branch_id = branches_.size() - 1;
-            RV64Branch prev_branch = GetBranch(prev_branch_id);
-            bound_pc -= prev_branch.GetEndLocation();
+        if (!branches_.IsEmpty()) {
+            prev_branch_id = branches_.Size() - 1;
+            bound_pc -= branches_.GetEndLocation(prev_branch_id);
         }
         label.prev_branch_id_ = prev_branch_id;
         label.bindTo(bound_pc);
+
+        // Instructions must not move across the label.
+        if (scheduler_ != null) {
+            scheduler_.Barrier();
+        }
+
+        // Other paths may reach the label with a different vector configuration.
+        invalidateVectorConfig();
     }
 
     @Override
@@ -427,8 +566,7 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         int target = label.getPosition();
         if (label.prev_branch_id_ != RV64Label.kNoPrevBranchId) {
             // Get label location based on the branch preceding it.
-            RV64Branch prev_branch = GetBranch(label.prev_branch_id_);
-            target += prev_branch.GetEndLocation();
+            target += branches_.GetEndLocation(label.prev_branch_id_);
         }
         return target;
     }
@@ -442,7 +580,14 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
             overwrite_location += 2;
         } else {
             // Other instructions are simply appended at the end here.
+            int position = size();
             emit16(value);
+            if (vconfig_ != null) {
+                vconfig_.OnInstruction16(value);
+            }
+            if (scheduler_ != null) {
+                scheduler_.OnInstruction16(position, value);
+            }
         }
     }
 
@@ -453,7 +598,14 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
             overwrite_location += 4;
         } else {
             // Other instructions are simply appended at the end here.
+            int position = size();
             emit32(value);
+            if (vconfig_ != null) {
+                vconfig_.OnInstruction32(value);
+            }
+            if (scheduler_ != null) {
+                scheduler_.OnInstruction32(position, value);
+            }
         }
     }
 
@@ -848,10 +1000,10 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
                 }
                 // Increase target addresses in literal and address loads in order for correct
                 // offsets from PC to be generated.
-                for (var branch : branches_) {
-                    var target = branch.GetTarget();
+                for (int branch_id = 0; branch_id < branches_.Size(); branch_id++) {
+                    int target = branches_.GetTarget(branch_id);
                     if (target >= first_literal_location) {
-                        branch.Resolve(target + padding);
+                        branches_.Resolve(branch_id, target + padding);
                     }
                 }
                 // If after this we ever call GetLabelLocation() to get the location of a literal,
@@ -866,41 +1018,27 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
 
     private void PromoteBranches() {
         // Promote short branches to long as necessary.
-        boolean changed;
-        // To avoid re-computing predicate on each iteration cache it in local
-        do {
-            changed = false;
-            for (var branch : branches_) {
-                CHECK(branch.IsResolved());
-                int delta = branch.PromoteIfNeeded();
-                // If this branch has been promoted and needs to expand in size,
-                // relocate all branches by the expansion size.
-                if (delta != 0) {
-                    changed = true;
-                    int expand_location = branch.GetLocation();
-                    for (var branch2 : branches_) {
-                        branch2.Relocate(expand_location, delta);
-                    }
-                }
-            }
-        } while (changed);
+        int size_delta = branches_.PromoteBranches();
 
         // Account for branch expansion by resizing the code buffer
         // and moving the code in it to its final location.
-        int branch_count = branches_.size();
-        if (branch_count > 0) {
+        if (size_delta != 0) {
             // Resize.
-            RV64Branch last_branch = branches_.get(branch_count - 1);
-            int size_delta = last_branch.GetEndLocation() - last_branch.GetOldEndLocation();
             int old_size = size();
             getBuffer().resize(old_size + size_delta);
-            // Move the code residing between branch placeholders.
+            // Move the code residing between branch placeholders in a single sweep from
+            // the end of the buffer, so that no byte is moved more than once and nothing
+            // is overwritten before it has been moved.
             int end = old_size;
-            for (int i = branch_count; i > 0; ) {
-                RV64Branch branch = branches_.get(--i);
-                int size = end - branch.GetOldEndLocation();
-                getBuffer().move(branch.GetEndLocation(), branch.GetOldEndLocation(), size);
-                end = branch.GetOldLocation();
+            for (int branch_id = branches_.Size() - 1; branch_id >= 0; branch_id--) {
+                int old_end_location = branches_.GetOldEndLocation(branch_id);
+                int end_location = branches_.GetEndLocation(branch_id);
+                if (end_location == old_end_location) {
+                    // All the code before this point stays in place.
+                    break;
+                }
+                getBuffer().move(end_location, old_end_location, end - old_end_location);
+                end = branches_.GetOldLocation(branch_id);
             }
         }
 
@@ -928,186 +1066,187 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         }
     }
 
-    private class ScopedExtensionsOverride implements AutoCloseable {
-        private final int old_enabled_extensions_;
-
-        public ScopedExtensionsOverride(int enabled_extensions) {
-            old_enabled_extensions_ = RV64Assembler.this.enabled_extensions;
-            RV64Assembler.this.enabled_extensions = enabled_extensions;
-        }
+    // The branch placeholders are overwritten with explicitly chosen encodings,
+    // so the Compressed emitter is disabled by default and enabled where it is needed.
+    private void SetCompression(boolean enabled) {
+        enabled_extensions = enabled ? no_override_enabled_extensions :
+                no_override_enabled_extensions & ~kRiscv64CompressedExtensionsMask;
+    }
 
-        @Override
-        public void close() {
-            RV64Assembler.this.enabled_extensions = old_enabled_extensions_;
-        }
+    private void EmitAuipc(int branch_id, RV64XRegister reg) {
+        CHECK_EQ(overwrite_location, branches_.GetOffsetLocation(branch_id));
+        Auipc(reg, SplitOffsetImm20(branches_.GetOffset(branch_id)));
     }
 
-    private ScopedExtensionsOverride noCompression() {
-        return new ScopedExtensionsOverride(
-                no_override_enabled_extensions & ~kRiscv64CompressedExtensionsMask);
+    private void EmitLongJump(int branch_id, int short_offset) {
+        RV64XRegister scratch = branches_.GetScratchRegister(branch_id);
+        if (scratch == Zero) {
+            throw new IllegalStateException("Long branch needs a scratch register, but none was available");
+        }
+        EmitAuipc(branch_id, scratch);
+        Jalr(Zero, scratch, short_offset);
     }
 
-    private ScopedExtensionsOverride useCompression() {
-        return new ScopedExtensionsOverride(no_override_enabled_extensions);
+    private void EmitCBcondzOpposite(int branch_id) {
+        assert (branches_.IsCompressableCondition(branch_id));
+        BranchCondition condition = branches_.GetCondition(branch_id);
+        SetCompression(true);
+        if (condition == kCondNE) {
+            assert (RV64Branch.OppositeCondition(condition) == kCondEQ);
+            CBeqz(branches_.GetNonZeroRegister(branch_id), branches_.GetLength(branch_id));
+        } else {
+            assert (RV64Branch.OppositeCondition(condition) == kCondNE);
+            CBnez(branches_.GetNonZeroRegister(branch_id), branches_.GetLength(branch_id));
+        }
+        SetCompression(false);
     }
 
-    private void EmitBranch(RV64Branch branch) {
+    private void EmitBranch(int branch_id) {
         CHECK(overwriting);
-        overwrite_location = branch.GetLocation();
-        final int offset = branch.GetOffset();
-        BranchCondition condition = branch.GetCondition();
-        RV64XRegister lhs = branch.GetLeftRegister();
-        RV64XRegister rhs = branch.GetRightRegister();
-
-        // Disable Compressed emitter explicitly and enable where it is needed
-        try (var ignored = noCompression()) {
-            BiConsumer<RV64XRegister, IntConsumer> emit_auipc_and_next = (reg, next) -> {
-                CHECK_EQ(overwrite_location, branch.GetOffsetLocation());
-                var pair = SplitOffset(offset);
-                Auipc(reg, pair.imm20);
-                next.accept(pair.short_offset);
-            };
-
-            Runnable emit_cbcondz_opposite = () -> {
-                assert (branch.IsCompressableCondition());
-                try (var ignored1 = useCompression()) {
-                    if (condition == kCondNE) {
-                        assert (RV64Branch.OppositeCondition(condition) == kCondEQ);
-                        CBeqz(branch.GetNonZeroRegister(), branch.GetLength());
-                    } else {
-                        assert (RV64Branch.OppositeCondition(condition) == kCondNE);
-                        CBnez(branch.GetNonZeroRegister(), branch.GetLength());
-                    }
-                }
-            };
-
-            switch (branch.GetType()) {
+        overwrite_location = branches_.GetLocation(branch_id);
+        final int offset = branches_.GetOffset(branch_id);
+        final int short_offset = SplitOffsetShort(offset);
+        BranchCondition condition = branches_.GetCondition(branch_id);
+        RV64XRegister lhs = branches_.GetLeftRegister(branch_id);
+        RV64XRegister rhs = branches_.GetRightRegister(branch_id);
+
+        long saved_extensions = enabled_extensions;
+        SetCompression(false);
+        try {
+            switch (branches_.GetType(branch_id)) {
                 // Compressed branches
-                case kCondCBranch: {
-                    try (var ignored1 = useCompression()) {
-                        CHECK_EQ(overwrite_location, branch.GetOffsetLocation());
-                        assert (branch.IsCompressableCondition());
-                        if (condition == kCondEQ) {
-                            CBeqz(branch.GetNonZeroRegister(), offset);
-                        } else {
-                            CBnez(branch.GetNonZeroRegister(), offset);
-                        }
+                case kCondCBranch:
+                    SetCompression(true);
+                    CHECK_EQ(overwrite_location, branches_.GetOffsetLocation(branch_id));
+                    assert (branches_.IsCompressableCondition(branch_id));
+                    if (condition == kCondEQ) {
+                        CBeqz(branches_.GetNonZeroRegister(branch_id), offset);
+                    } else {
+                        CBnez(branches_.GetNonZeroRegister(branch_id), offset);
                     }
                     break;
-                }
-                case kUncondCBranch: {
-                    try (var ignored1 = useCompression()) {
-                        CHECK_EQ(overwrite_location, branch.GetOffsetLocation());
-                        CJ(offset);
-                    }
+                case kUncondCBranch:
+                    SetCompression(true);
+                    CHECK_EQ(overwrite_location, branches_.GetOffsetLocation(branch_id));
+                    CJ(offset);
                     break;
-                }
 
                 // Short branches.
                 case kUncondBranch:
-                    CHECK_EQ(overwrite_location, branch.GetOffsetLocation());
+                    CHECK_EQ(overwrite_location, branches_.GetOffsetLocation(branch_id));
                     J(offset);
                     break;
                 case kCondBranch:
-                    CHECK_EQ(overwrite_location, branch.GetOffsetLocation());
+                    CHECK_EQ(overwrite_location, branches_.GetOffsetLocation(branch_id));
                     EmitBcond(condition, lhs, rhs, offset);
                     break;
                 case kCall:
-                    CHECK_EQ(overwrite_location, branch.GetOffsetLocation());
+                    CHECK_EQ(overwrite_location, branches_.GetOffsetLocation(branch_id));
                     CHECK(lhs != Zero);
                     Jal(lhs, offset);
                     break;
 
                 // Medium branch.
                 case kCondBranch21:
-                    EmitBcond(RV64Branch.OppositeCondition(condition), lhs, rhs, branch.GetLength());
-                    CHECK_EQ(overwrite_location, branch.GetOffsetLocation());
+                    EmitBcond(RV64Branch.OppositeCondition(condition), lhs, rhs, branches_.GetLength(branch_id));
+                    CHECK_EQ(overwrite_location, branches_.GetOffsetLocation(branch_id));
                     J(offset);
                     break;
-                case kCondCBranch21: {
-                    emit_cbcondz_opposite.run();
-                    CHECK_EQ(overwrite_location, branch.GetOffsetLocation());
+                case kCondCBranch21:
+                    EmitCBcondzOpposite(branch_id);
+                    CHECK_EQ(overwrite_location, branches_.GetOffsetLocation(branch_id));
                     J(offset);
                     break;
-                }
 
-                // TODO: avoid usage of TMP register (make it explicit)
                 // Long branches.
                 case kLongCondCBranch:
-                    emit_cbcondz_opposite.run();
-                    emit_auipc_and_next.accept(TMP, (int short_offset) ->
-                            Jalr(Zero, TMP, short_offset));
+                    EmitCBcondzOpposite(branch_id);
+                    EmitLongJump(branch_id, short_offset);
                     break;
                 case kLongCondBranch:
-                    EmitBcond(RV64Branch.OppositeCondition(condition), lhs, rhs, branch.GetLength());
+                    EmitBcond(RV64Branch.OppositeCondition(condition), lhs, rhs, branches_.GetLength(branch_id));
                     // fall through
                 case kLongUncondBranch:
-                    emit_auipc_and_next.accept(TMP, (int short_offset) ->
-                            Jalr(Zero, TMP, short_offset));
+                    EmitLongJump(branch_id, short_offset);
                     break;
                 case kLongCall:
                     CHECK(lhs != Zero);
-                    emit_auipc_and_next.accept(lhs, (int short_offset) ->
-                            Jalr(lhs, lhs, short_offset));
+                    EmitAuipc(branch_id, lhs);
+                    Jalr(lhs, lhs, short_offset);
                     break;
 
                 // label.
                 case kLabel:
-                    emit_auipc_and_next.accept(lhs, (int short_offset) ->
-                            Addi(lhs, lhs, short_offset));
+                    EmitAuipc(branch_id, lhs);
+                    Addi(lhs, lhs, short_offset);
                     break;
 
                 // literals.
                 case kLiteral:
-                    emit_auipc_and_next.accept(lhs, (int short_offset) ->
-                            Lw(lhs, lhs, short_offset));
+                    EmitAuipc(branch_id, lhs);
+                    Lw(lhs, lhs, short_offset);
                     break;
                 case kLiteralUnsigned:
-                    emit_auipc_and_next.accept(lhs, (int short_offset) ->
-                            Lwu(lhs, lhs, short_offset));
+                    EmitAuipc(branch_id, lhs);
+                    Lwu(lhs, lhs, short_offset);
                     break;
                 case kLiteralLong:
-                    emit_auipc_and_next.accept(lhs, (int short_offset) ->
-                            Ld(lhs, lhs, short_offset));
+                    EmitAuipc(branch_id, lhs);
+                    Ld(lhs, lhs, short_offset);
                     break;
                 case kLiteralFloat:
                     CHECK(lhs != Zero);
-                    emit_auipc_and_next.accept(lhs, (int short_offset) ->
-                            FLw(branch.GetFRegister(), lhs, short_offset));
+                    EmitAuipc(branch_id, lhs);
+                    FLw(branches_.GetFRegister(branch_id), lhs, short_offset);
                     break;
                 case kLiteralDouble:
                     CHECK(lhs != Zero);
-                    emit_auipc_and_next.accept(lhs, (int short_offset) ->
-                            FLd(branch.GetFRegister(), lhs, short_offset));
+                    EmitAuipc(branch_id, lhs);
+                    FLd(branches_.GetFRegister(branch_id), lhs, short_offset);
                     break;
             }
+        } finally {
+            enabled_extensions = saved_extensions;
         }
-        CHECK_EQ(overwrite_location, branch.GetEndLocation());
-        CHECK_LE(branch.GetLength(), (RV64Branch.kMaxBranchLength));
+        CHECK_EQ(overwrite_location, branches_.GetEndLocation(branch_id));
+        CHECK_LE(branches_.GetLength(branch_id), (RV64Branch.kMaxBranchLength));
     }
 
     private void EmitBranches() {
         // Switch from appending instructions at the end of the buffer to overwriting
         // existing instructions (branch placeholders) in the buffer.
         overwriting = true;
-        for (var branch : branches_) {
-            EmitBranch(branch);
+        for (int branch_id = 0; branch_id < branches_.Size(); branch_id++) {
+            EmitBranch(branch_id);
         }
         overwriting = false;
     }
 
     private void FinalizeLabeledBranch(RV64Label label) {
         int alignment = IsExtensionEnabled(RV64Extension.kZca) ? 2 : 4;
-        int branch_id = branches_.size() - 1;
-        RV64Branch this_branch = branches_.get(branch_id);
-        int branch_length = this_branch.GetLength();
+        int branch_id = branches_.Size() - 1;
+        int branch_length = branches_.GetLength(branch_id);
         assert (isAligned(branch_length, alignment));
         int length = branch_length / alignment;
+        if (scheduler_ != null) {
+            // The branch ends the straight-line code, its placeholder is never moved.
+            scheduler_.Barrier();
+        }
+        if (vconfig_ != null) {
+            // The placeholder does not tell what the branch is going to write.
+            Type type = branches_.GetType(branch_id);
+            if (type == Type.kCall || type == Type.kLongCall) {
+                vconfig_.Invalidate();
+            } else {
+                vconfig_.OnRegisterWrite(branches_.GetLeftRegister(branch_id));
+                vconfig_.OnRegisterWrite(branches_.GetScratchRegister(branch_id));
+            }
+        }
         if (!label.isBound()) {
             // Branch forward (to a following label), distance is unknown.
             // The first branch forward will contain 0, serving as the terminator of
             // the list of forward-reaching branches.
-            this_branch.LinkToList(label.position);
+            branches_.LinkToList(branch_id, label.position);
             // Now make the label object point to this branch
             // (this forms a linked list of branches preceding this label).
             label.linkTo(branch_id);
@@ -1133,15 +1272,18 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         }
 
         int target = label.isBound() ? GetLabelLocation(label) : RV64Branch.kUnresolved;
-        branches_.add(new RV64Branch(size(), target, condition, lhs, rhs,
-                is_bare, IsExtensionEnabled(RV64Extension.kZca)));
+        RV64XRegister scratch = is_bare ? Zero : FindScratchRegister(0);
+        branches_.AddBranch(size(), target, condition, lhs, rhs, scratch,
+                is_bare, IsExtensionEnabled(RV64Extension.kZca));
         FinalizeLabeledBranch(label);
     }
 
     private void Buncond(RV64Label label, RV64XRegister rd, boolean is_bare) {
         int target = label.isBound() ? GetLabelLocation(label) : RV64Branch.kUnresolved;
-        branches_.add(new RV64Branch(size(), target, rd, is_bare,
-                IsExtensionEnabled(RV64Extension.kZca)));
+        // Long calls use rd to hold the address.
+        RV64XRegister scratch = is_bare || rd != Zero ? Zero : FindScratchRegister(0);
+        branches_.AddBranch(size(), target, rd, scratch, is_bare,
+                IsExtensionEnabled(RV64Extension.kZca));
         FinalizeLabeledBranch(label);
     }
 
@@ -1149,7 +1291,7 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         // TODO: what if literal can be loaded as immediate?
         RV64Label label = literal.getLabel();
         CHECK(!label.isBound());
-        branches_.add(new RV64Branch(size(), RV64Branch.kUnresolved, rd, literal_type));
+        branches_.AddBranch(size(), RV64Branch.kUnresolved, rd, literal_type);
         FinalizeLabeledBranch(label);
     }
 
@@ -1157,15 +1299,16 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         // TODO: what if literal can be loaded as immediate?
         RV64Label label = literal.getLabel();
         CHECK(!label.isBound());
-        branches_.add(new RV64Branch(size(), RV64Branch.kUnresolved, tmp, rd, literal_type));
+        branches_.AddBranch(size(), RV64Branch.kUnresolved, tmp, rd, literal_type);
         FinalizeLabeledBranch(label);
     }
 
     // This method is used to adjust the base register and offset pair for
     // a load/store when the offset doesn't fit into 12-bit signed integer.
-    private void AdjustBaseAndOffset(RV64XRegister tmp, RV64XRegister[] base, int[] offset) {
-        if (isInt(12, offset[0])) {
-            return;
+    // The adjusted base is always tmp, the adjusted offset is returned.
+    private int AdjustBaseAndOffset(RV64XRegister tmp, RV64XRegister base, int offset) {
+        if (isInt(12, offset)) {
+            return offset;
         }
         CHECK(tmp != Zero);
 
@@ -1178,90 +1321,438 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         final int kNegativeOffsetSimpleAdjustment = -0x800;
         final int kLowestOffsetForSimpleAdjustment = 2 * kNegativeOffsetSimpleAdjustment;
 
-        if (offset[0] >= 0 && offset[0] <= kHighestOffsetForSimpleAdjustment) {
+        if (offset >= 0 && offset <= kHighestOffsetForSimpleAdjustment) {
             // Make the adjustment 8-byte aligned (0x7f8) except for offsets that cannot be reached
             // with this adjustment, then try 4-byte alignment, then just half of the offset.
-            int adjustment = isInt(12, offset[0] - kPositiveOffsetSimpleAdjustmentAligned8)
+            int adjustment = isInt(12, offset - kPositiveOffsetSimpleAdjustmentAligned8)
                     ? kPositiveOffsetSimpleAdjustmentAligned8
-                    : isInt(12, offset[0] - kPositiveOffsetSimpleAdjustmentAligned4)
+                    : isInt(12, offset - kPositiveOffsetSimpleAdjustmentAligned4)
                     ? kPositiveOffsetSimpleAdjustmentAligned4
-                    : offset[0] / 2;
+                    : offset / 2;
             CHECK(isInt(12, adjustment));
-            Addi(tmp, base[0], adjustment);
-            offset[0] -= adjustment;
-        } else if (offset[0] < 0 && offset[0] >= kLowestOffsetForSimpleAdjustment) {
-            Addi(tmp, base[0], kNegativeOffsetSimpleAdjustment);
-            offset[0] -= kNegativeOffsetSimpleAdjustment;
-        } else if (offset[0] >= 0x7ffff800) {
-            // Support even large offsets outside the range supported by `SplitOffset()`.
-            LoadConst32(tmp, offset[0]);
-            Add(tmp, tmp, base[0]);
-            offset[0] = 0;
+            Addi(tmp, base, adjustment);
+            offset -= adjustment;
+        } else if (offset < 0 && offset >= kLowestOffsetForSimpleAdjustment) {
+            Addi(tmp, base, kNegativeOffsetSimpleAdjustment);
+            offset -= kNegativeOffsetSimpleAdjustment;
+        } else if (offset >= 0x7ffff800) {
+            // Support even large offsets outside the range supported by `SplitOffsetImm20()`.
+            LoadConst32(tmp, offset);
+            Add(tmp, tmp, base);
+            offset = 0;
         } else {
-            var pair = SplitOffset(offset[0]);
-            Lui(tmp, pair.imm20);
-            Add(tmp, tmp, base[0]);
-            offset[0] = pair.short_offset;
+            Lui(tmp, SplitOffsetImm20(offset));
+            Add(tmp, tmp, base);
+            offset = SplitOffsetShort(offset);
         }
-        base[0] = tmp;
+        return offset;
     }
 
     private interface XXI {
-        void apply(RV64XRegister x1, RV64XRegister x2, int i);
+        void apply(RV64Assembler assembler, RV64XRegister x1, RV64XRegister x2, int i);
     }
 
     private void LoadFromOffset(XXI insn, RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset) {
-        // tmp may be equal to rd
-        CHECK(tmp != rs1);
-        RV64XRegister[] rs1_arr = {rs1};
-        int[] offset_arr = {offset};
-        AdjustBaseAndOffset(tmp, rs1_arr, offset_arr);
-        insn.apply(rd, rs1_arr[0], offset_arr[0]);
+        RV64XRegister base = rs1;
+        if (!isInt(12, offset)) {
+            // tmp may be equal to rd
+            base = GetTmpOrScratch(tmp, RegMask(rs1));
+            CHECK(base != rs1);
+            offset = AdjustBaseAndOffset(base, rs1, offset);
+        }
+        insn.apply(this, rd, base, offset);
     }
 
     private void StoreToOffset(XXI insn, RV64XRegister tmp, RV64XRegister rs2, RV64XRegister rs1, int offset) {
-        CHECK(tmp != rs1);
-        CHECK(tmp != rs2);
-        RV64XRegister[] rs1_arr = {rs1};
-        int[] offset_arr = {offset};
-        AdjustBaseAndOffset(tmp, rs1_arr, offset_arr);
-        insn.apply(rs2, rs1_arr[0], offset_arr[0]);
+        RV64XRegister base = rs1;
+        if (!isInt(12, offset)) {
+            base = GetTmpOrScratch(tmp, RegMask(rs1) | RegMask(rs2));
+            CHECK(base != rs1);
+            CHECK(base != rs2);
+            offset = AdjustBaseAndOffset(base, rs1, offset);
+        }
+        insn.apply(this, rs2, base, offset);
     }
 
     private interface FXI {
-        void apply(RV64FRegister f1, RV64XRegister x2, int i);
+        void apply(RV64Assembler assembler, RV64FRegister f1, RV64XRegister x2, int i);
     }
 
     private void FLoadFromOffset(FXI insn, RV64XRegister tmp, RV64FRegister rd, RV64XRegister rs1, int offset) {
-        CHECK(tmp != rs1);
-        RV64XRegister[] rs1_arr = {rs1};
-        int[] offset_arr = {offset};
-        AdjustBaseAndOffset(tmp, rs1_arr, offset_arr);
-        insn.apply(rd, rs1_arr[0], offset_arr[0]);
+        RV64XRegister base = rs1;
+        if (!isInt(12, offset)) {
+            base = GetTmpOrScratch(tmp, RegMask(rs1));
+            CHECK(base != rs1);
+            offset = AdjustBaseAndOffset(base, rs1, offset);
+        }
+        insn.apply(this, rd, base, offset);
     }
 
     private void FStoreToOffset(FXI insn, RV64XRegister tmp, RV64FRegister rs2, RV64XRegister rs1, int offset) {
-        CHECK(tmp != rs1);
-        RV64XRegister[] rs1_arr = {rs1};
-        int[] offset_arr = {offset};
-        AdjustBaseAndOffset(tmp, rs1_arr, offset_arr);
-        insn.apply(rs2, rs1_arr[0], offset_arr[0]);
+        RV64XRegister base = rs1;
+        if (!isInt(12, offset)) {
+            base = GetTmpOrScratch(tmp, RegMask(rs1));
+            CHECK(base != rs1);
+            offset = AdjustBaseAndOffset(base, rs1, offset);
+        }
+        insn.apply(this, rs2, base, offset);
+    }
+
+    // Computes rd = base + (index << shift), the index is zero-extended from 32 bits if requested.
+    private void ScaledAdd(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                           RV64XRegister index, int shift, boolean zero_extend_index) {
+        if (IsExtensionEnabled(RV64Extension.kZba)) {
+            if (zero_extend_index) {
+                switch (shift) {
+                    case 0 -> AddUw(rd, index, base);
+                    case 1 -> Sh1AddUw(rd, index, base);
+                    case 2 -> Sh2AddUw(rd, index, base);
+                    default -> Sh3AddUw(rd, index, base);
+                }
+            } else {
+                switch (shift) {
+                    case 0 -> Add(rd, base, index);
+                    case 1 -> Sh1Add(rd, index, base);
+                    case 2 -> Sh2Add(rd, index, base);
+                    default -> Sh3Add(rd, index, base);
+                }
+            }
+            return;
+        }
+        if (shift == 0 && !zero_extend_index) {
+            Add(rd, base, index);
+            return;
+        }
+        // The scaled index needs a register other than the base.
+        RV64XRegister scaled = rd;
+        if (rd == base) {
+            scaled = GetTmpOrScratch(tmp, RegMask(base) | RegMask(index));
+            CHECK(scaled != base);
+        }
+        if (zero_extend_index) {
+            Slli(scaled, index, 32);
+            Srli(scaled, scaled, 32 - shift);
+        } else {
+            Slli(scaled, index, shift);
+        }
+        Add(rd, scaled, base);
+    }
+
+    private void LoadIndexed(XXI insn, RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                             RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        // The loaded register is free to hold the address unless it is Zero.
+        RV64XRegister addr = rd != Zero ? rd : GetTmpOrScratch(tmp, RegMask(base) | RegMask(index));
+        int disp = isInt(12, offset) ? 0 : offset;
+        ComputeAddress(tmp, addr, base, index, scale, disp, zero_extend_index);
+        insn.apply(this, rd, addr, offset - disp);
+    }
+
+    private void StoreIndexed(XXI insn, RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        RV64XRegister addr = GetTmpOrScratch(tmp, RegMask(rs2) | RegMask(base) | RegMask(index));
+        CHECK(addr != rs2);
+        int disp = isInt(12, offset) ? 0 : offset;
+        ComputeAddress(Zero, addr, base, index, scale, disp, zero_extend_index);
+        insn.apply(this, rs2, addr, offset - disp);
+    }
+
+    private void FLoadIndexed(FXI insn, RV64XRegister tmp, RV64FRegister rd, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        RV64XRegister addr = GetTmpOrScratch(tmp, RegMask(base) | RegMask(index));
+        int disp = isInt(12, offset) ? 0 : offset;
+        ComputeAddress(Zero, addr, base, index, scale, disp, zero_extend_index);
+        insn.apply(this, rd, addr, offset - disp);
+    }
+
+    private void FStoreIndexed(FXI insn, RV64XRegister tmp, RV64FRegister rs2, RV64XRegister base,
+                               RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        RV64XRegister addr = GetTmpOrScratch(tmp, RegMask(base) | RegMask(index));
+        int disp = isInt(12, offset) ? 0 : offset;
+        ComputeAddress(Zero, addr, base, index, scale, disp, zero_extend_index);
+        insn.apply(this, rs2, addr, offset - disp);
+    }
+
+    // Computes rd = flag != 0 ? a : b for a flag register that holds 0 or 1 and may be
+    // clobbered. The flag register may be the same as rd only if a or b is Zero.
+    private void SelectByFlag(RV64XRegister rd, RV64XRegister flag, RV64XRegister a, RV64XRegister b) {
+        if (a == b) {
+            Mv(rd, a);
+            return;
+        }
+        CHECK(flag != a);
+        CHECK(flag != b);
+        boolean zicond = IsExtensionEnabled(RV64Extension.kZicond);
+        if (b == Zero) {
+            if (zicond) {
+                CzeroEqz(rd, a, flag);
+            } else {
+                Neg(flag, flag);
+                And(rd, a, flag);
+            }
+            return;
+        }
+        if (a == Zero) {
+            if (zicond) {
+                CzeroNez(rd, b, flag);
+            } else {
+                Addi(flag, flag, -1);
+                And(rd, b, flag);
+            }
+            return;
+        }
+        CHECK(flag != rd);
+        if (zicond) {
+            if (rd != b) {
+                CzeroEqz(rd, a, flag);
+                CzeroNez(flag, b, flag);
+            } else {
+                CzeroNez(rd, b, flag);
+                CzeroEqz(flag, a, flag);
+            }
+            Or(rd, rd, flag);
+            return;
+        }
+        // rd = base ^ ((a ^ b) & mask), where the mask is all ones to select the other operand.
+        if (rd != b) {
+            Neg(flag, flag);
+            Xor(rd, a, b);
+            And(rd, rd, flag);
+            Xor(rd, rd, b);
+        } else {
+            Addi(flag, flag, -1);
+            Xor(rd, a, b);
+            And(rd, rd, flag);
+            Xor(rd, rd, a);
+        }
+    }
+
+    private void CompareAndSwapImpl(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                                    RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl,
+                                    boolean is_64bit) {
+        CHECK(rd != Zero && rd != rs1 && rd != new_value);
+        if (IsExtensionEnabled(RV64Extension.kZacas)) {
+            if (rd != expected) {
+                Mv(rd, expected);
+            }
+            if (is_64bit) {
+                AmoCasD(rd, new_value, rs1, aqrl);
+            } else {
+                AmoCasW(rd, new_value, rs1, aqrl);
+            }
+            return;
+        }
+
+        // The SC result is written to rd, which is fine as on success the old value is
+        // `expected` anyway. If rd is `expected`, keep a copy of it for the retries.
+        RV64XRegister cmp = expected;
+        if (rd == expected) {
+            cmp = GetTmpOrScratch(tmp, RegMask(rd) | RegMask(new_value) | RegMask(rs1));
+            CHECK(cmp != rd && cmp != new_value && cmp != rs1);
+            Mv(cmp, expected);
+        }
+        boolean acquire = aqrl == RV64AqRl.kAcquire || aqrl == RV64AqRl.kAqRl;
+        boolean release = aqrl == RV64AqRl.kRelease || aqrl == RV64AqRl.kAqRl;
+        // Sequentially consistent CAS is lr.aqrl + sc.rl, see the RISC-V atomics mappings.
+        RV64AqRl lr_aqrl = aqrl == RV64AqRl.kAqRl ? RV64AqRl.kAqRl :
+                acquire ? RV64AqRl.kAcquire : RV64AqRl.kNone;
+        RV64AqRl sc_aqrl = release ? RV64AqRl.kRelease : RV64AqRl.kNone;
+
+        RV64Label retry = new RV64Label();
+        RV64Label done = new RV64Label();
+        bind(retry);
+        if (is_64bit) {
+            LrD(rd, rs1, lr_aqrl);
+        } else {
+            LrW(rd, rs1, lr_aqrl);
+        }
+        Bne(rd, cmp, done, /* is_bare= */ true);
+        if (is_64bit) {
+            ScD(rd, new_value, rs1, sc_aqrl);
+        } else {
+            ScW(rd, new_value, rs1, sc_aqrl);
+        }
+        Bnez(rd, retry, /* is_bare= */ true);
+        Mv(rd, cmp);
+        bind(done);
+    }
+
+    // Byte and halfword CAS without "Zabha" operates on the aligned word containing the
+    // value. The loop compares and replaces only the field, selected with a shifted mask.
+    private void CompareAndSwapSubwordImpl(RV64XRegister tmp, RV64XRegister rd,
+                                           RV64XRegister expected, RV64XRegister new_value,
+                                           RV64XRegister rs1, RV64AqRl aqrl, int bits) {
+        CHECK(rd != Zero && rd != rs1 && rd != new_value);
+        if (IsExtensionEnabled(RV64Extension.kZacas) && IsExtensionEnabled(RV64Extension.kZabha)) {
+            if (rd != expected) {
+                Mv(rd, expected);
+            }
+            if (bits == 8) {
+                AmoCasB(rd, new_value, rs1, aqrl);
+            } else {
+                AmoCasH(rd, new_value, rs1, aqrl);
+            }
+            return;
+        }
+
+        int used = RegMask(rd) | RegMask(expected) | RegMask(new_value) | RegMask(rs1);
+        RV64XRegister addr = GetTmpOrScratch(tmp, used);
+        CHECK((used & RegMask(addr)) == 0);
+        used |= RegMask(addr);
+        RV64XRegister mask = GetTmpOrScratch(Zero, used);
+        used |= RegMask(mask);
+        RV64XRegister field = GetTmpOrScratch(Zero, used);
+        used |= RegMask(field);
+        RV64XRegister flip = GetTmpOrScratch(Zero, used);
+        used |= RegMask(flip);
+        RV64XRegister temp = GetTmpOrScratch(Zero, used);
+
+        // temp = bit offset of the field, mask = field mask, field = expected field,
+        // flip = bits that turn the expected field into the new one.
+        Andi(temp, rs1, 3);
+        Slli(temp, temp, 3);
+        LoadConst32(mask, (1 << bits) - 1);
+        Sll(mask, mask, temp);
+        Sll(field, expected, temp);
+        And(field, field, mask);
+        Xor(flip, expected, new_value);
+        Sll(flip, flip, temp);
+        And(flip, flip, mask);
+        Andi(addr, rs1, -4);
+
+        boolean acquire = aqrl == RV64AqRl.kAcquire || aqrl == RV64AqRl.kAqRl;
+        boolean release = aqrl == RV64AqRl.kRelease || aqrl == RV64AqRl.kAqRl;
+        RV64AqRl lr_aqrl = aqrl == RV64AqRl.kAqRl ? RV64AqRl.kAqRl :
+                acquire ? RV64AqRl.kAcquire : RV64AqRl.kNone;
+        RV64AqRl sc_aqrl = release ? RV64AqRl.kRelease : RV64AqRl.kNone;
+
+        RV64Label retry = new RV64Label();
+        RV64Label done = new RV64Label();
+        bind(retry);
+        LrW(rd, addr, lr_aqrl);
+        And(temp, rd, mask);
+        Bne(temp, field, done, /* is_bare= */ true);
+        Xor(temp, rd, flip);
+        ScW(temp, temp, addr, sc_aqrl);
+        Bnez(temp, retry, /* is_bare= */ true);
+        bind(done);
+
+        // rd holds the old word, extract and sign-extend the old field.
+        Andi(temp, rs1, 3);
+        Slli(temp, temp, 3);
+        Srl(rd, rd, temp);
+        if (bits == 8) {
+            SextB(rd, rd);
+        } else {
+            SextH(rd, rd);
+        }
+    }
+
+    private void MinMaxImpl(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1,
+                            RV64XRegister rs2, boolean is_max, boolean is_unsigned) {
+        if (IsExtensionEnabled(RV64Extension.kZbb)) {
+            if (is_max) {
+                if (is_unsigned) {
+                    Maxu(rd, rs1, rs2);
+                } else {
+                    Max(rd, rs1, rs2);
+                }
+            } else {
+                if (is_unsigned) {
+                    Minu(rd, rs1, rs2);
+                } else {
+                    Min(rd, rs1, rs2);
+                }
+            }
+            return;
+        }
+        if (rs1 == rs2) {
+            Mv(rd, rs1);
+            return;
+        }
+        // With a Zero operand rd can hold the flag itself.
+        RV64XRegister flag = (rs1 == Zero || rs2 == Zero) && rd != rs1 && rd != rs2 ? rd :
+                GetTmpOrScratch(tmp, RegMask(rd) | RegMask(rs1) | RegMask(rs2));
+        if (is_unsigned) {
+            Sltu(flag, rs1, rs2);
+        } else {
+            Slt(flag, rs1, rs2);
+        }
+        if (is_max) {
+            SelectByFlag(rd, flag, rs2, rs1);
+        } else {
+            SelectByFlag(rd, flag, rs1, rs2);
+        }
     }
 
     private interface XXLX {
-        void apply(RV64XRegister x1, RV64XRegister x2, long l, RV64XRegister x3);
+        void apply(RV64Assembler assembler, RV64XRegister x1, RV64XRegister x2, long l, RV64XRegister x3);
+    }
+
+    // AUIPC+LD followed by a load-to-use latency of a few cycles. The inline sequence
+    // is a chain of dependent single cycle instructions, so up to this many of them
+    // are not slower than the literal load and do not touch the data cache.
+    private static final int kMaxInlineConstInstructions = 4;
+
+    private boolean ShouldUseLiteral(RV64MatInt.InstSeq seq, RV64XRegister rd) {
+        if (const_preference_ == RV64ConstPreference.kSpeed) {
+            return seq.size() > kMaxInlineConstInstructions;
+        }
+        // AUIPC+LD and the 64-bit pool entry.
+        final int literal_length = 8 + 8;
+        int length = 0;
+        for (int i = 0; i < seq.size(); i++) {
+            length += GetMatIntInstructionLength(seq.opcode(i), seq.imm(i), rd, i == 0 ? Zero : rd);
+        }
+        return length > literal_length;
+    }
+
+    // Mirrors the compression choices of the emitters used by EmitMatIntInstruction().
+    private int GetMatIntInstructionLength(RV64MatInt.Opcode opcode, int imm,
+                                           RV64XRegister rd, RV64XRegister src) {
+        if (!IsExtensionEnabled(RV64Extension.kZca)) {
+            return 4;
+        }
+        boolean compressed = switch (opcode) {
+            case kLui -> rd != SP && IsImmCLuiEncodable(imm);
+            case kAddi -> src == Zero ? isInt(6, imm) : imm != 0 && (isInt(6, imm) ||
+                    (rd == SP && isInt(10, imm) && isAligned(imm, 16)));
+            case kAddiw -> isInt(6, imm);
+            case kSlli -> imm != 0;
+            case kSrli -> rd.isShortReg() && imm != 0;
+            case kAddUw -> IsExtensionEnabled(RV64Extension.kZcb) && rd.isShortReg();
+            default -> false;
+        };
+        return compressed ? 2 : 4;
+    }
+
+    private void EmitMatIntInstruction(RV64MatInt.Opcode opcode, int imm,
+                                       RV64XRegister rd, RV64XRegister src) {
+        switch (opcode) {
+            case kLui -> Lui(rd, imm);
+            case kAddi -> Addi(rd, src, imm);
+            case kAddiw -> Addiw(rd, src, imm);
+            case kSlli -> Slli(rd, src, imm);
+            case kSrli -> Srli(rd, src, imm);
+            case kSlliUw -> SlliUw(rd, src, imm);
+            case kAddUw -> ZextW(rd, src);
+            case kSh1Add -> Sh1Add(rd, src, src);
+            case kSh2Add -> Sh2Add(rd, src, src);
+            case kSh3Add -> Sh3Add(rd, src, src);
+            case kBseti -> Bseti(rd, src, imm);
+            case kBclri -> Bclri(rd, src, imm);
+            case kRori -> Rori(rd, src, imm);
+        }
     }
 
     private void AddConstImpl(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1,
                               long value, XXI addi, XXLX add_large) {
-        CHECK(tmp != rs1);
-        CHECK(tmp != SP); // TODO: Why?
-
         if (isLInt(12, value)) {
-            addi.apply(rd, rs1, (int) value);
+            addi.apply(this, rd, rs1, (int) value);
             return;
         }
-        CHECK(tmp != Zero);
+        tmp = GetTmpOrScratch(tmp, RegMask(rs1));
+        CHECK(tmp != rs1);
+        CHECK(tmp != SP); // TODO: Why?
 
         final int kPositiveValueSimpleAdjustment = 0x7ff;
         final int kHighestValueForSimpleAdjustment = 2 * kPositiveValueSimpleAdjustment;
@@ -1269,13 +1760,13 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         final int kLowestValueForSimpleAdjustment = 2 * kNegativeValueSimpleAdjustment;
 
         if (value >= 0 && value <= kHighestValueForSimpleAdjustment) {
-            addi.apply(tmp, rs1, kPositiveValueSimpleAdjustment);
-            addi.apply(rd, tmp, (int) (value - kPositiveValueSimpleAdjustment));
+            addi.apply(this, tmp, rs1, kPositiveValueSimpleAdjustment);
+            addi.apply(this, rd, tmp, (int) (value - kPositiveValueSimpleAdjustment));
         } else if (value < 0 && value >= kLowestValueForSimpleAdjustment) {
-            addi.apply(tmp, rs1, kNegativeValueSimpleAdjustment);
-            addi.apply(rd, tmp, (int) (value - kNegativeValueSimpleAdjustment));
+            addi.apply(this, tmp, rs1, kNegativeValueSimpleAdjustment);
+            addi.apply(this, rd, tmp, (int) (value - kNegativeValueSimpleAdjustment));
         } else {
-            add_large.apply(rd, rs1, value, tmp);
+            add_large.apply(this, rd, rs1, value, tmp);
         }
     }
 
@@ -2103,6 +2594,138 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
 
     //_____________________________ RV64 "A" Instructions  END _______________________________//
 
+    //___________________________ RV64 "Zabha" Instructions  START ___________________________//
+
+    // "Zabha" Standard Extension, byte and halfword AMOs: opcode = 0x2f, funct3 = 0x0 or 0x1
+
+    public void AmoSwapB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x1, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoSwapH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x1, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoAddB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x0, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoAddH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x0, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoXorB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x4, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoXorH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x4, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoAndB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0xc, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoAndH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0xc, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoOrB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x8, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoOrH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x8, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoMinB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x10, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoMinH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x10, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoMaxB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x14, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoMaxH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x14, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoMinuB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x18, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoMinuH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x18, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoMaxuB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x1c, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoMaxuH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZabha);
+        EmitR4(0x1c, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    //____________________________ RV64 "Zabha" Instructions  END ____________________________//
+
+    //___________________________ RV64 "Zacas" Instructions  START ___________________________//
+
+    // "Zacas" Standard Extension: opcode = 0x2f, funct5 = 0x5
+    // rd holds the expected value and receives the loaded value, rs2 holds the new value.
+    // The byte and halfword variants also need the "Zabha" extension.
+
+    public void AmoCasB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZacas, RV64Extension.kZabha);
+        EmitR4(0x5, aqrl.value(), rs2.index(), rs1.index(), 0x0, rd.index(), 0x2f);
+    }
+
+    public void AmoCasH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZacas, RV64Extension.kZabha);
+        EmitR4(0x5, aqrl.value(), rs2.index(), rs1.index(), 0x1, rd.index(), 0x2f);
+    }
+
+    public void AmoCasW(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZacas);
+        EmitR4(0x5, aqrl.value(), rs2.index(), rs1.index(), 0x2, rd.index(), 0x2f);
+    }
+
+    public void AmoCasD(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZacas);
+        EmitR4(0x5, aqrl.value(), rs2.index(), rs1.index(), 0x3, rd.index(), 0x2f);
+    }
+
+    // rd and rs2 name even-odd register pairs holding the low and high halves of the values.
+    public void AmoCasQ(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl) {
+        AssertExtensionsEnabled(RV64Extension.kZacas);
+        CHECK(isAligned(rd.index(), 2));
+        CHECK(isAligned(rs2.index(), 2));
+        EmitR4(0x5, aqrl.value(), rs2.index(), rs1.index(), 0x4, rd.index(), 0x2f);
+    }
+
+    //____________________________ RV64 "Zacas" Instructions  END ____________________________//
+
     //___________________________ RV64 "Zicsr" Instructions  START ___________________________//
 
     // "Zicsr" Standard Extension, opcode = 0x73, funct3 from 0x1 ~ 0x3 and 0x5 ~ 0x7
@@ -2510,6 +3133,322 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
 
     //_____________________________ RV64 "FD" Instructions  END ______________________________//
 
+    //_____________________________ RV64 "Zfh" Instructions  START ___________________________//
+
+    // FP load/store instructions (Zfhmin): opcode = 0x07, 0x27, funct3 = 0x1
+
+    public void FLh(RV64FRegister rd, RV64XRegister rs1, int offset) {
+        AssertExtensionsEnabled(RV64Extension.kLoadStore, RV64Extension.kF);
+        AssertAnyExtensionEnabled(RV64Extension.kZfhmin, RV64Extension.kZfh);
+        EmitI(offset, rs1.index(), 0x1, rd.index(), 0x07);
+    }
+
+    public void FSh(RV64FRegister rs2, RV64XRegister rs1, int offset) {
+        AssertExtensionsEnabled(RV64Extension.kLoadStore, RV64Extension.kF);
+        AssertAnyExtensionEnabled(RV64Extension.kZfhmin, RV64Extension.kZfh);
+        EmitS(offset, rs2.index(), rs1.index(), 0x1, 0x27);
+    }
+
+    // FP FMA instructions (Zfh): opcode = 0x43, 0x47, 0x4b, 0x4f, fmt = 0x2
+
+    public void FMAddH(
+            RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR4(rs3.index(), 0x2, rs2.index(), rs1.index(), frm.value(), rd.index(), 0x43);
+    }
+
+    public void FMSubH(
+            RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR4(rs3.index(), 0x2, rs2.index(), rs1.index(), frm.value(), rd.index(), 0x47);
+    }
+
+    public void FNMSubH(
+            RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR4(rs3.index(), 0x2, rs2.index(), rs1.index(), frm.value(), rd.index(), 0x4b);
+    }
+
+    public void FNMAddH(
+            RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR4(rs3.index(), 0x2, rs2.index(), rs1.index(), frm.value(), rd.index(), 0x4f);
+    }
+
+    // Simple FP instructions (Zfh, conversions between H and S/D are Zfhmin): opcode = 0x53,
+    // funct7 = 0b0XXXX10
+
+    public void FAddH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x2, rs2.index(), rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FSubH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x6, rs2.index(), rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FMulH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0xa, rs2.index(), rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FDivH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0xe, rs2.index(), rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FSqrtH(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x2e, 0x0, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FSgnjH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x12, rs2.index(), rs1.index(), 0x0, rd.index(), 0x53);
+    }
+
+    public void FSgnjnH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x12, rs2.index(), rs1.index(), 0x1, rd.index(), 0x53);
+    }
+
+    public void FSgnjxH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x12, rs2.index(), rs1.index(), 0x2, rd.index(), 0x53);
+    }
+
+    public void FMinH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x16, rs2.index(), rs1.index(), 0x0, rd.index(), 0x53);
+    }
+
+    public void FMaxH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x16, rs2.index(), rs1.index(), 0x1, rd.index(), 0x53);
+    }
+
+    public void FCvtSH(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertAnyExtensionEnabled(RV64Extension.kZfhmin, RV64Extension.kZfh);
+        // Note: The `frm` is useless, the result can represent every value of the source exactly.
+        EmitR(0x20, 0x2, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtHS(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertAnyExtensionEnabled(RV64Extension.kZfhmin, RV64Extension.kZfh);
+        EmitR(0x22, 0x0, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtDH(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kD);
+        AssertAnyExtensionEnabled(RV64Extension.kZfhmin, RV64Extension.kZfh);
+        // Note: The `frm` is useless, the result can represent every value of the source exactly.
+        EmitR(0x21, 0x2, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtHD(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kD);
+        AssertAnyExtensionEnabled(RV64Extension.kZfhmin, RV64Extension.kZfh);
+        EmitR(0x22, 0x1, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    // FP compare instructions (Zfh): opcode = 0x53, funct7 = 0b1010010
+
+    public void FEqH(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x52, rs2.index(), rs1.index(), 0x2, rd.index(), 0x53);
+    }
+
+    public void FLtH(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x52, rs2.index(), rs1.index(), 0x1, rd.index(), 0x53);
+    }
+
+    public void FLeH(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x52, rs2.index(), rs1.index(), 0x0, rd.index(), 0x53);
+    }
+
+    // FP conversion instructions (Zfh): opcode = 0x53, funct7 = 0b110X010
+
+    public void FCvtWH(RV64XRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x62, 0x0, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtWuH(RV64XRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x62, 0x1, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtLH(RV64XRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x62, 0x2, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtLuH(RV64XRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x62, 0x3, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtHW(RV64FRegister rd, RV64XRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x6a, 0x0, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtHWu(RV64FRegister rd, RV64XRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x6a, 0x1, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtHL(RV64FRegister rd, RV64XRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x6a, 0x2, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FCvtHLu(RV64FRegister rd, RV64XRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x6a, 0x3, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    // FP move instructions (Zfhmin): opcode = 0x53, funct3 = 0x0, funct7 = 0b111X010
+
+    public void FMvXH(RV64XRegister rd, RV64FRegister rs1) {
+        AssertAnyExtensionEnabled(RV64Extension.kZfhmin, RV64Extension.kZfh);
+        EmitR(0x72, 0x0, rs1.index(), 0x0, rd.index(), 0x53);
+    }
+
+    public void FMvHX(RV64FRegister rd, RV64XRegister rs1) {
+        AssertAnyExtensionEnabled(RV64Extension.kZfhmin, RV64Extension.kZfh);
+        EmitR(0x7a, 0x0, rs1.index(), 0x0, rd.index(), 0x53);
+    }
+
+    // FP classify instructions (Zfh): opcode = 0x53, funct3 = 0x1, funct7 = 0b1110010
+
+    public void FClassH(RV64XRegister rd, RV64FRegister rs1) {
+        AssertExtensionsEnabled(RV64Extension.kZfh);
+        EmitR(0x72, 0x0, rs1.index(), 0x1, rd.index(), 0x53);
+    }
+
+    //_____________________________ RV64 "Zfh" Instructions  END _____________________________//
+
+    //_____________________________ RV64 "Zfa" Instructions  START ___________________________//
+
+    // "Zfa" fli.s/fli.d immediates indexed by their rs1 encoding. Entry 1 is the minimum
+    // positive normal value and entry 31 the canonical NaN of the respective precision.
+    private static final double[] kFliImmediates = {
+            -1.0, Double.MIN_NORMAL, 0x1p-16, 0x1p-15, 0x1p-8, 0x1p-7, 0.0625, 0.125,
+            0.25, 0.3125, 0.375, 0.4375, 0.5, 0.625, 0.75, 0.875,
+            1.0, 1.25, 1.5, 1.75, 2.0, 2.5, 3.0, 4.0,
+            8.0, 16.0, 128.0, 256.0, 0x1p15, 0x1p16, Double.POSITIVE_INFINITY, Double.NaN
+    };
+
+    // Returns the fli.s immediate index for `value`, or -1 if it is not encodable.
+    private static int FindFliIndex(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        for (int i = 0; i < kFliImmediates.length; i++) {
+            float imm = i == 1 ? Float.MIN_NORMAL : (float) kFliImmediates[i];
+            if (Float.floatToRawIntBits(imm) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the fli.d immediate index for `value`, or -1 if it is not encodable.
+    private static int FindFliIndex(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < kFliImmediates.length; i++) {
+            if (Double.doubleToRawLongBits(kFliImmediates[i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // "Zfa" Standard Extension, opcode = 0x53
+
+    public void FliS(RV64FRegister rd, int index) {
+        AssertExtensionsEnabled(RV64Extension.kF, RV64Extension.kZfa);
+        CHECK(Utils.isUInt(5, index));
+        EmitR(0x78, 0x1, index, 0x0, rd.index(), 0x53);
+    }
+
+    public void FliD(RV64FRegister rd, int index) {
+        AssertExtensionsEnabled(RV64Extension.kD, RV64Extension.kZfa);
+        CHECK(Utils.isUInt(5, index));
+        EmitR(0x79, 0x1, index, 0x0, rd.index(), 0x53);
+    }
+
+    public void FMinmS(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kF, RV64Extension.kZfa);
+        EmitR(0x14, rs2.index(), rs1.index(), 0x2, rd.index(), 0x53);
+    }
+
+    public void FMinmD(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kD, RV64Extension.kZfa);
+        EmitR(0x15, rs2.index(), rs1.index(), 0x2, rd.index(), 0x53);
+    }
+
+    public void FMaxmS(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kF, RV64Extension.kZfa);
+        EmitR(0x14, rs2.index(), rs1.index(), 0x3, rd.index(), 0x53);
+    }
+
+    public void FMaxmD(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kD, RV64Extension.kZfa);
+        EmitR(0x15, rs2.index(), rs1.index(), 0x3, rd.index(), 0x53);
+    }
+
+    public void FRoundS(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kF, RV64Extension.kZfa);
+        EmitR(0x20, 0x4, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FRoundD(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kD, RV64Extension.kZfa);
+        EmitR(0x21, 0x4, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FRoundNxS(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kF, RV64Extension.kZfa);
+        EmitR(0x20, 0x5, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    public void FRoundNxD(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm) {
+        AssertExtensionsEnabled(RV64Extension.kD, RV64Extension.kZfa);
+        EmitR(0x21, 0x5, rs1.index(), frm.value(), rd.index(), 0x53);
+    }
+
+    // Converts with Java/JavaScript semantics: truncates and keeps the low 32 bits of the
+    // integer (zero for NaN and infinities), the rounding mode is always RTZ.
+    public void FCvtModWD(RV64XRegister rd, RV64FRegister rs1) {
+        AssertExtensionsEnabled(RV64Extension.kD, RV64Extension.kZfa);
+        EmitR(0x61, 0x8, rs1.index(), RV64FPRoundingMode.kRTZ.value(), rd.index(), 0x53);
+    }
+
+    public void FLeqS(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kF, RV64Extension.kZfa);
+        EmitR(0x50, rs2.index(), rs1.index(), 0x4, rd.index(), 0x53);
+    }
+
+    public void FLeqD(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kD, RV64Extension.kZfa);
+        EmitR(0x51, rs2.index(), rs1.index(), 0x4, rd.index(), 0x53);
+    }
+
+    public void FLtqS(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kF, RV64Extension.kZfa);
+        EmitR(0x50, rs2.index(), rs1.index(), 0x5, rd.index(), 0x53);
+    }
+
+    public void FLtqD(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kD, RV64Extension.kZfa);
+        EmitR(0x51, rs2.index(), rs1.index(), 0x5, rd.index(), 0x53);
+    }
+
+    //_____________________________ RV64 "Zfa" Instructions  END _____________________________//
+
     //______________________________ RV64 "C" Instructions  START ____________________________//
 
     public void CLwsp(RV64XRegister rd, int offset) {
@@ -2884,17 +3823,17 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
     //_____________________________ RV64 "Zbb" Instructions  START ___________________________//
 
     public void Andn(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         EmitR(0x20, rs2.index(), rs1.index(), 0x7, rd.index(), 0x33);
     }
 
     public void Orn(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         EmitR(0x20, rs2.index(), rs1.index(), 0x6, rd.index(), 0x33);
     }
 
     public void Xnor(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         EmitR(0x20, rs2.index(), rs1.index(), 0x4, rd.index(), 0x33);
     }
 
@@ -2949,33 +3888,33 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
     }
 
     public void Rol(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         EmitR(0x30, rs2.index(), rs1.index(), 0x1, rd.index(), 0x33);
     }
 
     public void Rolw(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         EmitR(0x30, rs2.index(), rs1.index(), 0x1, rd.index(), 0x3b);
     }
 
     public void Ror(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         EmitR(0x30, rs2.index(), rs1.index(), 0x5, rd.index(), 0x33);
     }
 
     public void Rorw(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         EmitR(0x30, rs2.index(), rs1.index(), 0x5, rd.index(), 0x3b);
     }
 
     public void Rori(RV64XRegister rd, RV64XRegister rs1, int shamt) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         CHECK_LT(shamt, 64);
         EmitI6(0x18, shamt, rs1, 0x5, rd, 0x13);
     }
 
     public void Roriw(RV64XRegister rd, RV64XRegister rs1, int shamt) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         CHECK_LT(shamt, 32);
         EmitI6(0x18, shamt, rs1, 0x5, rd, 0x1b);
     }
@@ -2986,7 +3925,7 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
     }
 
     public void Rev8(RV64XRegister rd, RV64XRegister rs1) {
-        AssertExtensionsEnabled(RV64Extension.kZbb);
+        AssertAnyExtensionEnabled(RV64Extension.kZbb, RV64Extension.kZbkb);
         EmitR(0x35, 0x18, rs1.index(), 0x5, rd.index(), 0x13);
     }
 
@@ -3042,37 +3981,250 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         EmitI6(0x1A, shamt, rs1, 0x1, rd, 0x13);
     }
 
-    public void Bset(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
-        AssertExtensionsEnabled(RV64Extension.kZbs);
-        EmitR(0x14, rs2.index(), rs1.index(), 0x1, rd.index(), 0x33);
+    public void Bset(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZbs);
+        EmitR(0x14, rs2.index(), rs1.index(), 0x1, rd.index(), 0x33);
+    }
+
+    public void Bseti(RV64XRegister rd, RV64XRegister rs1, int shamt) {
+        CHECK_LT(shamt, 64);
+        AssertExtensionsEnabled(RV64Extension.kZbs);
+        EmitI6(0xA, shamt, rs1, 0x1, rd, 0x13);
+    }
+
+    //_____________________________ RV64 "Zbs" Instructions  END _____________________________//
+
+    //_____________________________ RV64 "Zbc" Instructions  START ___________________________//
+
+    public void Clmul(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertAnyExtensionEnabled(RV64Extension.kZbc, RV64Extension.kZbkc);
+        EmitR(0x5, rs2.index(), rs1.index(), 0x1, rd.index(), 0x33);
+    }
+
+    public void Clmulh(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertAnyExtensionEnabled(RV64Extension.kZbc, RV64Extension.kZbkc);
+        EmitR(0x5, rs2.index(), rs1.index(), 0x3, rd.index(), 0x33);
+    }
+
+    public void Clmulr(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZbc);
+        EmitR(0x5, rs2.index(), rs1.index(), 0x2, rd.index(), 0x33);
+    }
+
+    //______________________________ RV64 "Zbc" Instructions  END ____________________________//
+
+    //____________________________ RV64 "Zbkb" Instructions  START ___________________________//
+
+    public void Pack(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZbkb);
+        EmitR(0x4, rs2.index(), rs1.index(), 0x4, rd.index(), 0x33);
+    }
+
+    public void Packh(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZbkb);
+        EmitR(0x4, rs2.index(), rs1.index(), 0x7, rd.index(), 0x33);
+    }
+
+    public void Packw(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZbkb);
+        EmitR(0x4, rs2.index(), rs1.index(), 0x4, rd.index(), 0x3b);
+    }
+
+    public void Brev8(RV64XRegister rd, RV64XRegister rs1) {
+        AssertExtensionsEnabled(RV64Extension.kZbkb);
+        EmitR(0x34, 0x7, rs1.index(), 0x5, rd.index(), 0x13);
+    }
+
+    //_____________________________ RV64 "Zbkb" Instructions  END ____________________________//
+
+    //____________________________ RV64 "Zbkx" Instructions  START ___________________________//
+
+    public void Xperm4(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZbkx);
+        EmitR(0x14, rs2.index(), rs1.index(), 0x2, rd.index(), 0x33);
+    }
+
+    public void Xperm8(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZbkx);
+        EmitR(0x14, rs2.index(), rs1.index(), 0x4, rd.index(), 0x33);
+    }
+
+    //_____________________________ RV64 "Zbkx" Instructions  END ____________________________//
+
+    //___________________________ RV64 "Zicond" Instructions  START _________________________//
+
+    public void CzeroEqz(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZicond);
+        EmitR(0x7, rs2.index(), rs1.index(), 0x5, rd.index(), 0x33);
+    }
+
+    public void CzeroNez(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZicond);
+        EmitR(0x7, rs2.index(), rs1.index(), 0x7, rd.index(), 0x33);
+    }
+
+    //____________________________ RV64 "Zicond" Instructions  END __________________________//
+
+    //___________________________ RV64 "Zicbo*" Instructions  START __________________________//
+
+    // "Zicbom" and "Zicboz" Standard Extensions, opcode = 0xf, funct3 = 0x2, rd = 0
+
+    public void CboClean(RV64XRegister rs1) {
+        AssertExtensionsEnabled(RV64Extension.kLoadStore, RV64Extension.kZicbom);
+        EmitI(0x1, rs1.index(), 0x2, 0x0, 0xf);
+    }
+
+    public void CboFlush(RV64XRegister rs1) {
+        AssertExtensionsEnabled(RV64Extension.kLoadStore, RV64Extension.kZicbom);
+        EmitI(0x2, rs1.index(), 0x2, 0x0, 0xf);
+    }
+
+    public void CboInval(RV64XRegister rs1) {
+        AssertExtensionsEnabled(RV64Extension.kLoadStore, RV64Extension.kZicbom);
+        EmitI(0x0, rs1.index(), 0x2, 0x0, 0xf);
+    }
+
+    public void CboZero(RV64XRegister rs1) {
+        AssertExtensionsEnabled(RV64Extension.kLoadStore, RV64Extension.kZicboz);
+        EmitI(0x4, rs1.index(), 0x2, 0x0, 0xf);
+    }
+
+    // "Zicbop" Standard Extension, opcode = 0x13, funct3 = 0x6, rd = 0
+    // These are encoded as `ori zero, rs1, imm` hints with imm[4:0] selecting the operation.
+
+    public void PrefetchI(RV64XRegister rs1, int offset) {
+        AssertExtensionsEnabled(RV64Extension.kZicbop);
+        CHECK_ALIGNED(offset, 32);
+        EmitI(offset | 0x0, rs1.index(), 0x6, 0x0, 0x13);
+    }
+
+    public void PrefetchR(RV64XRegister rs1, int offset) {
+        AssertExtensionsEnabled(RV64Extension.kZicbop);
+        CHECK_ALIGNED(offset, 32);
+        EmitI(offset | 0x1, rs1.index(), 0x6, 0x0, 0x13);
+    }
+
+    public void PrefetchW(RV64XRegister rs1, int offset) {
+        AssertExtensionsEnabled(RV64Extension.kZicbop);
+        CHECK_ALIGNED(offset, 32);
+        EmitI(offset | 0x3, rs1.index(), 0x6, 0x0, 0x13);
+    }
+
+    //____________________________ RV64 "Zicbo*" Instructions  END ___________________________//
+
+    //__________________________ RV64 "Zihintntl" Instructions  START _________________________//
+
+    // "Zihintntl" Standard Extension, `add zero, zero, rs2` hints with rs2 = 2..5
+    // Each hint applies to the memory access instruction immediately following it.
+
+    private void EmitNtl(RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZihintntl);
+        if (IsExtensionEnabled(RV64Extension.kZca)) {
+            EmitCR(0b1001, Zero, rs2, 0b10);
+            return;
+        }
+
+        EmitR(0x0, rs2.index(), Zero.index(), 0x0, Zero.index(), 0x33);
+    }
+
+    private void EmitCNtl(RV64XRegister rs2) {
+        AssertExtensionsEnabled(RV64Extension.kZca, RV64Extension.kZihintntl);
+        EmitCR(0b1001, Zero, rs2, 0b10);
+    }
+
+    public void NtlP1() {
+        EmitNtl(SP);
+    }
+
+    public void NtlPall() {
+        EmitNtl(GP);
+    }
+
+    public void NtlS1() {
+        EmitNtl(TP);
+    }
+
+    public void NtlAll() {
+        EmitNtl(T0);
+    }
+
+    public void CNtlP1() {
+        EmitCNtl(SP);
+    }
+
+    public void CNtlPall() {
+        EmitCNtl(GP);
+    }
+
+    public void CNtlS1() {
+        EmitCNtl(TP);
+    }
+
+    public void CNtlAll() {
+        EmitCNtl(T0);
+    }
+
+    //___________________________ RV64 "Zihintntl" Instructions  END __________________________//
+
+    //_________________________ RV64 "Zihintpause" Instructions  START ________________________//
+
+    // "Zihintpause" Standard Extension, `fence w, 0` hint
+
+    public void Pause() {
+        AssertExtensionsEnabled(RV64Extension.kZihintpause);
+        EmitI(/* pred = W, succ = 0 */ 0x010, 0x0, 0x0, 0x0, 0xf);
+    }
+
+    //__________________________ RV64 "Zihintpause" Instructions  END _________________________//
+
+    //____________________________ RV64 "Zawrs" Instructions  START ___________________________//
+
+    // "Zawrs" Standard Extension, opcode = 0x73, funct3 = 0
+
+    public void WrsNto() {
+        AssertExtensionsEnabled(RV64Extension.kZawrs);
+        EmitI(0xd, 0x0, 0x0, 0x0, 0x73);
     }
 
-    public void Bseti(RV64XRegister rd, RV64XRegister rs1, int shamt) {
-        CHECK_LT(shamt, 64);
-        AssertExtensionsEnabled(RV64Extension.kZbs);
-        EmitI6(0xA, shamt, rs1, 0x1, rd, 0x13);
+    public void WrsSto() {
+        AssertExtensionsEnabled(RV64Extension.kZawrs);
+        EmitI(0x1d, 0x0, 0x0, 0x0, 0x73);
     }
 
-    //_____________________________ RV64 "Zbs" Instructions  END _____________________________//
+    //_____________________________ RV64 "Zawrs" Instructions  END ____________________________//
 
     //______________________________ RVV "VSet" Instructions  START __________________________//
 
     public void VSetvli(RV64XRegister rd, RV64XRegister rs1, int vtypei) {
         AssertExtensionsEnabled(RV64Extension.kV);
         CHECK(Utils.isUInt(11, vtypei));
+        if (vconfig_ != null && vconfig_.IsRedundantVSetvli(rd, rs1, vtypei)) {
+            return;
+        }
         EmitI(vtypei, rs1.index(), VAIEncoding.kOPCFG.value(), rd.index(), 0x57);
+        if (vconfig_ != null) {
+            vconfig_.OnVSetvli(rd, rs1, vtypei);
+        }
     }
 
     public void VSetivli(RV64XRegister rd, int uimm, int vtypei) {
         AssertExtensionsEnabled(RV64Extension.kV);
         CHECK(Utils.isUInt(10, vtypei));
         CHECK(Utils.isUInt(5, uimm));
+        if (vconfig_ != null && vconfig_.IsRedundantVSetivli(rd, uimm, vtypei)) {
+            return;
+        }
         EmitI((~0 << 10 | vtypei), uimm, VAIEncoding.kOPCFG.value(), rd.index(), 0x57);
+        if (vconfig_ != null) {
+            vconfig_.OnVSetivli(uimm, vtypei);
+        }
     }
 
     public void VSetvl(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
         AssertExtensionsEnabled(RV64Extension.kV);
         EmitR(0x40, rs2.index(), rs1.index(), VAIEncoding.kOPCFG.value(), rd.index(), 0x57);
+        // The new vtype is only known at run time.
+        invalidateVectorConfig();
     }
 
     //_____________________________ RVV "VSet" Instructions  END _____________________________//
@@ -7333,6 +8485,7 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
 
     public void VFwcvt_f_f_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm) {
         AssertExtensionsEnabled(RV64Extension.kV);
+        AssertHalfPrecisionConversion();
         CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
         CHECK(vd != vs2);
         final int funct7 = EncodeRVVF7(0b010010, vm);
@@ -7385,6 +8538,7 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
 
     public void VFncvt_f_f_w(RV64VRegister vd, RV64VRegister vs2, RV64VM vm) {
         AssertExtensionsEnabled(RV64Extension.kV);
+        AssertHalfPrecisionConversion();
         CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
         final int funct7 = EncodeRVVF7(0b010010, vm);
         EmitR(funct7, vs2.index(), 0b10100, VAIEncoding.kOPFVV.value(), vd.index(), 0x57);
@@ -7480,6 +8634,276 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
 
     //_________________________ RVV Arithmetic Instructions  END   ___________________________//
 
+    //____________________________ RVV "Zvbb" Instructions  START ____________________________//
+
+    // "Zvbb" Vector Basic Bit-manipulation Extension, opcode = 0x57
+
+    public void VAndn_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b000001, vm);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPIVV.value(), vd.index(), 0x57);
+    }
+
+    public void VAndn_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b000001, vm);
+        EmitR(funct7, vs2.index(), rs1.index(), VAIEncoding.kOPIVX.value(), vd.index(), 0x57);
+    }
+
+    public void VBrev_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010010, vm);
+        EmitR(funct7, vs2.index(), 0b01010, VAIEncoding.kOPMVV.value(), vd.index(), 0x57);
+    }
+
+    public void VBrev8_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010010, vm);
+        EmitR(funct7, vs2.index(), 0b01000, VAIEncoding.kOPMVV.value(), vd.index(), 0x57);
+    }
+
+    public void VRev8_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010010, vm);
+        EmitR(funct7, vs2.index(), 0b01001, VAIEncoding.kOPMVV.value(), vd.index(), 0x57);
+    }
+
+    public void VClz_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010010, vm);
+        EmitR(funct7, vs2.index(), 0b01100, VAIEncoding.kOPMVV.value(), vd.index(), 0x57);
+    }
+
+    public void VCtz_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010010, vm);
+        EmitR(funct7, vs2.index(), 0b01101, VAIEncoding.kOPMVV.value(), vd.index(), 0x57);
+    }
+
+    public void VCpop_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010010, vm);
+        EmitR(funct7, vs2.index(), 0b01110, VAIEncoding.kOPMVV.value(), vd.index(), 0x57);
+    }
+
+    public void VRol_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010101, vm);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPIVV.value(), vd.index(), 0x57);
+    }
+
+    public void VRol_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010101, vm);
+        EmitR(funct7, vs2.index(), rs1.index(), VAIEncoding.kOPIVX.value(), vd.index(), 0x57);
+    }
+
+    public void VRor_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010100, vm);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPIVV.value(), vd.index(), 0x57);
+    }
+
+    public void VRor_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b010100, vm);
+        EmitR(funct7, vs2.index(), rs1.index(), VAIEncoding.kOPIVX.value(), vd.index(), 0x57);
+    }
+
+    public void VRor_vi(RV64VRegister vd, RV64VRegister vs2, int uimm6, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        CHECK(Utils.isUInt(6, uimm6));
+        // The sixth bit of the rotate amount is encoded as the lowest bit of funct6.
+        final int funct7 = EncodeRVVF7(0b010100 | (uimm6 >> 5), vm);
+        EmitR(funct7, vs2.index(), uimm6 & 0x1f, VAIEncoding.kOPIVI.value(), vd.index(), 0x57);
+    }
+
+    public void VWsll_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        CHECK(vd != vs1);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b110101, vm);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPIVV.value(), vd.index(), 0x57);
+    }
+
+    public void VWsll_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b110101, vm);
+        EmitR(funct7, vs2.index(), rs1.index(), VAIEncoding.kOPIVX.value(), vd.index(), 0x57);
+    }
+
+    public void VWsll_vi(RV64VRegister vd, RV64VRegister vs2, int uimm5, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbb);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        CHECK(vd != vs2);
+        CHECK(Utils.isUInt(5, uimm5));
+        final int funct7 = EncodeRVVF7(0b110101, vm);
+        EmitR(funct7, vs2.index(), uimm5, VAIEncoding.kOPIVI.value(), vd.index(), 0x57);
+    }
+
+    //_____________________________ RVV "Zvbb" Instructions  END _____________________________//
+
+    //____________________________ RVV "Zvbc" Instructions  START ____________________________//
+
+    // "Zvbc" Vector Carry-less Multiplication Extension, opcode = 0x57, funct3 = OPMVV or OPMVX
+
+    public void VClmul_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbc);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b001100, vm);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPMVV.value(), vd.index(), 0x57);
+    }
+
+    public void VClmul_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbc);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b001100, vm);
+        EmitR(funct7, vs2.index(), rs1.index(), VAIEncoding.kOPMVX.value(), vd.index(), 0x57);
+    }
+
+    public void VClmulh_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbc);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b001101, vm);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPMVV.value(), vd.index(), 0x57);
+    }
+
+    public void VClmulh_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvbc);
+        CHECK_IMPLIES(vm == RV64VM.kV0_t, vd != V0);
+        final int funct7 = EncodeRVVF7(0b001101, vm);
+        EmitR(funct7, vs2.index(), rs1.index(), VAIEncoding.kOPMVX.value(), vd.index(), 0x57);
+    }
+
+    //_____________________________ RVV "Zvbc" Instructions  END _____________________________//
+
+    //___________________________ RVV "Zvkned" Instructions  START ___________________________//
+
+    // "Zvkned" NIST Suite: Vector AES Block Cipher, opcode = 0x77, funct3 = OPMVV
+    // These operate on 128-bit element groups (EGW = 128, SEW = 32) and are never masked.
+
+    public void VAesdf_vv(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        final int funct7 = EncodeRVVF7(0b101000, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00001, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAesdf_vs(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b101001, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00001, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAesdm_vv(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        final int funct7 = EncodeRVVF7(0b101000, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00000, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAesdm_vs(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b101001, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00000, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAesef_vv(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        final int funct7 = EncodeRVVF7(0b101000, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00011, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAesef_vs(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b101001, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00011, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAesem_vv(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        final int funct7 = EncodeRVVF7(0b101000, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00010, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAesem_vs(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b101001, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00010, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAesz_vs(RV64VRegister vd, RV64VRegister vs2) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b101001, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), 0b00111, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAeskf1_vi(RV64VRegister vd, RV64VRegister vs2, int uimm5) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        CHECK(Utils.isUInt(5, uimm5));
+        final int funct7 = EncodeRVVF7(0b100010, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), uimm5, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VAeskf2_vi(RV64VRegister vd, RV64VRegister vs2, int uimm5) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvkned);
+        CHECK(Utils.isUInt(5, uimm5));
+        final int funct7 = EncodeRVVF7(0b101010, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), uimm5, VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    //____________________________ RVV "Zvkned" Instructions  END ____________________________//
+
+    //___________________________ RVV "Zvknh" Instructions  START ____________________________//
+
+    // "Zvknha"/"Zvknhb" NIST Suite: Vector SHA-2 Secure Hash, opcode = 0x77, funct3 = OPMVV
+    // These operate on element groups of four elements and are never masked.
+
+    public void VSha2ms_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvknh);
+        CHECK(vd != vs1);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b101101, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VSha2ch_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvknh);
+        CHECK(vd != vs1);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b101110, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    public void VSha2cl_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1) {
+        AssertExtensionsEnabled(RV64Extension.kV, RV64Extension.kZvknh);
+        CHECK(vd != vs1);
+        CHECK(vd != vs2);
+        final int funct7 = EncodeRVVF7(0b101111, RV64VM.kUnmasked);
+        EmitR(funct7, vs2.index(), vs1.index(), VAIEncoding.kOPMVV.value(), vd.index(), 0x77);
+    }
+
+    //____________________________ RVV "Zvknh" Instructions  END _____________________________//
+
     //____________________________ RV64 MACRO Instructions  START ____________________________//
 
     // Pseudo instructions
@@ -7489,7 +8913,15 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
     }
 
     public void Li(RV64XRegister rd, long imm) {
-        Loadd(rd, newI64Literal(imm));
+        CHECK(rd != Zero);
+        var seq = mat_int_.Generate(imm, enabled_extensions);
+        if (ShouldUseLiteral(seq, rd)) {
+            Loadd(rd, newI64Literal(imm));
+            return;
+        }
+        for (int i = 0; i < seq.size(); i++) {
+            EmitMatIntInstruction(seq.opcode(i), seq.imm(i), rd, i == 0 ? Zero : rd);
+        }
     }
 
     public void Mv(RV64XRegister rd, RV64XRegister rs) {
@@ -7724,105 +9156,480 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         Csrrci(Zero, csr, uimm5);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Loadb(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset) {
-        LoadFromOffset(this::Lb, tmp, rd, rs1, offset);
+        LoadFromOffset(RV64Assembler::Lb, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Loadh(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset) {
-        LoadFromOffset(this::Lh, tmp, rd, rs1, offset);
+        LoadFromOffset(RV64Assembler::Lh, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Loadw(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset) {
-        LoadFromOffset(this::Lw, tmp, rd, rs1, offset);
+        LoadFromOffset(RV64Assembler::Lw, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Loadd(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset) {
-        LoadFromOffset(this::Ld, tmp, rd, rs1, offset);
+        LoadFromOffset(RV64Assembler::Ld, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Loadbu(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset) {
-        LoadFromOffset(this::Lbu, tmp, rd, rs1, offset);
+        LoadFromOffset(RV64Assembler::Lbu, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Loadhu(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset) {
-        LoadFromOffset(this::Lhu, tmp, rd, rs1, offset);
+        LoadFromOffset(RV64Assembler::Lhu, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Loadwu(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset) {
-        LoadFromOffset(this::Lwu, tmp, rd, rs1, offset);
+        LoadFromOffset(RV64Assembler::Lwu, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Storeb(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister rs1, int offset) {
-        StoreToOffset(this::Sb, tmp, rs2, rs1, offset);
+        StoreToOffset(RV64Assembler::Sb, tmp, rs2, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Storeh(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister rs1, int offset) {
-        StoreToOffset(this::Sh, tmp, rs2, rs1, offset);
+        StoreToOffset(RV64Assembler::Sh, tmp, rs2, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Storew(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister rs1, int offset) {
-        StoreToOffset(this::Sw, tmp, rs2, rs1, offset);
+        StoreToOffset(RV64Assembler::Sw, tmp, rs2, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void Stored(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister rs1, int offset) {
-        StoreToOffset(this::Sd, tmp, rs2, rs1, offset);
+        StoreToOffset(RV64Assembler::Sd, tmp, rs2, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void FLoadw(RV64XRegister tmp, RV64FRegister rd, RV64XRegister rs1, int offset) {
-        FLoadFromOffset(this::FLw, tmp, rd, rs1, offset);
+        FLoadFromOffset(RV64Assembler::FLw, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void FLoadd(RV64XRegister tmp, RV64FRegister rd, RV64XRegister rs1, int offset) {
-        FLoadFromOffset(this::FLd, tmp, rd, rs1, offset);
+        FLoadFromOffset(RV64Assembler::FLd, tmp, rd, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void FStorew(RV64XRegister tmp, RV64FRegister rs2, RV64XRegister rs1, int offset) {
-        FStoreToOffset(this::FSw, tmp, rs2, rs1, offset);
+        FStoreToOffset(RV64Assembler::FSw, tmp, rs2, rs1, offset);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void FStored(RV64XRegister tmp, RV64FRegister rs2, RV64XRegister rs1, int offset) {
-        FStoreToOffset(this::FSd, tmp, rs2, rs1, offset);
+        FStoreToOffset(RV64Assembler::FSd, tmp, rs2, rs1, offset);
+    }
+
+    // The tmp register is only needed without Zba if rd == base, or for a disp that
+    // does not fit into 12 bits if rd is also the base or the index register, or if
+    // the index is zero-extended without Zba. If tmp is Zero, a scratch register is used.
+    // Note: the last case needs a register in addition to rd, so with tmp == Zero it
+    // fails if rd is itself the only available scratch register.
+    public void ComputeAddress(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                               RV64XRegister index, int scale, int disp, boolean zero_extend_index) {
+        CHECK(scale == 1 || scale == 2 || scale == 4 || scale == 8);
+        CHECK(rd != Zero);
+        int shift = Integer.numberOfTrailingZeros(scale);
+        if (isInt(12, disp)) {
+            ScaledAdd(tmp, rd, base, index, shift, zero_extend_index);
+            if (disp != 0) {
+                Addi(rd, rd, disp);
+            }
+            return;
+        }
+        if (rd != base && rd != index) {
+            if (IsExtensionEnabled(RV64Extension.kZba) || (shift == 0 && !zero_extend_index)) {
+                LoadConst32(rd, disp);
+                Add(rd, rd, base);
+                ScaledAdd(Zero, rd, rd, index, shift, zero_extend_index);
+                return;
+            }
+            if (!zero_extend_index) {
+                // Fold the displacement into the index before scaling it.
+                LoadConst32(rd, disp >> shift);
+                Add(rd, rd, index);
+                Slli(rd, rd, shift);
+                Add(rd, rd, base);
+                int low = disp & (scale - 1);
+                if (low != 0) {
+                    Addi(rd, rd, low);
+                }
+                return;
+            }
+        }
+        tmp = GetTmpOrScratch(tmp, RegMask(rd) | RegMask(base) | RegMask(index));
+        CHECK(tmp != rd);
+        CHECK(tmp != base);
+        CHECK(tmp != index);
+        LoadConst32(tmp, disp);
+        Add(tmp, tmp, base);
+        ScaledAdd(Zero, rd, tmp, index, shift, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed, see ComputeAddress().
+    public void LoadbIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                             RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        LoadIndexed(RV64Assembler::Lb, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed, see ComputeAddress().
+    public void LoadhIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                             RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        LoadIndexed(RV64Assembler::Lh, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed, see ComputeAddress().
+    public void LoadwIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                             RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        LoadIndexed(RV64Assembler::Lw, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed, see ComputeAddress().
+    public void LoaddIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                             RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        LoadIndexed(RV64Assembler::Ld, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed, see ComputeAddress().
+    public void LoadbuIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        LoadIndexed(RV64Assembler::Lbu, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed, see ComputeAddress().
+    public void LoadhuIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        LoadIndexed(RV64Assembler::Lhu, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed, see ComputeAddress().
+    public void LoadwuIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        LoadIndexed(RV64Assembler::Lwu, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used for the address, see ComputeAddress().
+    // Without Zba, a zero-extended index with an offset that does not fit into 12 bits
+    // needs a second register: one scratch register in addition to tmp, or two if tmp is Zero.
+    public void StorebIndexed(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        StoreIndexed(RV64Assembler::Sb, tmp, rs2, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used for the address, see ComputeAddress().
+    // Without Zba, a zero-extended index with an offset that does not fit into 12 bits
+    // needs a second register: one scratch register in addition to tmp, or two if tmp is Zero.
+    public void StorehIndexed(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        StoreIndexed(RV64Assembler::Sh, tmp, rs2, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used for the address, see ComputeAddress().
+    // Without Zba, a zero-extended index with an offset that does not fit into 12 bits
+    // needs a second register: one scratch register in addition to tmp, or two if tmp is Zero.
+    public void StorewIndexed(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        StoreIndexed(RV64Assembler::Sw, tmp, rs2, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used for the address, see ComputeAddress().
+    // Without Zba, a zero-extended index with an offset that does not fit into 12 bits
+    // needs a second register: one scratch register in addition to tmp, or two if tmp is Zero.
+    public void StoredIndexed(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        StoreIndexed(RV64Assembler::Sd, tmp, rs2, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used for the address, see ComputeAddress().
+    // Without Zba, a zero-extended index with an offset that does not fit into 12 bits
+    // needs a second register: one scratch register in addition to tmp, or two if tmp is Zero.
+    public void FLoadwIndexed(RV64XRegister tmp, RV64FRegister rd, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        FLoadIndexed(RV64Assembler::FLw, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used for the address, see ComputeAddress().
+    // Without Zba, a zero-extended index with an offset that does not fit into 12 bits
+    // needs a second register: one scratch register in addition to tmp, or two if tmp is Zero.
+    public void FLoaddIndexed(RV64XRegister tmp, RV64FRegister rd, RV64XRegister base,
+                              RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        FLoadIndexed(RV64Assembler::FLd, tmp, rd, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used for the address, see ComputeAddress().
+    // Without Zba, a zero-extended index with an offset that does not fit into 12 bits
+    // needs a second register: one scratch register in addition to tmp, or two if tmp is Zero.
+    public void FStorewIndexed(RV64XRegister tmp, RV64FRegister rs2, RV64XRegister base,
+                               RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        FStoreIndexed(RV64Assembler::FSw, tmp, rs2, base, index, scale, offset, zero_extend_index);
+    }
+
+    // If tmp is Zero, a scratch register is used for the address, see ComputeAddress().
+    // Without Zba, a zero-extended index with an offset that does not fit into 12 bits
+    // needs a second register: one scratch register in addition to tmp, or two if tmp is Zero.
+    public void FStoredIndexed(RV64XRegister tmp, RV64FRegister rs2, RV64XRegister base,
+                               RV64XRegister index, int scale, int offset, boolean zero_extend_index) {
+        FStoreIndexed(RV64Assembler::FSd, tmp, rs2, base, index, scale, offset, zero_extend_index);
     }
 
     public void LoadConst32(RV64XRegister rd, int value) {
-        Loadw(rd, newI32Literal(value));
+        // Any 32-bit value takes at most LUI+ADDIW, which always beats a literal load.
+        Li(rd, value);
     }
 
     public void LoadConst64(RV64XRegister rd, long value) {
         Li(rd, value);
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // Uses fli.s with "Zfa", fmv.w.x from Zero for +0.0 and a literal otherwise.
+    // If tmp is Zero, a scratch register is used when needed.
+    public void LoadConstF32(RV64XRegister tmp, RV64FRegister rd, float value) {
+        if (IsExtensionEnabled(RV64Extension.kZfa)) {
+            int index = FindFliIndex(value);
+            if (index >= 0) {
+                FliS(rd, index);
+                return;
+            }
+        }
+        if (Float.floatToRawIntBits(value) == 0) {
+            FMvWX(rd, Zero);
+            return;
+        }
+        FLoadw(tmp, rd, newF32Literal(value));
+    }
+
+    // Uses fli.d with "Zfa", fmv.d.x from Zero for +0.0 and a literal otherwise.
+    // If tmp is Zero, a scratch register is used when needed.
+    public void LoadConstF64(RV64XRegister tmp, RV64FRegister rd, double value) {
+        if (IsExtensionEnabled(RV64Extension.kZfa)) {
+            int index = FindFliIndex(value);
+            if (index >= 0) {
+                FliD(rd, index);
+                return;
+            }
+        }
+        if (Double.doubleToRawLongBits(value) == 0) {
+            FMvDX(rd, Zero);
+            return;
+        }
+        FLoadd(tmp, rd, newF64Literal(value));
+    }
+
+    // If tmp is Zero, a scratch register is used when needed.
     public void AddConst32(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int value) {
-        AddConstImpl(tmp, rd, rs1, value, this::Addiw, (rd_, rs1_, value_, tmp_) -> {
-            LoadConst32(tmp_, (int) value_);
-            Addw(rd_, rs1_, tmp_);
+        AddConstImpl(tmp, rd, rs1, value, RV64Assembler::Addiw, (assembler, rd_, rs1_, value_, tmp_) -> {
+            assembler.LoadConst32(tmp_, (int) value_);
+            assembler.Addw(rd_, rs1_, tmp_);
         });
     }
 
-    // If you are sure that tmp register is not needed, set it to Zero.
+    // If tmp is Zero, a scratch register is used when needed.
     public void AddConst64(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, long value) {
-        AddConstImpl(tmp, rd, rs1, value, this::Addi, (rd_, rs1_, value_, tmp_) -> {
-            LoadConst64(tmp_, value_);
-            Add(rd_, rs1_, tmp_);
+        AddConstImpl(tmp, rd, rs1, value, RV64Assembler::Addi, (assembler, rd_, rs1_, value_, tmp_) -> {
+            assembler.LoadConst64(tmp_, value_);
+            assembler.Add(rd_, rs1_, tmp_);
         });
     }
 
+    // If tmp is Zero, a scratch register is used when needed.
+    public void Select(RV64XRegister tmp, RV64XRegister rd, RV64XRegister cond,
+                       RV64XRegister a, RV64XRegister b) {
+        if (a == b) {
+            Mv(rd, a);
+            return;
+        }
+        if (IsExtensionEnabled(RV64Extension.kZicond)) {
+            if (b == Zero) {
+                CzeroEqz(rd, a, cond);
+                return;
+            }
+            if (a == Zero) {
+                CzeroNez(rd, b, cond);
+                return;
+            }
+            if (rd != cond) {
+                RV64XRegister other = GetTmpOrScratch(tmp, RegMask(rd));
+                CHECK(other != rd);
+                if (rd != b) {
+                    CzeroEqz(rd, a, cond);
+                    CzeroNez(other, b, cond);
+                } else {
+                    CzeroNez(rd, b, cond);
+                    CzeroEqz(other, a, cond);
+                }
+                Or(rd, rd, other);
+                return;
+            }
+        }
+        // With a Zero operand rd can hold the flag itself.
+        RV64XRegister flag = (a == Zero || b == Zero) && rd != a && rd != b ? rd :
+                GetTmpOrScratch(tmp, RegMask(rd) | RegMask(a) | RegMask(b));
+        Snez(flag, cond);
+        SelectByFlag(rd, flag, a, b);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed.
+    public void SelectZero(RV64XRegister tmp, RV64XRegister rd, RV64XRegister cond, RV64XRegister a) {
+        Select(tmp, rd, cond, a, Zero);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed.
+    public void Min(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        MinMaxImpl(tmp, rd, rs1, rs2, /* is_max= */ false, /* is_unsigned= */ false);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed.
+    public void Minu(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        MinMaxImpl(tmp, rd, rs1, rs2, /* is_max= */ false, /* is_unsigned= */ true);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed.
+    public void Max(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        MinMaxImpl(tmp, rd, rs1, rs2, /* is_max= */ true, /* is_unsigned= */ false);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed.
+    public void Maxu(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2) {
+        MinMaxImpl(tmp, rd, rs1, rs2, /* is_max= */ true, /* is_unsigned= */ true);
+    }
+
+    // If tmp is Zero, a scratch register is used when needed.
+    public void Abs(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1) {
+        if (IsExtensionEnabled(RV64Extension.kZbb)) {
+            RV64XRegister negated = rd != rs1 ? rd : GetTmpOrScratch(tmp, RegMask(rs1));
+            CHECK(negated != rs1);
+            Neg(negated, rs1);
+            Max(rd, rs1, negated);
+            return;
+        }
+        RV64XRegister sign = GetTmpOrScratch(tmp, RegMask(rd) | RegMask(rs1));
+        CHECK(sign != rd);
+        CHECK(sign != rs1);
+        Srai(sign, rs1, kXlen - 1);
+        Xor(rd, rs1, sign);
+        Sub(rd, rd, sign);
+    }
+
+    public void CompareAndSwap(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                               RV64XRegister new_value, RV64XRegister rs1, int size,
+                               RV64AqRl aqrl) {
+        switch (size) {
+            case 1 -> CompareAndSwapB(tmp, rd, expected, new_value, rs1, aqrl);
+            case 2 -> CompareAndSwapH(tmp, rd, expected, new_value, rs1, aqrl);
+            case 4 -> CompareAndSwapW(tmp, rd, expected, new_value, rs1, aqrl);
+            case 8 -> CompareAndSwapD(tmp, rd, expected, new_value, rs1, aqrl);
+            default -> throw new IllegalArgumentException("Unsupported CAS size: " + size);
+        }
+    }
+
+    public void CompareAndSwapB(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                                RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl) {
+        CompareAndSwapSubwordImpl(tmp, rd, expected, new_value, rs1, aqrl, /* bits= */ 8);
+    }
+
+    public void CompareAndSwapH(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                                RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl) {
+        CompareAndSwapSubwordImpl(tmp, rd, expected, new_value, rs1, aqrl, /* bits= */ 16);
+    }
+
+    public void CompareAndSwapW(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                                RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl) {
+        CompareAndSwapImpl(tmp, rd, expected, new_value, rs1, aqrl, /* is_64bit= */ false);
+    }
+
+    public void CompareAndSwapD(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                                RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl) {
+        CompareAndSwapImpl(tmp, rd, expected, new_value, rs1, aqrl, /* is_64bit= */ true);
+    }
+
+    public void ZeroMemory(RV64XRegister tmp, RV64XRegister base, RV64XRegister size, int cbo_block_size) {
+        CHECK(base != Zero && size != Zero && base != size);
+        CHECK(cbo_block_size == 0 || (Utils.isPowerOfTwo(cbo_block_size) &&
+                cbo_block_size >= 8 && isInt(12, cbo_block_size - 1)));
+        tmp = GetTmpOrScratch(tmp, RegMask(base) | RegMask(size));
+        CHECK(tmp != base && tmp != size);
+        boolean use_cbo = cbo_block_size != 0 && IsExtensionEnabled(RV64Extension.kZicboz);
+
+        RV64Label head_bytes = new RV64Label();
+        RV64Label head_words = new RV64Label();
+        RV64Label words = new RV64Label();
+        RV64Label word_loop = new RV64Label();
+        RV64Label bytes = new RV64Label();
+        RV64Label byte_loop = new RV64Label();
+        RV64Label done = new RV64Label();
+
+        // Short ranges are zeroed byte by byte. Otherwise there is at least one full
+        // 8-byte word (or cache block) left after aligning the base.
+        LoadConst32(tmp, use_cbo ? 2 * cbo_block_size : 16);
+        Bltu(size, tmp, bytes, false);
+
+        bind(head_bytes);
+        Andi(tmp, base, 7);
+        Beqz(tmp, head_words, false);
+        Sb(Zero, base, 0);
+        Addi(base, base, 1);
+        Addi(size, size, -1);
+        J(head_bytes, false);
+
+        bind(head_words);
+        if (use_cbo) {
+            RV64Label blocks = new RV64Label();
+            Andi(tmp, base, cbo_block_size - 1);
+            Beqz(tmp, blocks, false);
+            Sd(Zero, base, 0);
+            Addi(base, base, 8);
+            Addi(size, size, -8);
+            J(head_words, false);
+
+            // There is at least one full block left, zero all of them up to a precomputed
+            // end pointer and keep only the remainder in `size`.
+            bind(blocks);
+            Andi(tmp, size, -cbo_block_size);
+            Add(tmp, tmp, base);
+            Andi(size, size, cbo_block_size - 1);
+            RV64Label block_loop = new RV64Label();
+            bind(block_loop);
+            CboZero(base);
+            if (isInt(12, cbo_block_size)) {
+                Addi(base, base, cbo_block_size);
+            } else {
+                Addi(base, base, cbo_block_size / 2);
+                Addi(base, base, cbo_block_size / 2);
+            }
+            Bne(base, tmp, block_loop, false);
+        }
+
+        bind(words);
+        LoadConst32(tmp, 8);
+        Bltu(size, tmp, bytes, false);
+        bind(word_loop);
+        Sd(Zero, base, 0);
+        Addi(base, base, 8);
+        Addi(size, size, -8);
+        Bgeu(size, tmp, word_loop, false);
+
+        bind(bytes);
+        Beqz(size, done, false);
+        bind(byte_loop);
+        Sb(Zero, base, 0);
+        Addi(base, base, 1);
+        Addi(size, size, -1);
+        Bnez(size, byte_loop, false);
+
+        bind(done);
+    }
+
     public void Beqz(RV64XRegister rs, RV64Label label, boolean is_bare) {
         Beq(rs, Zero, label, is_bare);
     }
@@ -7899,20 +9706,26 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         Jal(RA, label, is_bare);
     }
 
+    // Literals are shared: requesting the same bits again returns the same pool slot.
     public RV64Literal newI32Literal(int value) {
-        var lit = new RV64Literal(value, true);
-        literals_.add(lit);
-        return lit;
+        return literals_map_.computeIfAbsent(value, key -> {
+            var lit = new RV64Literal(key, true);
+            literals_.add(lit);
+            return lit;
+        });
     }
 
     public RV64Literal newF32Literal(float value) {
         return newI32Literal(Float.floatToRawIntBits(value));
     }
 
+    // Literals are shared: requesting the same bits again returns the same pool slot.
     public RV64Literal newI64Literal(long value) {
-        var lit = new RV64Literal(value, false);
-        long_literals_.add(lit);
-        return lit;
+        return long_literals_map_.computeIfAbsent(value, key -> {
+            var lit = new RV64Literal(key, false);
+            long_literals_.add(lit);
+            return lit;
+        });
     }
 
     public RV64Literal newF64Literal(double value) {
@@ -7934,14 +9747,16 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
         LoadLiteral(literal, rd, Type.kLiteralLong);
     }
 
+    // If tmp is Zero, a scratch register is used.
     public void FLoadw(RV64XRegister tmp, RV64FRegister rd, RV64Literal literal) {
-        CHECK_NE(tmp.index(), Zero.index());
+        tmp = GetTmpOrScratch(tmp, 0);
         CHECK_EQ(literal.getSize(), 4);
         LoadLiteral(literal, tmp, rd, Type.kLiteralFloat);
     }
 
+    // If tmp is Zero, a scratch register is used.
     public void FLoadd(RV64XRegister tmp, RV64FRegister rd, RV64Literal literal) {
-        CHECK_NE(tmp.index(), Zero.index());
+        tmp = GetTmpOrScratch(tmp, 0);
         CHECK_EQ(literal.getSize(), 8);
         LoadLiteral(literal, tmp, rd, Type.kLiteralDouble);
     }
@@ -7949,7 +9764,7 @@ public class RV64Assembler extends Assembler implements RV64AssemblerI {
     public void LoadLabelAddress(RV64XRegister rd, RV64Label label) {
         CHECK_NE(rd.index(), Zero.index());
         int target = label.isBound() ? GetLabelLocation(label) : RV64Branch.kUnresolved;
-        branches_.add(new RV64Branch(size(), target, rd, Type.kLabel));
+        branches_.AddBranch(size(), target, rd, Type.kLabel);
         FinalizeLabeledBranch(label);
     }
 
@@ -198,6 +198,55 @@ public interface RV64AssemblerI {
 
     void AmoMaxuD(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
 
+    // "Zabha" Standard Extension, byte and halfword AMOs
+    void AmoSwapB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoSwapH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoAddB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoAddH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoXorB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoXorH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoAndB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoAndH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoOrB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoOrH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoMinB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoMinH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoMaxB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoMaxH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoMinuB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoMinuH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoMaxuB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoMaxuH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    // "Zacas" Standard Extension, rd holds the expected value and receives the loaded value.
+    // AmoCasB and AmoCasH also need the "Zabha" extension.
+    void AmoCasB(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoCasH(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoCasW(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoCasD(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void AmoCasQ(RV64XRegister rd, RV64XRegister rs2, RV64XRegister rs1, RV64AqRl aqrl);
+
     // "Zicsr" Standard Extension, opcode = 0x73, funct3 from 0x1 ~ 0x3 and 0x5 ~ 0x7
     void Csrrw(RV64XRegister rd, int /* 12-bit */ csr, RV64XRegister rs1);
 
@@ -490,6 +539,201 @@ public interface RV64AssemblerI {
 
     void FClassD(RV64XRegister rd, RV64FRegister rs1);
 
+    // FP load/store instructions (Zfhmin): opcode = 0x07, 0x27, funct3 = 0x1
+    void FLh(RV64FRegister rd, RV64XRegister rs1, int offset);
+
+    void FSh(RV64FRegister rs2, RV64XRegister rs1, int offset);
+
+    // FP FMA instructions (Zfh): opcode = 0x43, 0x47, 0x4b, 0x4f, fmt = 0x2
+    void FMAddH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3, RV64FPRoundingMode frm);
+
+    void FMSubH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3, RV64FPRoundingMode frm);
+
+    void FNMSubH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3, RV64FPRoundingMode frm);
+
+    void FNMAddH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3, RV64FPRoundingMode frm);
+
+    // Half-precision FP instruction helpers passing the default rounding mode.
+    default void FMAddH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3) {
+        FMAddH(rd, rs1, rs2, rs3, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FMSubH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3) {
+        FMSubH(rd, rs1, rs2, rs3, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FNMSubH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3) {
+        FNMSubH(rd, rs1, rs2, rs3, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FNMAddH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FRegister rs3) {
+        FNMAddH(rd, rs1, rs2, rs3, RV64FPRoundingMode.kDefault);
+    }
+
+    // Simple FP instructions (Zfh, conversions between H and S/D are Zfhmin): opcode = 0x53,
+    // funct7 = 0b0XXXX10
+    void FAddH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FPRoundingMode frm);
+
+    void FSubH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FPRoundingMode frm);
+
+    void FMulH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FPRoundingMode frm);
+
+    void FDivH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2, RV64FPRoundingMode frm);
+
+    void FSqrtH(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FSgnjH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FSgnjnH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FSgnjxH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FMinH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FMaxH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FCvtSH(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtHS(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtDH(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtHD(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    // Half-precision FP instruction helpers passing the default rounding mode.
+    default void FAddH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        FAddH(rd, rs1, rs2, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FSubH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        FSubH(rd, rs1, rs2, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FMulH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        FMulH(rd, rs1, rs2, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FDivH(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2) {
+        FDivH(rd, rs1, rs2, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FSqrtH(RV64FRegister rd, RV64FRegister rs1) {
+        FSqrtH(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtSH(RV64FRegister rd, RV64FRegister rs1) {
+        FCvtSH(rd, rs1, RV64FPRoundingMode.kIgnored);
+    }
+
+    default void FCvtHS(RV64FRegister rd, RV64FRegister rs1) {
+        FCvtHS(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtDH(RV64FRegister rd, RV64FRegister rs1) {
+        FCvtDH(rd, rs1, RV64FPRoundingMode.kIgnored);
+    }
+
+    default void FCvtHD(RV64FRegister rd, RV64FRegister rs1) {
+        FCvtHD(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    // FP compare instructions (Zfh): opcode = 0x53, funct7 = 0b1010010
+    void FEqH(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FLtH(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FLeH(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    // FP conversion instructions (Zfh): opcode = 0x53, funct7 = 0b110X010
+    void FCvtWH(RV64XRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtWuH(RV64XRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtLH(RV64XRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtLuH(RV64XRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtHW(RV64FRegister rd, RV64XRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtHWu(RV64FRegister rd, RV64XRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtHL(RV64FRegister rd, RV64XRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtHLu(RV64FRegister rd, RV64XRegister rs1, RV64FPRoundingMode frm);
+
+    // Half-precision FP instruction helpers passing the default rounding mode.
+    default void FCvtWH(RV64XRegister rd, RV64FRegister rs1) {
+        FCvtWH(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtWuH(RV64XRegister rd, RV64FRegister rs1) {
+        FCvtWuH(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtLH(RV64XRegister rd, RV64FRegister rs1) {
+        FCvtLH(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtLuH(RV64XRegister rd, RV64FRegister rs1) {
+        FCvtLuH(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtHW(RV64FRegister rd, RV64XRegister rs1) {
+        FCvtHW(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtHWu(RV64FRegister rd, RV64XRegister rs1) {
+        FCvtHWu(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtHL(RV64FRegister rd, RV64XRegister rs1) {
+        FCvtHL(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    default void FCvtHLu(RV64FRegister rd, RV64XRegister rs1) {
+        FCvtHLu(rd, rs1, RV64FPRoundingMode.kDefault);
+    }
+
+    // FP move instructions (Zfhmin): opcode = 0x53, funct3 = 0x0, funct7 = 0b111X010
+    void FMvXH(RV64XRegister rd, RV64FRegister rs1);
+
+    void FMvHX(RV64FRegister rd, RV64XRegister rs1);
+
+    // FP classify instructions (Zfh): opcode = 0x53, funct3 = 0x1, funct7 = 0b1110010
+    void FClassH(RV64XRegister rd, RV64FRegister rs1);
+
+    // "Zfa" Standard Extension, opcode = 0x53
+    // Note: fli takes the index of the immediate in the fli table (see the "Zfa" spec).
+    void FliS(RV64FRegister rd, int index);
+
+    void FliD(RV64FRegister rd, int index);
+
+    void FMinmS(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FMinmD(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FMaxmS(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FMaxmD(RV64FRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FRoundS(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FRoundD(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FRoundNxS(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FRoundNxD(RV64FRegister rd, RV64FRegister rs1, RV64FPRoundingMode frm);
+
+    void FCvtModWD(RV64XRegister rd, RV64FRegister rs1);
+
+    void FLeqS(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FLeqD(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FLtqS(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
+    void FLtqD(RV64XRegister rd, RV64FRegister rs1, RV64FRegister rs2);
+
     // "C" Standard Extension, Compresseed Instructions
     void CLwsp(RV64XRegister rd, int offset);
 
@@ -679,6 +923,78 @@ public interface RV64AssemblerI {
 
     void Bseti(RV64XRegister rd, RV64XRegister rs1, int shamt);
 
+    // "Zbc" Standard Extension, opcode = 0x33, funct3 from 0x1 ~ 0x3, funct7 = 0x5.
+    // Note: clmul and clmulh are also a part of the "Zbkc" extension.
+    void Clmul(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Clmulh(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Clmulr(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    // "Zbkb" Standard Extension, opcode = 0x13, 0x33 or 0x3b, funct3 and funct7 varies.
+    // Note: rol, rolw, ror, rorw, rori, roriw, andn, orn, xnor and rev8 are shared with
+    // the "Zbb" extension. zip and unzip are only available on RV32.
+    void Pack(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Packh(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Packw(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Brev8(RV64XRegister rd, RV64XRegister rs1);
+
+    // "Zbkx" Standard Extension, opcode = 0x33, funct3 = 0x2 or 0x4, funct7 = 0x14.
+    void Xperm4(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Xperm8(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    // "Zicond" Standard Extension, opcode = 0x33, funct3 = 0x5 or 0x7, funct7 = 0x7.
+    void CzeroEqz(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void CzeroNez(RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    // "Zicbom" and "Zicboz" Standard Extensions, opcode = 0xf, funct3 = 0x2, rd = 0.
+    void CboClean(RV64XRegister rs1);
+
+    void CboFlush(RV64XRegister rs1);
+
+    void CboInval(RV64XRegister rs1);
+
+    void CboZero(RV64XRegister rs1);
+
+    // "Zicbop" Standard Extension, opcode = 0x13, funct3 = 0x6, rd = 0.
+    // Note: the offset must be a multiple of 32.
+    void PrefetchI(RV64XRegister rs1, int offset);
+
+    void PrefetchR(RV64XRegister rs1, int offset);
+
+    void PrefetchW(RV64XRegister rs1, int offset);
+
+    // "Zihintntl" Standard Extension, encoded as `add zero, zero, rs2` hints (or `c.add`).
+    // Note: each hint applies to the memory access instruction immediately following it.
+    void NtlP1();
+
+    void NtlPall();
+
+    void NtlS1();
+
+    void NtlAll();
+
+    void CNtlP1();
+
+    void CNtlPall();
+
+    void CNtlS1();
+
+    void CNtlAll();
+
+    // "Zihintpause" Standard Extension, encoded as `fence w, 0`.
+    void Pause();
+
+    // "Zawrs" Standard Extension, opcode = 0x73, funct3 = 0.
+    void WrsNto();
+
+    void WrsSto();
+
     //____________________________ RISC-V Vector Instructions  START _____________________________//
 
     // Vector Conguration-Setting Instructions, opcode = 0x57, funct3 = 0x3
@@ -2180,6 +2496,81 @@ public interface RV64AssemblerI {
 
     void VId_v(RV64VRegister vd, RV64VM vm);
 
+    // "Zvbb" Vector Basic Bit-manipulation Extension, vbrev/vbrev8/vrev8/vclz/vctz/vcpop
+    // are VXUNARY0 kind instructions, funct6 = 0b010010
+    void VAndn_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm);
+
+    void VAndn_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm);
+
+    void VBrev_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm);
+
+    void VBrev8_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm);
+
+    void VRev8_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm);
+
+    void VClz_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm);
+
+    void VCtz_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm);
+
+    void VCpop_v(RV64VRegister vd, RV64VRegister vs2, RV64VM vm);
+
+    void VRol_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm);
+
+    void VRol_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm);
+
+    void VRor_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm);
+
+    void VRor_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm);
+
+    void VRor_vi(RV64VRegister vd, RV64VRegister vs2, int uimm6, RV64VM vm);
+
+    void VWsll_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm);
+
+    void VWsll_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm);
+
+    void VWsll_vi(RV64VRegister vd, RV64VRegister vs2, int uimm5, RV64VM vm);
+
+    // "Zvbc" Vector Carry-less Multiplication Extension, SEW = 64 only
+    void VClmul_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm);
+
+    void VClmul_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm);
+
+    void VClmulh_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1, RV64VM vm);
+
+    void VClmulh_vx(RV64VRegister vd, RV64VRegister vs2, RV64XRegister rs1, RV64VM vm);
+
+    // "Zvkned" NIST Suite: Vector AES Block Cipher, element groups of four 32-bit elements.
+    // The .vs forms use the element group in vs2[0] for all element groups of vd.
+    void VAesdf_vv(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAesdf_vs(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAesdm_vv(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAesdm_vs(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAesef_vv(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAesef_vs(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAesem_vv(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAesem_vs(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAesz_vs(RV64VRegister vd, RV64VRegister vs2);
+
+    void VAeskf1_vi(RV64VRegister vd, RV64VRegister vs2, int uimm5);
+
+    void VAeskf2_vi(RV64VRegister vd, RV64VRegister vs2, int uimm5);
+
+    // "Zvknha"/"Zvknhb" NIST Suite: Vector SHA-2 Secure Hash, SEW = 32 for SHA-256 and
+    // SEW = 64 for SHA-512 (Zvknhb only).
+    void VSha2ms_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1);
+
+    void VSha2ch_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1);
+
+    void VSha2cl_vv(RV64VRegister vd, RV64VRegister vs2, RV64VRegister vs1);
+
     //____________________________ RISC-V Vector Instructions  END ____________________________//
 
     //____________________________ RV64 MACRO Instructions  START _____________________________//
@@ -2287,6 +2678,7 @@ public interface RV64AssemblerI {
     void Csrci(int /* 12-bit */ csr, /* unsigned */ int uimm5);
 
     // Load/store macros for arbitrary 32-bit offsets.
+    // In all macros, a tmp of Zero selects one of the assembler's scratch registers when needed.
     void Loadb(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset);
 
     void Loadh(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int offset);
@@ -2317,16 +2709,116 @@ public interface RV64AssemblerI {
 
     void FStored(RV64XRegister tmp, RV64FRegister rs2, RV64XRegister rs1, int offset);
 
+    // Address macros for base + (index << log2(scale)) + disp, with scale = 1, 2, 4 or 8.
+    // If zero_extend_index is set, only the low 32 bits of the index are used (as unsigned).
+    void ComputeAddress(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                        RV64XRegister index, int scale, int disp, boolean zero_extend_index);
+
+    void LoadbIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                      RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void LoadhIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                      RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void LoadwIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                      RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void LoaddIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                      RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void LoadbuIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void LoadhuIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void LoadwuIndexed(RV64XRegister tmp, RV64XRegister rd, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void StorebIndexed(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void StorehIndexed(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void StorewIndexed(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void StoredIndexed(RV64XRegister tmp, RV64XRegister rs2, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void FLoadwIndexed(RV64XRegister tmp, RV64FRegister rd, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void FLoaddIndexed(RV64XRegister tmp, RV64FRegister rd, RV64XRegister base,
+                       RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void FStorewIndexed(RV64XRegister tmp, RV64FRegister rs2, RV64XRegister base,
+                        RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
+    void FStoredIndexed(RV64XRegister tmp, RV64FRegister rs2, RV64XRegister base,
+                        RV64XRegister index, int scale, int offset, boolean zero_extend_index);
+
     // Macros for loading constants.
     void LoadConst32(RV64XRegister rd, int value);
 
     void LoadConst64(RV64XRegister rd, long value);
 
+    void LoadConstF32(RV64XRegister tmp, RV64FRegister rd, float value);
+
+    void LoadConstF64(RV64XRegister tmp, RV64FRegister rd, double value);
+
     // Macros for adding constants.
     void AddConst32(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, int value);
 
     void AddConst64(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, long value);
 
+    // Branchless select macros, using Zicond or Zbb if enabled and arithmetic masks otherwise.
+    // rd = cond != 0 ? a : b
+    void Select(RV64XRegister tmp, RV64XRegister rd, RV64XRegister cond,
+                RV64XRegister a, RV64XRegister b);
+
+    // rd = cond != 0 ? a : 0
+    void SelectZero(RV64XRegister tmp, RV64XRegister rd, RV64XRegister cond, RV64XRegister a);
+
+    void Min(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Minu(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Max(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Maxu(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1, RV64XRegister rs2);
+
+    void Abs(RV64XRegister tmp, RV64XRegister rd, RV64XRegister rs1);
+
+    // Compare-and-swap macros, using "Zacas" if enabled and a LR/SC loop otherwise.
+    // rd receives the old value at (rs1), which is replaced by `new_value` only if it was
+    // equal to `expected`. The byte, halfword and word variants compare and return
+    // sign-extended values. rd must differ from rs1 and `new_value`, but may be the same
+    // as `expected`. `size` is the access size in bytes: 1, 2, 4 or 8.
+    void CompareAndSwap(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                        RV64XRegister new_value, RV64XRegister rs1, int size, RV64AqRl aqrl);
+
+    // Without "Zacas" and "Zabha" the byte and halfword variants use an LR/SC loop on the
+    // containing aligned word, which needs five temporaries: `tmp` (or a scratch register
+    // if it is Zero) and four more scratch registers, see RV64Assembler.addScratchRegister().
+    void CompareAndSwapB(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                         RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void CompareAndSwapH(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                         RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void CompareAndSwapW(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                         RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl);
+
+    void CompareAndSwapD(RV64XRegister tmp, RV64XRegister rd, RV64XRegister expected,
+                         RV64XRegister new_value, RV64XRegister rs1, RV64AqRl aqrl);
+
+    // Zeroes `size` bytes at `base`, clobbering both registers. With "Zicboz" enabled and
+    // a non-zero `cbo_block_size`, cache blocks entirely inside the range are zeroed with
+    // cbo.zero, without reading them into the cache first.
+    void ZeroMemory(RV64XRegister tmp, RV64XRegister base, RV64XRegister size, int cbo_block_size);
+
     // Jumps and branches to a label.
     void Beqz(RV64XRegister rs, RV64Label label, boolean is_bare);
 
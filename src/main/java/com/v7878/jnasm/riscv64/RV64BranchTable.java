@@ -0,0 +1,535 @@
+package com.v7878.jnasm.riscv64;
+
+import static com.v7878.jnasm.Utils.CHECK;
+import static com.v7878.jnasm.Utils.CHECK_LE;
+import static com.v7878.jnasm.Utils.CHECK_NE;
+import static com.v7878.jnasm.riscv64.RV64Branch.BranchCondition;
+import static com.v7878.jnasm.riscv64.RV64Branch.BranchCondition.kUncond;
+import static com.v7878.jnasm.riscv64.RV64Branch.GetOffsetSizeNeeded;
+import static com.v7878.jnasm.riscv64.RV64Branch.IsNop;
+import static com.v7878.jnasm.riscv64.RV64Branch.IsUncond;
+import static com.v7878.jnasm.riscv64.RV64Branch.OffsetBits;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kCall;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kCondBranch;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kCondBranch21;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kCondCBranch;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kCondCBranch21;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kLongCall;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kLongCondBranch;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kLongCondCBranch;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kLongUncondBranch;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kUncondBranch;
+import static com.v7878.jnasm.riscv64.RV64Branch.Type.kUncondCBranch;
+import static com.v7878.jnasm.riscv64.RV64Branch.illegalOffset;
+import static com.v7878.jnasm.riscv64.RV64Branch.kUnresolved;
+import static com.v7878.jnasm.riscv64.RV64XRegister.Zero;
+
+import java.util.Arrays;
+
+// Struct-of-arrays storage for all branches of an assembler, indexed by branch id.
+// Branches are appended in code order, so old locations are strictly increasing.
+final class RV64BranchTable {
+    private static final Type[] kTypes = Type.values();
+    private static final BranchCondition[] kConditions = BranchCondition.values();
+    private static final RV64XRegister[] kXRegisters = RV64XRegister.values();
+    private static final RV64FRegister[] kFRegisters = RV64FRegister.values();
+
+    private static final int kNoFRegister = -1;
+
+    private static final int kFlagBare = 1;
+    private static final int kFlagCompressionAllowed = 1 << 1;
+
+    private static final int kInitialCapacity = 16;
+
+    private int size_;
+
+    private int[] old_location_;  // Offset into assembler buffer in bytes.
+    private int[] location_;      // Offset into assembler buffer in bytes.
+    private int[] target_;        // Offset into assembler buffer in bytes.
+
+    // Id of the next branch bound to the same label in singly-linked zero-terminated list
+    // NOTE: encoded the same way as a position in a linked Label (id + BIAS)
+    // Label itself is used to hold the 'head' of this list
+    private int[] next_branch_id_;
+
+    private byte[] type_;       // Current type of the branch.
+    private byte[] old_type_;   // Initial type of the branch.
+    private byte[] condition_;  // Condition for conditional branches.
+
+    // Left-hand side register in conditional branches or
+    // destination register in calls or literals.
+    private byte[] lhs_reg_;
+    private byte[] rhs_reg_;    // Right-hand side register in conditional branches.
+    private byte[] freg_;       // Destination register in FP literals or kNoFRegister.
+    // Scratch register for long branches, Zero if none was free when the branch was added.
+    private byte[] scratch_reg_;
+
+    private byte[] flags_;      // kFlagBare and kFlagCompressionAllowed.
+
+    public RV64BranchTable() {
+        old_location_ = new int[kInitialCapacity];
+        location_ = new int[kInitialCapacity];
+        target_ = new int[kInitialCapacity];
+        next_branch_id_ = new int[kInitialCapacity];
+        type_ = new byte[kInitialCapacity];
+        old_type_ = new byte[kInitialCapacity];
+        condition_ = new byte[kInitialCapacity];
+        lhs_reg_ = new byte[kInitialCapacity];
+        rhs_reg_ = new byte[kInitialCapacity];
+        freg_ = new byte[kInitialCapacity];
+        scratch_reg_ = new byte[kInitialCapacity];
+        flags_ = new byte[kInitialCapacity];
+    }
+
+    public int Size() {
+        return size_;
+    }
+
+    public boolean IsEmpty() {
+        return size_ == 0;
+    }
+
+    private void EnsureCapacity() {
+        if (size_ < old_location_.length) {
+            return;
+        }
+        int capacity = old_location_.length * 2;
+        old_location_ = Arrays.copyOf(old_location_, capacity);
+        location_ = Arrays.copyOf(location_, capacity);
+        target_ = Arrays.copyOf(target_, capacity);
+        next_branch_id_ = Arrays.copyOf(next_branch_id_, capacity);
+        type_ = Arrays.copyOf(type_, capacity);
+        old_type_ = Arrays.copyOf(old_type_, capacity);
+        condition_ = Arrays.copyOf(condition_, capacity);
+        lhs_reg_ = Arrays.copyOf(lhs_reg_, capacity);
+        rhs_reg_ = Arrays.copyOf(rhs_reg_, capacity);
+        freg_ = Arrays.copyOf(freg_, capacity);
+        scratch_reg_ = Arrays.copyOf(scratch_reg_, capacity);
+        flags_ = Arrays.copyOf(flags_, capacity);
+    }
+
+    private int Add(int location, int target, BranchCondition condition, RV64XRegister lhs_reg,
+                    RV64XRegister rhs_reg, int freg, RV64XRegister scratch,
+                    boolean is_bare, boolean compression_allowed) {
+        CHECK(size_ == 0 || old_location_[size_ - 1] < location);
+        EnsureCapacity();
+        int id = size_++;
+        old_location_[id] = location;
+        location_[id] = location;
+        target_[id] = target;
+        next_branch_id_[id] = 0;
+        condition_[id] = (byte) condition.ordinal();
+        lhs_reg_[id] = (byte) lhs_reg.index();
+        rhs_reg_[id] = (byte) rhs_reg.index();
+        freg_[id] = (byte) freg;
+        scratch_reg_[id] = (byte) scratch.index();
+        flags_[id] = (byte) ((is_bare ? kFlagBare : 0) |
+                (compression_allowed ? kFlagCompressionAllowed : 0));
+        return id;
+    }
+
+    // Unconditional branch or call.
+    public int AddBranch(int location, int target, RV64XRegister rd, RV64XRegister scratch,
+                         boolean is_bare, boolean compression_allowed) {
+        int id = Add(location, target, kUncond, rd, Zero, kNoFRegister,
+                scratch, is_bare, compression_allowed);
+        InitializeType(id, rd != Zero ? kCall :
+                (compression_allowed ? kUncondCBranch : kUncondBranch));
+        return id;
+    }
+
+    // Conditional branch.
+    public int AddBranch(int location, int target, BranchCondition condition, RV64XRegister lhs_reg,
+                         RV64XRegister rhs_reg, RV64XRegister scratch,
+                         boolean is_bare, boolean compression_allowed) {
+        CHECK_NE(condition.ordinal(), kUncond.ordinal());
+        CHECK(!IsNop(condition, lhs_reg, rhs_reg));
+        CHECK(!IsUncond(condition, lhs_reg, rhs_reg));
+
+        compression_allowed &= RV64Branch.IsCompressableCondition(condition, lhs_reg, rhs_reg);
+        int id = Add(location, target, condition, lhs_reg, rhs_reg,
+                kNoFRegister, scratch, is_bare, compression_allowed);
+        InitializeType(id, compression_allowed ? kCondCBranch : kCondBranch);
+        return id;
+    }
+
+    // Label address or integer literal.
+    public int AddBranch(int location, int target, RV64XRegister rd, Type label_or_literal_type) {
+        CHECK_NE(rd.index(), Zero.index());
+
+        int id = Add(location, target, kUncond, rd, Zero, kNoFRegister, Zero, false, false);
+        InitializeType(id, label_or_literal_type);
+        return id;
+    }
+
+    // Floating point literal.
+    public int AddBranch(int location, int target, RV64XRegister tmp, RV64FRegister rd, Type literal_type) {
+        CHECK_NE(tmp.index(), Zero.index());
+
+        int id = Add(location, target, kUncond, tmp, Zero, rd.index(), Zero, false, false);
+        InitializeType(id, literal_type);
+        return id;
+    }
+
+    // Completes branch construction by determining and recording its type.
+    private void InitializeType(int id, Type initial_type) {
+        OffsetBits offset_size_needed = GetOffsetSizeNeeded(location_[id], target_[id]);
+        boolean is_bare = IsBare(id);
+        Type type;
+
+        switch (initial_type) {
+            case kCondCBranch:
+                CHECK(IsCompressableCondition(id));
+                if (GetCondition(id) != kUncond) {
+                    if (is_bare) {
+                        type = ShortOrLong(offset_size_needed, kCondCBranch,
+                                kCondBranch, kCondCBranch21);
+                    } else {
+                        type = ShortOrLong(offset_size_needed, kCondCBranch,
+                                kCondBranch, kCondCBranch21, kLongCondCBranch);
+                    }
+                    break;
+                }
+                // fall through
+            case kUncondCBranch:
+                if (is_bare) {
+                    type = ShortOrLong(offset_size_needed, kUncondCBranch, kUncondBranch);
+                } else {
+                    type = ShortOrLong(offset_size_needed, kUncondCBranch, kUncondBranch, kLongUncondBranch);
+                }
+                break;
+            case kCondBranch:
+                if (GetCondition(id) != kUncond) {
+                    if (is_bare) {
+                        type = ShortOrLong(offset_size_needed, kCondBranch, kCondBranch21);
+                    } else {
+                        type = ShortOrLong(offset_size_needed, kCondBranch, kCondBranch21, kLongCondBranch);
+                    }
+                    break;
+                }
+                // fall through
+            case kUncondBranch:
+                if (is_bare) {
+                    type = ShortOrLong(offset_size_needed, kUncondBranch);
+                } else {
+                    type = ShortOrLong(offset_size_needed, kUncondBranch, kLongUncondBranch);
+                }
+                break;
+            case kCall:
+                if (is_bare) {
+                    type = ShortOrLong(offset_size_needed, kCall);
+                } else {
+                    type = ShortOrLong(offset_size_needed, kCall, kLongCall);
+                }
+                break;
+            case kLabel:
+                type = initial_type;
+                break;
+            case kLiteral:
+            case kLiteralUnsigned:
+            case kLiteralLong:
+            case kLiteralFloat:
+            case kLiteralDouble:
+                CHECK(!IsResolved(id));
+                type = initial_type;
+                break;
+            default:
+                throw new IllegalStateException("Unexpected branch type " + initial_type);
+        }
+
+        type_[id] = (byte) type.ordinal();
+        old_type_[id] = type_[id];
+    }
+
+    // Helper for the above.
+    private static Type ShortOrLong(OffsetBits offset_size, Type... types) {
+        for (var type : types) {
+            if (type.offset_size.value() >= offset_size.value()) {
+                return type;
+            }
+        }
+        throw illegalOffset();
+    }
+
+    public Type GetType(int id) {
+        return kTypes[type_[id]];
+    }
+
+    public Type GetOldType(int id) {
+        return kTypes[old_type_[id]];
+    }
+
+    public BranchCondition GetCondition(int id) {
+        return kConditions[condition_[id]];
+    }
+
+    public RV64XRegister GetLeftRegister(int id) {
+        return kXRegisters[lhs_reg_[id]];
+    }
+
+    public RV64XRegister GetRightRegister(int id) {
+        return kXRegisters[rhs_reg_[id]];
+    }
+
+    public RV64XRegister GetNonZeroRegister(int id) {
+        assert (GetLeftRegister(id) == Zero || GetRightRegister(id) == Zero);
+        assert (GetLeftRegister(id) != Zero || GetRightRegister(id) != Zero);
+        return GetLeftRegister(id) == Zero ? GetRightRegister(id) : GetLeftRegister(id);
+    }
+
+    public RV64FRegister GetFRegister(int id) {
+        int freg = freg_[id];
+        return freg == kNoFRegister ? null : kFRegisters[freg];
+    }
+
+    public RV64XRegister GetScratchRegister(int id) {
+        return kXRegisters[scratch_reg_[id]];
+    }
+
+    public int GetTarget(int id) {
+        return target_[id];
+    }
+
+    public int GetLocation(int id) {
+        return location_[id];
+    }
+
+    public int GetOldLocation(int id) {
+        return old_location_[id];
+    }
+
+    public int GetLength(int id) {
+        return GetType(id).length;
+    }
+
+    public int GetOldLength(int id) {
+        return GetOldType(id).length;
+    }
+
+    public int GetEndLocation(int id) {
+        return GetLocation(id) + GetLength(id);
+    }
+
+    public int GetOldEndLocation(int id) {
+        return GetOldLocation(id) + GetOldLength(id);
+    }
+
+    public boolean IsResolved(int id) {
+        return target_[id] != kUnresolved;
+    }
+
+    private boolean IsBare(int id) {
+        return (flags_[id] & kFlagBare) != 0;
+    }
+
+    private boolean IsCompressionAllowed(int id) {
+        return (flags_[id] & kFlagCompressionAllowed) != 0;
+    }
+
+    public int NextBranchId(int id) {
+        return next_branch_id_[id];
+    }
+
+    // Checks if condition meets compression requirements
+    public boolean IsCompressableCondition(int id) {
+        return RV64Branch.IsCompressableCondition(GetCondition(id),
+                GetLeftRegister(id), GetRightRegister(id));
+    }
+
+    // Resolve a branch when the target is known.
+    public void Resolve(int id, int target) {
+        target_[id] = target;
+    }
+
+    // Link with the next branch
+    public void LinkToList(int id, int next_branch_id) {
+        next_branch_id_[id] = next_branch_id;
+    }
+
+    // Promotes short branches to long as necessary and assigns final locations and targets
+    // to all branches. Returns the total amount (in bytes) by which the code has grown.
+    //
+    // The growth of a branch moves every later location, so instead of relocating all branches
+    // on each promotion the locations are kept in their original (old) coordinates together
+    // with delta_before[i], the total growth of branches [0, i). A location in old coordinates
+    // that follows exactly `k` branches is then shifted by delta_before[k]. Each pass visits the
+    // branches in order: entries [0, i] are refreshed with the growth accumulated during the
+    // current pass, while entries past i still hold the previous pass values and only lack this
+    // pass growth so far. That makes each pass linear in the number of branches.
+    public int PromoteBranches() {
+        int count = size_;
+        // Number of branches located before the target, i.e. the index into delta_before.
+        int[] target_index = new int[count];
+        for (int id = 0; id < count; id++) {
+            // All targets should be resolved before we start promoting branches.
+            CHECK(IsResolved(id));
+            // A target can never point inside a branch, so a target equal to a branch
+            // location precedes that branch and is not moved by its expansion.
+            int index = Arrays.binarySearch(old_location_, 0, count, target_[id]);
+            target_index[id] = index < 0 ? -index - 1 : index;
+        }
+
+        int[] delta_before = new int[count + 1];
+        boolean changed;
+        do {
+            changed = false;
+            // Growth of branches visited during this pass.
+            int pass_delta = 0;
+            for (int id = 0; id < count; id++) {
+                delta_before[id] += pass_delta;
+                int location = old_location_[id] + delta_before[id];
+                int index = target_index[id];
+                int target = target_[id] + delta_before[index] + (index > id ? pass_delta : 0);
+                int delta = PromoteIfNeeded(id, location, target);
+                if (delta != 0) {
+                    changed = true;
+                    pass_delta += delta;
+                }
+            }
+            delta_before[count] += pass_delta;
+        } while (changed);
+
+        for (int id = 0; id < count; id++) {
+            location_[id] = old_location_[id] + delta_before[id];
+            target_[id] += delta_before[target_index[id]];
+        }
+        return delta_before[count];
+    }
+
+    // If necessary, updates the type by promoting a short branch to a longer branch
+    // based on the branch location and target. Returns the amount (in bytes) by
+    // which the branch size has increased.
+    private int PromoteIfNeeded(int id, int location, int target) {
+        Type old_type = GetType(id);
+        Type type;
+        switch (old_type) {
+            // Compressed branches
+            case kUncondCBranch: {
+                OffsetBits needed_size = GetOffsetSizeNeeded(location + old_type.pc_offset, target);
+                if (needed_size.value() <= old_type.offset_size.value()) {
+                    return 0;
+                }
+
+                if (needed_size.value() <= kUncondBranch.offset_size.value()) {
+                    type = kUncondBranch;
+                    break;
+                }
+
+                if (IsBare(id)) {
+                    throw illegalOffset();
+                }
+
+                type = kLongUncondBranch;
+                break;
+            }
+            case kCondCBranch: {
+                CHECK(IsCompressableCondition(id));
+                OffsetBits needed_size = GetOffsetSizeNeeded(location + old_type.pc_offset, target);
+                if (needed_size.value() <= old_type.offset_size.value()) {
+                    return 0;
+                }
+
+                if (needed_size.value() <= kCondBranch.offset_size.value()) {
+                    type = kCondBranch;
+                    break;
+                }
+
+                // fall through
+            }
+            // Short branches
+            case kCondBranch: {
+                OffsetBits needed_size = GetOffsetSizeNeeded(location + old_type.pc_offset, target);
+                if (needed_size.value() <= old_type.offset_size.value()) {
+                    return 0;
+                }
+
+                boolean compression_allowed = IsCompressionAllowed(id);
+                Type cond21Type = compression_allowed ? kCondCBranch21 : kCondBranch21;
+                Type longCondType = compression_allowed ? kLongCondCBranch : kLongCondBranch;
+
+                // The offset remains the same for `kCond[C]Branch21` for forward branches.
+                assert (cond21Type.length - cond21Type.pc_offset ==
+                        kCondBranch.length - kCondBranch.pc_offset);
+                if (target <= location) {
+                    // Calculate the needed size for kCond[C]Branch21.
+                    needed_size = GetOffsetSizeNeeded(location + cond21Type.pc_offset, target);
+                }
+
+                if (needed_size.value() <= cond21Type.offset_size.value()) {
+                    type = cond21Type;
+                    break;
+                }
+
+                if (IsBare(id)) {
+                    throw illegalOffset();
+                }
+
+                type = longCondType;
+                break;
+            }
+            case kUncondBranch:
+                if (GetOffsetSizeNeeded(location + old_type.pc_offset, target).value()
+                        <= old_type.offset_size.value()) {
+                    return 0;
+                }
+
+                if (IsBare(id)) {
+                    throw illegalOffset();
+                }
+
+                type = kLongUncondBranch;
+                break;
+            case kCall:
+                if (GetOffsetSizeNeeded(location + old_type.pc_offset, target).value()
+                        <= old_type.offset_size.value()) {
+                    return 0;
+                }
+
+                if (IsBare(id)) {
+                    throw illegalOffset();
+                }
+
+                type = kLongCall;
+                break;
+            // Medium branches
+            case kCondCBranch21:
+            case kCondBranch21: {
+                OffsetBits needed_size = GetOffsetSizeNeeded(location + old_type.pc_offset, target);
+                if (needed_size.value() <= old_type.offset_size.value()) {
+                    return 0;
+                }
+
+                if (IsBare(id)) {
+                    throw illegalOffset();
+                }
+
+                type = old_type == kCondCBranch21 ? kLongCondCBranch : kLongCondBranch;
+                break;
+            }
+            default:
+                // Other branch types cannot be promoted.
+                CHECK_LE(GetOffsetSizeNeeded(location + old_type.pc_offset, target).value(),
+                        old_type.offset_size.value());
+                return 0;
+        }
+        assert (type.length > old_type.length);
+        type_[id] = (byte) type.ordinal();
+        return type.length - old_type.length;
+    }
+
+    // Returns the offset into assembler buffer that shall be used as the base PC for
+    // offset calculation. RISC-V always uses the address of the PC-relative instruction
+    // as the PC, so this is essentially the location of that instruction.
+    public int GetOffsetLocation(int id) {
+        return location_[id] + GetType(id).pc_offset;
+    }
+
+    // Calculates and returns the offset ready for encoding in the branch instruction(s).
+    public int GetOffset(int id) {
+        CHECK(IsResolved(id));
+        // Calculate the byte distance between instructions and also account for
+        // different PC-relative origins.
+        return target_[id] - GetOffsetLocation(id);
+    }
+}
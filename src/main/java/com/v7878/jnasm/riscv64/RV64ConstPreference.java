@@ -0,0 +1,10 @@
+package com.v7878.jnasm.riscv64;
+
+// How Li/LoadConst* choose between an inline instruction sequence and a literal pool load.
+public enum RV64ConstPreference {
+    // Fewest dynamic instructions; the literal pool is used only when the inline
+    // sequence would take longer than the dependent AUIPC+LD load.
+    kSpeed,
+    // Fewest code bytes including the pool entry, counting compressed instructions.
+    kSize
+}
@@ -0,0 +1,216 @@
+package com.v7878.jnasm.riscv64;
+
+import static com.v7878.jnasm.Utils.CHECK;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A0;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A1;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A2;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A3;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A4;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A5;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A6;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A7;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T0;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T1;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T2;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T3;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T4;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T5;
+
+// Emits a leaf function updating a bit-reflected CRC32 or CRC32C with the "Zbc"
+// carry-less multiplication instructions instead of table lookups.
+//
+// Arguments: a0 - CRC state, a1 - buffer address, a2 - buffer length in bytes.
+// Returns the updated CRC state in a0 (zero-extended), clobbers a1-a7 and t0-t5.
+// The state is taken and returned without the initial and final inversion, i.e.
+// for java.util.zip.CRC32 and CRC32C values use `~crc` on input and output.
+//
+// The head of the buffer is processed byte by byte until it is 8-byte aligned, so
+// that all 64-bit loads are naturally aligned (misaligned loads trap and are emulated
+// on many cores).
+// 16-byte blocks are folded into a 128-bit remainder with clmul/clmulh, so that
+// only two independent multiplications per 8 bytes are on the critical path.
+// The remainder and the remaining 8-byte words and bytes are then reduced with
+// a Barrett reduction, as in the RISC-V Zbc CRC32 code of the Linux kernel.
+public final class RV64Crc32Generator {
+    public enum Polynomial {
+        kCrc32(0xEDB88320),   // IEEE 802.3, zlib, java.util.zip.CRC32
+        kCrc32C(0x82F63B78);  // Castagnoli, iSCSI, java.util.zip.CRC32C
+
+        private final int reflected;
+
+        Polynomial(int reflected) {
+            this.reflected = reflected;
+        }
+
+        // The reflected polynomial without the x^32 term.
+        public int reflected() {
+            return reflected;
+        }
+    }
+
+    private static final int kFoldBlockSize = 16;
+
+    private RV64Crc32Generator() {
+    }
+
+    // The polynomial in normal bit order with the implicit x^32 term.
+    private static long NormalPolynomial(Polynomial poly) {
+        return (1L << 32) | (Integer.reverse(poly.reflected()) & 0xffffffffL);
+    }
+
+    // x^n mod P, in normal bit order.
+    private static long XPowMod(int n, long normal_poly) {
+        long value = 1;
+        for (int i = 0; i < n; i++) {
+            value <<= 1;
+            if ((value & (1L << 32)) != 0) {
+                value ^= normal_poly;
+            }
+        }
+        return value;
+    }
+
+    // Low 64 bits of x^96 / P in normal bit order, the x^64 bit is implicit.
+    private static long BarrettQuotient(long normal_poly) {
+        long remainder = 0;
+        long quotient = 0;
+        for (int i = 96; i >= 0; i--) {
+            remainder = (remainder << 1) | (i == 96 ? 1 : 0);
+            if ((remainder & (1L << 32)) != 0) {
+                remainder ^= normal_poly;
+                if (i < 64) {
+                    quotient |= 1L << i;
+                }
+            }
+        }
+        return quotient;
+    }
+
+    // Fold constant for a 64-bit word that is n bits ahead of the remainder end,
+    // as a reflected 64-bit value. clmul and clmulh of a reflected word with it
+    // produce the two reflected words of (word * x^(n + 1)) mod P, see FoldWords().
+    private static long FoldConstant(int n, long normal_poly) {
+        return Long.reverse(XPowMod(n, normal_poly));
+    }
+
+    // crc = (s * x^32) mod P for a reflected 64-bit word s.
+    private static void EmitBarrettReduce(RV64Assembler assembler, RV64XRegister crc,
+                                          RV64XRegister s, RV64XRegister quotient,
+                                          RV64XRegister shifted_poly) {
+        CHECK(crc != s);
+        // There is no "clmulrh" instruction, so use clmul + slli instead.
+        assembler.Clmul(crc, s, quotient);
+        assembler.Slli(crc, crc, 1);
+        assembler.Xor(crc, crc, s);
+        assembler.Clmulr(crc, crc, shifted_poly);
+        assembler.Srli(crc, crc, 32);
+    }
+
+    // Folds one 16-byte block at `buf` into the remainder (hi, lo).
+    private static void FoldWords(RV64Assembler assembler, RV64XRegister hi, RV64XRegister lo,
+                                  RV64XRegister k_hi, RV64XRegister k_lo, RV64XRegister buf) {
+        assembler.Ld(T0, buf, 0);
+        assembler.Ld(T1, buf, 8);
+        assembler.Clmul(T2, hi, k_hi);
+        assembler.Clmulh(T3, hi, k_hi);
+        assembler.Clmul(T4, lo, k_lo);
+        assembler.Clmulh(lo, lo, k_lo);
+        assembler.Xor(hi, T2, T4);
+        assembler.Xor(lo, lo, T3);
+        assembler.Xor(hi, hi, T0);
+        assembler.Xor(lo, lo, T1);
+    }
+
+    // crc = ((crc ^ byte) << 56) * x^32 mod P ^ (crc >> 8), then advances `buf`.
+    private static void EmitByteStep(RV64Assembler assembler, RV64XRegister crc,
+                                     RV64XRegister buf, RV64XRegister len,
+                                     RV64XRegister quotient, RV64XRegister shifted_poly) {
+        assembler.Lbu(T1, buf, 0);
+        assembler.Xor(T1, T1, crc);
+        assembler.Slli(T1, T1, 56);
+        assembler.Srli(T2, crc, 8);
+        EmitBarrettReduce(assembler, crc, T1, quotient, shifted_poly);
+        assembler.Xor(crc, crc, T2);
+        assembler.Addi(buf, buf, 1);
+        assembler.Addi(len, len, -1);
+    }
+
+    public static void Generate(RV64Assembler assembler, Polynomial poly) {
+        final RV64XRegister crc = A0;
+        final RV64XRegister buf = A1;
+        final RV64XRegister len = A2;
+        final RV64XRegister k_hi = A3;
+        final RV64XRegister k_lo = A4;
+        final RV64XRegister hi = A5;
+        final RV64XRegister lo = A6;
+        final RV64XRegister shifted_poly = A7;
+        final RV64XRegister quotient = T5;
+
+        long normal_poly = NormalPolynomial(poly);
+
+        RV64Label head = new RV64Label();
+        RV64Label aligned = new RV64Label();
+        RV64Label words = new RV64Label();
+        RV64Label word_loop = new RV64Label();
+        RV64Label bytes = new RV64Label();
+        RV64Label byte_loop = new RV64Label();
+        RV64Label fold_loop = new RV64Label();
+        RV64Label done = new RV64Label();
+
+        assembler.ZextW(crc, crc);
+        assembler.Li(quotient, Long.reverse(BarrettQuotient(normal_poly)));
+        assembler.Li(shifted_poly, (poly.reflected() & 0xffffffffL) << 32);
+
+        assembler.bind(head);
+        assembler.Andi(T0, buf, 7);
+        assembler.Beqz(T0, aligned, false);
+        assembler.Beqz(len, done, false);
+        EmitByteStep(assembler, crc, buf, len, quotient, shifted_poly);
+        assembler.J(head, false);
+
+        assembler.bind(aligned);
+        // Folding pays off starting with two blocks.
+        assembler.Li(T0, 2 * kFoldBlockSize);
+        assembler.Bltu(len, T0, words, false);
+
+        assembler.Li(k_hi, FoldConstant(128 + 64 - 1, normal_poly));
+        assembler.Li(k_lo, FoldConstant(128 - 1, normal_poly));
+        assembler.Ld(hi, buf, 0);
+        assembler.Ld(lo, buf, 8);
+        assembler.Xor(hi, hi, crc);
+        assembler.Addi(buf, buf, kFoldBlockSize);
+        assembler.Addi(len, len, -kFoldBlockSize);
+
+        assembler.bind(fold_loop);
+        FoldWords(assembler, hi, lo, k_hi, k_lo, buf);
+        assembler.Addi(buf, buf, kFoldBlockSize);
+        assembler.Addi(len, len, -kFoldBlockSize);
+        assembler.Li(T0, kFoldBlockSize);
+        assembler.Bgeu(len, T0, fold_loop, false);
+
+        // Reduce the 128-bit remainder as two words starting from a zero state.
+        EmitBarrettReduce(assembler, crc, hi, quotient, shifted_poly);
+        assembler.Xor(lo, lo, crc);
+        EmitBarrettReduce(assembler, crc, lo, quotient, shifted_poly);
+
+        assembler.bind(words);
+        assembler.Li(T0, 8);
+        assembler.Bltu(len, T0, bytes, false);
+        assembler.bind(word_loop);
+        assembler.Ld(T1, buf, 0);
+        assembler.Xor(T1, T1, crc);
+        EmitBarrettReduce(assembler, crc, T1, quotient, shifted_poly);
+        assembler.Addi(buf, buf, 8);
+        assembler.Addi(len, len, -8);
+        assembler.Bgeu(len, T0, word_loop, false);
+
+        assembler.bind(bytes);
+        assembler.Beqz(len, done, false);
+        assembler.bind(byte_loop);
+        EmitByteStep(assembler, crc, buf, len, quotient, shifted_poly);
+        assembler.Bnez(len, byte_loop, false);
+
+        assembler.bind(done);
+        assembler.Ret();
+    }
+}
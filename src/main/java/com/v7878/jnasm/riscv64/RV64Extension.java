@@ -1,5 +1,7 @@
 package com.v7878.jnasm.riscv64;
 
+import static com.v7878.jnasm.Utils.CHECK_LT;
+
 public enum RV64Extension {
     // Pseudo-extension encompassing all loads and stores. Used to check that
     // we do not have loads and stores in the middle of a LR/SC sequence.
@@ -20,9 +22,54 @@ public enum RV64Extension {
     kZcd(12),
     // Note: RV64 cannot implement Zcf ("C" extension float loads/stores).
     // Simple 16-bit operations not present in the original "C" extension.
-    kZcb(13);
+    kZcb(13),
+    kZicond(14),
+    // Carry-less multiplication.
+    kZbc(15),
+    // Bit-manipulation for cryptography.
+    kZbkb(16),
+    // Carry-less multiplication for cryptography, a subset of "Zbc".
+    kZbkc(17),
+    // Crossbar permutations.
+    kZbkx(18),
+    // Cache-block management (clean, flush, invalidate).
+    kZicbom(19),
+    // Cache-block zeroing.
+    kZicboz(20),
+    // Cache-block prefetch hints.
+    kZicbop(21),
+    // Non-temporal locality hints.
+    kZihintntl(22),
+    kZihintpause(23),
+    // Wait-on-reservation-set.
+    kZawrs(24),
+    // Vector basic bit-manipulation.
+    kZvbb(25),
+    // Vector carry-less multiplication.
+    kZvbc(26),
+    // Vector AES block cipher.
+    kZvkned(27),
+    // Vector SHA-2 secure hash, "Zvknha" or "Zvknhb".
+    kZvknh(28),
+    // Minimal half-precision floating point (loads, stores, moves and conversions).
+    kZfhmin(29),
+    // Half-precision floating point, a superset of "Zfhmin".
+    kZfh(30),
+    // Minimal vector half-precision floating point (conversions to and from SEW = 16).
+    kZvfhmin(31),
+    // Note: this and the following extensions have index 32 or above,
+    // only `extensionMask()` works for them, `extensionBit()` does not.
+    // Vector half-precision floating point, a superset of "Zvfhmin".
+    kZvfh(32),
+    // Atomic compare-and-swap.
+    kZacas(33),
+    // Byte and halfword atomic memory operations.
+    kZabha(34),
+    // Additional floating-point instructions.
+    kZfa(35);
 
-    public static final int kRiscv64AllExtensionsMask = (1 << (kZcb.index() + 1)) - 1;
+    // Note: there are more than 32 extensions, so the full mask is a `long`.
+    public static final long kRiscv64AllExtensionsMask = (1L << (kZfa.index() + 1)) - 1;
     public static final int kRiscv64CompressedExtensionsMask =
             RV64Extension.kZca.extensionBit()
                     | RV64Extension.kZcd.extensionBit()
@@ -42,7 +89,18 @@ public enum RV64Extension {
         return value;
     }
 
+    /**
+     * @deprecated Only valid for extensions with index below 32, use {@link #extensionMask()}.
+     */
+    @Deprecated
     public int extensionBit() {
+        CHECK_LT(value, 32);
         return 1 << value;
     }
+
+    // The bit of this extension in the `enabled_extensions` mask of `RV64Assembler`,
+    // valid for every extension.
+    public long extensionMask() {
+        return 1L << value;
+    }
 }
@@ -0,0 +1,646 @@
+package com.v7878.jnasm.riscv64;
+
+import static com.v7878.jnasm.Utils.CHECK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Basic-block list scheduler for in-order cores. Instructions are recorded as they are
+// emitted and split into regions of straight-line code at labels, branches, literal loads
+// and any instruction that is not understood or must stay in place (jumps, auipc, fences,
+// CSR accesses, atomics, hints). Prefix hints (e.g. "Zihintntl") apply to the instruction
+// that follows them, so that instruction is kept in place too. At the end each region is reordered in place: its start
+// and end positions do not change, so branches, labels and literals are not affected.
+//
+// Dependencies are tracked through X and F registers. Memory accesses are not analyzed:
+// loads may pass loads, but no access may pass a store or be passed by one. All vector
+// instructions, including vsetvli, keep their relative order.
+final class RV64InstructionScheduler {
+    interface InstructionWriter {
+        void Write(int position, int encoding, int length);
+    }
+
+    private record Region(int begin, int end, int end_position, RV64SchedulingModel model) {
+    }
+
+    // Scheduling is quadratic in the region size, longer regions are split.
+    private static final int kMaxRegionSize = 128;
+    private static final int kInitialCapacity = 64;
+
+    private static final int kBarrier = -1;
+    // A hint that applies to the next instruction, both must stay in place.
+    private static final int kPrefixHint = -2;
+
+    // Latency classes, the low bits of the instruction info.
+    private static final int kClassAlu = 0;
+    private static final int kClassLoad = 1;
+    private static final int kClassMul = 2;
+    private static final int kClassDiv = 3;
+    private static final int kClassFp = 4;
+    private static final int kClassFpDiv = 5;
+    private static final int kClassFpMove = 6;
+    private static final int kClassVector = 7;
+    private static final int kClassStore = 8;
+    private static final int kClassMask = 0xf;
+
+    private static final int kFlagLoad = 1 << 4;
+    private static final int kFlagStore = 1 << 5;
+    private static final int kFlagVector = 1 << 6;
+
+    private static final int kNoEdge = -1;
+
+    private RV64SchedulingModel model_;
+
+    private int size_;
+    private int[] position_ = new int[kInitialCapacity];
+    private int[] encoding_ = new int[kInitialCapacity];
+    private int[] info_ = new int[kInitialCapacity];
+    // Registers read and written, X registers in the low 32 bits and F registers in the high ones.
+    private long[] uses_ = new long[kInitialCapacity];
+    private long[] defs_ = new long[kInitialCapacity];
+
+    private final List<Region> regions_ = new ArrayList<>();
+    private int region_begin_;
+    private int region_end_position_;
+    // The previous instruction was a prefix hint.
+    private boolean pin_next_;
+
+    // Results of the last Decode16/Decode32.
+    private long decoded_uses_;
+    private long decoded_defs_;
+
+    public RV64SchedulingModel GetModel() {
+        return model_;
+    }
+
+    // Code recorded from now on is scheduled for `model`, null stops the recording.
+    public void SetModel(RV64SchedulingModel model) {
+        Barrier();
+        model_ = model;
+    }
+
+    // Ends the current region, e.g. at labels and branches.
+    public void Barrier() {
+        if (size_ - region_begin_ >= 2) {
+            regions_.add(new Region(region_begin_, size_, region_end_position_, model_));
+        } else {
+            // Nothing to reorder, forget the instruction.
+            size_ = region_begin_;
+        }
+        region_begin_ = size_;
+    }
+
+    public void OnInstruction16(int position, int encoding) {
+        if (model_ != null) {
+            Record(position, encoding, 2, Decode16(encoding));
+        }
+    }
+
+    public void OnInstruction32(int position, int encoding) {
+        if (model_ != null) {
+            Record(position, encoding, 4, Decode32(encoding));
+        }
+    }
+
+    private void Record(int position, int encoding, int length, int info) {
+        if (info == kBarrier || info == kPrefixHint || pin_next_) {
+            pin_next_ = info == kPrefixHint;
+            Barrier();
+            return;
+        }
+        if (size_ != region_begin_ && position != region_end_position_) {
+            // Something else was emitted in between.
+            Barrier();
+        }
+        if (size_ - region_begin_ == kMaxRegionSize) {
+            Barrier();
+        }
+        if (size_ == position_.length) {
+            int capacity = size_ * 2;
+            position_ = Arrays.copyOf(position_, capacity);
+            encoding_ = Arrays.copyOf(encoding_, capacity);
+            info_ = Arrays.copyOf(info_, capacity);
+            uses_ = Arrays.copyOf(uses_, capacity);
+            defs_ = Arrays.copyOf(defs_, capacity);
+        }
+        position_[size_] = position;
+        encoding_[size_] = encoding;
+        info_[size_] = info;
+        uses_[size_] = decoded_uses_;
+        defs_[size_] = decoded_defs_;
+        size_++;
+        region_end_position_ = position + length;
+    }
+
+    // Reorders all recorded regions and forgets them.
+    public void Schedule(InstructionWriter writer) {
+        Barrier();
+        for (Region region : regions_) {
+            ScheduleRegion(region, writer);
+        }
+        regions_.clear();
+        size_ = region_begin_ = 0;
+        pin_next_ = false;
+    }
+
+    private static int Latency(RV64SchedulingModel model, int info) {
+        return switch (info & kClassMask) {
+            case kClassAlu -> model.aluLatency();
+            case kClassLoad -> model.loadLatency();
+            case kClassMul -> model.mulLatency();
+            case kClassDiv -> model.divLatency();
+            case kClassFp -> model.fpLatency();
+            case kClassFpDiv -> model.fpDivLatency();
+            case kClassFpMove -> model.fpMoveLatency();
+            case kClassVector -> model.vectorLatency();
+            default -> 1;  // Stores produce no register value.
+        };
+    }
+
+    // The minimal distance in cycles from the start of `a` to the start of `b` (a < b),
+    // or kNoEdge if `b` does not depend on `a`.
+    private int EdgeLatency(RV64SchedulingModel model, int a, int b) {
+        if ((defs_[a] & uses_[b]) != 0) {
+            return Latency(model, info_[a]);
+        }
+        if ((uses_[a] & defs_[b]) != 0 || (defs_[a] & defs_[b]) != 0) {
+            return 0;
+        }
+        int info_a = info_[a];
+        int info_b = info_[b];
+        boolean a_mem = (info_a & (kFlagLoad | kFlagStore)) != 0;
+        boolean b_mem = (info_b & (kFlagLoad | kFlagStore)) != 0;
+        if (a_mem && b_mem && ((info_a | info_b) & kFlagStore) != 0) {
+            return 0;
+        }
+        if ((info_a & info_b & kFlagVector) != 0) {
+            return 0;
+        }
+        return kNoEdge;
+    }
+
+    // Cycles needed to issue `order` on an in-order core and complete all its results.
+    private static int Simulate(RV64SchedulingModel model, int[][] edges,
+                                int[] latency, int[] order) {
+        int n = order.length;
+        int width = model.issueWidth();
+        int[] issue = new int[n];
+        int cycle = 0;
+        int slots = 0;
+        int end = 0;
+        for (int i : order) {
+            int ready = 0;
+            for (int p = 0; p < n; p++) {
+                if (edges[p][i] != kNoEdge) {
+                    ready = Math.max(ready, issue[p] + edges[p][i]);
+                }
+            }
+            if (ready > cycle) {
+                cycle = ready;
+                slots = 0;
+            } else if (slots == width) {
+                cycle++;
+                slots = 0;
+            }
+            issue[i] = cycle;
+            slots++;
+            end = Math.max(end, cycle + latency[i]);
+        }
+        return end;
+    }
+
+    private void ScheduleRegion(Region region, InstructionWriter writer) {
+        final RV64SchedulingModel model = region.model();
+        final int begin = region.begin();
+        final int n = region.end() - begin;
+
+        int[] latency = new int[n];
+        int[][] edges = new int[n][n];
+        int[] pred_count = new int[n];
+        for (int i = 0; i < n; i++) {
+            latency[i] = Latency(model, info_[begin + i]);
+            Arrays.fill(edges[i], kNoEdge);
+            for (int j = 0; j < i; j++) {
+                edges[j][i] = EdgeLatency(model, begin + j, begin + i);
+                if (edges[j][i] != kNoEdge) {
+                    pred_count[i]++;
+                }
+            }
+        }
+
+        // Priority: the longest latency path from the instruction to the end of the region.
+        int[] height = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            height[i] = latency[i];
+            for (int s = i + 1; s < n; s++) {
+                if (edges[i][s] != kNoEdge) {
+                    height[i] = Math.max(height[i], edges[i][s] + height[s]);
+                }
+            }
+        }
+
+        int[] order = new int[n];
+        int[] ready_cycle = new int[n];
+        boolean[] scheduled = new boolean[n];
+        int count = 0;
+        int cycle = 0;
+        while (count < n) {
+            for (int slot = 0; slot < model.issueWidth(); slot++) {
+                int best = -1;
+                for (int i = 0; i < n; i++) {
+                    if (scheduled[i] || pred_count[i] != 0 || ready_cycle[i] > cycle) {
+                        continue;
+                    }
+                    if (best == -1 || height[i] > height[best]) {
+                        best = i;
+                    }
+                }
+                if (best == -1) {
+                    break;
+                }
+                scheduled[best] = true;
+                order[count++] = best;
+                for (int s = best + 1; s < n; s++) {
+                    if (edges[best][s] != kNoEdge) {
+                        pred_count[s]--;
+                        ready_cycle[s] = Math.max(ready_cycle[s], cycle + edges[best][s]);
+                    }
+                }
+            }
+            cycle++;
+        }
+
+        int[] original = new int[n];
+        for (int i = 0; i < n; i++) {
+            original[i] = i;
+        }
+        if (Simulate(model, edges, latency, order) >= Simulate(model, edges, latency, original)) {
+            // Keep the code as written unless it actually gets faster.
+            return;
+        }
+
+        int position = position_[begin];
+        for (int i : order) {
+            int length = (encoding_[begin + i] & 0x3) == 0x3 ? 4 : 2;
+            writer.Write(position, encoding_[begin + i], length);
+            position += length;
+        }
+        CHECK(position == region.end_position());
+    }
+
+    private static long X(int reg) {
+        return reg == 0 ? 0 : 1L << reg;
+    }
+
+    private static long F(int reg) {
+        return 1L << (32 + reg);
+    }
+
+    private int Decode32(int encoding) {
+        int opcode = encoding & 0x7f;
+        int rd = (encoding >>> 7) & 0x1f;
+        int funct3 = (encoding >>> 12) & 0x7;
+        int rs1 = (encoding >>> 15) & 0x1f;
+        int rs2 = (encoding >>> 20) & 0x1f;
+        int funct7 = encoding >>> 25;
+        decoded_uses_ = 0;
+        decoded_defs_ = 0;
+        switch (opcode) {
+            case 0x37 -> {
+                // lui, x0 destinations are hints.
+                decoded_defs_ = X(rd);
+                return rd == 0 ? kBarrier : kClassAlu;
+            }
+            case 0x13, 0x1b -> {
+                // OP-IMM and OP-IMM-32, x0 destinations are nops, prefetches and other hints.
+                decoded_uses_ = X(rs1);
+                decoded_defs_ = X(rd);
+                return rd == 0 ? kBarrier : kClassAlu;
+            }
+            case 0x33, 0x3b -> {
+                // OP and OP-32, x0 destinations are hints. They are conservatively
+                // treated as prefix hints like the "Zihintntl" `add zero, zero, rs2`.
+                decoded_uses_ = X(rs1) | X(rs2);
+                decoded_defs_ = X(rd);
+                if (rd == 0) {
+                    return kPrefixHint;
+                }
+                if (funct7 == 0x1) {
+                    return funct3 < 4 ? kClassMul : kClassDiv;
+                }
+                if (opcode == 0x33 && funct7 == 0x5 && funct3 >= 1 && funct3 <= 3) {
+                    return kClassMul;  // clmul, clmulr, clmulh
+                }
+                return kClassAlu;
+            }
+            case 0x03 -> {
+                decoded_uses_ = X(rs1);
+                decoded_defs_ = X(rd);
+                return kClassLoad | kFlagLoad;
+            }
+            case 0x07 -> {
+                if (funct3 >= 1 && funct3 <= 4) {
+                    decoded_uses_ = X(rs1);
+                    decoded_defs_ = F(rd);
+                    return kClassLoad | kFlagLoad;
+                }
+                decoded_uses_ = VectorMemoryUses(encoding);
+                return kClassVector | kFlagLoad | kFlagVector;
+            }
+            case 0x23 -> {
+                decoded_uses_ = X(rs1) | X(rs2);
+                return kClassStore | kFlagStore;
+            }
+            case 0x27 -> {
+                if (funct3 >= 1 && funct3 <= 4) {
+                    decoded_uses_ = X(rs1) | F(rs2);
+                    return kClassStore | kFlagStore;
+                }
+                decoded_uses_ = VectorMemoryUses(encoding);
+                return kClassStore | kFlagStore | kFlagVector;
+            }
+            case 0x43, 0x47, 0x4b, 0x4f -> {
+                // Fused multiply-add.
+                decoded_uses_ = F(rs1) | F(rs2) | F(encoding >>> 27);
+                decoded_defs_ = F(rd);
+                return kClassFp;
+            }
+            case 0x53 -> {
+                return DecodeOpFp(funct7 >>> 2, rd, rs1, rs2);
+            }
+            case 0x57 -> {
+                return DecodeOpV(encoding, funct3, rd, rs1, rs2);
+            }
+            case 0x77 -> {
+                // Vector crypto instructions only use vector registers.
+                return kClassVector | kFlagVector;
+            }
+            default -> {
+                // auipc, jumps, branches, fences, atomics and system instructions.
+                return kBarrier;
+            }
+        }
+    }
+
+    private static long VectorMemoryUses(int encoding) {
+        int mop = (encoding >>> 26) & 0x3;
+        long uses = X((encoding >>> 15) & 0x1f);
+        if (mop == 0x2) {
+            // Strided accesses read the stride from rs2, indexed ones use a vector register.
+            uses |= X((encoding >>> 20) & 0x1f);
+        }
+        return uses;
+    }
+
+    private int DecodeOpFp(int funct5, int rd, int rs1, int rs2) {
+        switch (funct5) {
+            case 0x00, 0x01, 0x02 -> {
+                // fadd, fsub, fmul
+                decoded_uses_ = F(rs1) | F(rs2);
+                decoded_defs_ = F(rd);
+                return kClassFp;
+            }
+            case 0x03 -> {
+                // fdiv
+                decoded_uses_ = F(rs1) | F(rs2);
+                decoded_defs_ = F(rd);
+                return kClassFpDiv;
+            }
+            case 0x0b -> {
+                // fsqrt
+                decoded_uses_ = F(rs1);
+                decoded_defs_ = F(rd);
+                return kClassFpDiv;
+            }
+            case 0x04, 0x05 -> {
+                // fsgnj*, fmin/fmax and "Zfa" fminm/fmaxm
+                decoded_uses_ = F(rs1) | F(rs2);
+                decoded_defs_ = F(rd);
+                return kClassFpMove;
+            }
+            case 0x08 -> {
+                // Conversions between FP formats and "Zfa" fround/froundnx.
+                decoded_uses_ = F(rs1);
+                decoded_defs_ = F(rd);
+                return kClassFp;
+            }
+            case 0x14 -> {
+                // feq, flt, fle and "Zfa" fleq/fltq
+                decoded_uses_ = F(rs1) | F(rs2);
+                decoded_defs_ = X(rd);
+                return kClassFpMove;
+            }
+            case 0x18 -> {
+                // Conversions to integers.
+                decoded_uses_ = F(rs1);
+                decoded_defs_ = X(rd);
+                return kClassFp;
+            }
+            case 0x1a -> {
+                // Conversions from integers.
+                decoded_uses_ = X(rs1);
+                decoded_defs_ = F(rd);
+                return kClassFp;
+            }
+            case 0x1c -> {
+                // fmv.x.* and fclass
+                decoded_uses_ = F(rs1);
+                decoded_defs_ = X(rd);
+                return kClassFpMove;
+            }
+            case 0x1e -> {
+                // fmv.*.x and "Zfa" fli
+                decoded_uses_ = rs2 == 0x1 ? 0 : X(rs1);
+                decoded_defs_ = F(rd);
+                return kClassFpMove;
+            }
+            default -> {
+                return kBarrier;
+            }
+        }
+    }
+
+    private int DecodeOpV(int encoding, int funct3, int rd, int rs1, int rs2) {
+        int funct6 = encoding >>> 26;
+        switch (funct3) {
+            case 0x7 -> {
+                if ((encoding >>> 30) == 0x3) {
+                    // vsetivli
+                    decoded_uses_ = 0;
+                } else if ((encoding >>> 31) == 0) {
+                    // vsetvli
+                    decoded_uses_ = X(rs1);
+                } else {
+                    // vsetvl
+                    decoded_uses_ = X(rs1) | X(rs2);
+                }
+                decoded_defs_ = X(rd);
+                return kClassAlu | kFlagVector;
+            }
+            case 0x2 -> {
+                // OPMVV, vmv.x.s, vcpop.m and vfirst.m write an X register.
+                decoded_defs_ = funct6 == 0x10 ? X(rd) : 0;
+            }
+            case 0x1 -> {
+                // OPFVV, vfmv.f.s writes an F register.
+                decoded_defs_ = funct6 == 0x10 ? F(rd) : 0;
+            }
+            case 0x4, 0x6 -> decoded_uses_ = X(rs1);  // OPIVX, OPMVX
+            case 0x5 -> decoded_uses_ = F(rs1);  // OPFVF
+            default -> {
+                // OPIVV, OPIVI
+            }
+        }
+        return kClassVector | kFlagVector;
+    }
+
+    // The register of a 3-bit compressed register field.
+    private static int CReg(int encoding, int shift) {
+        return 8 + ((encoding >>> shift) & 0x7);
+    }
+
+    private int Decode16(int encoding) {
+        int quadrant = encoding & 0x3;
+        int funct3 = (encoding >>> 13) & 0x7;
+        int rd = (encoding >>> 7) & 0x1f;
+        int rs2 = (encoding >>> 2) & 0x1f;
+        final long sp = X(2);
+        decoded_uses_ = 0;
+        decoded_defs_ = 0;
+        if (encoding == 0) {
+            // Illegal instruction, also used for unresolved placeholders.
+            return kBarrier;
+        }
+        if (quadrant == 0x0) {
+            long base = X(CReg(encoding, 7));
+            int reg = CReg(encoding, 2);
+            switch (funct3) {
+                case 0x0 -> {
+                    // c.addi4spn
+                    decoded_uses_ = sp;
+                    decoded_defs_ = X(reg);
+                    return kClassAlu;
+                }
+                case 0x1 -> {
+                    // c.fld
+                    decoded_uses_ = base;
+                    decoded_defs_ = F(reg);
+                    return kClassLoad | kFlagLoad;
+                }
+                case 0x2, 0x3 -> {
+                    // c.lw, c.ld
+                    decoded_uses_ = base;
+                    decoded_defs_ = X(reg);
+                    return kClassLoad | kFlagLoad;
+                }
+                case 0x4 -> {
+                    // "Zcb" c.lbu, c.lhu, c.lh, c.sb and c.sh
+                    switch ((encoding >>> 10) & 0x7) {
+                        case 0x0, 0x1 -> {
+                            decoded_uses_ = base;
+                            decoded_defs_ = X(reg);
+                            return kClassLoad | kFlagLoad;
+                        }
+                        case 0x2, 0x3 -> {
+                            decoded_uses_ = base | X(reg);
+                            return kClassStore | kFlagStore;
+                        }
+                        default -> {
+                            return kBarrier;
+                        }
+                    }
+                }
+                case 0x5 -> {
+                    // c.fsd
+                    decoded_uses_ = base | F(reg);
+                    return kClassStore | kFlagStore;
+                }
+                default -> {
+                    // c.sw, c.sd
+                    decoded_uses_ = base | X(reg);
+                    return kClassStore | kFlagStore;
+                }
+            }
+        }
+        if (quadrant == 0x1) {
+            switch (funct3) {
+                case 0x0, 0x1 -> {
+                    // c.addi, c.addiw, rd == x0 encodes c.nop and hints.
+                    decoded_uses_ = X(rd);
+                    decoded_defs_ = X(rd);
+                    return rd == 0 ? kBarrier : kClassAlu;
+                }
+                case 0x2, 0x3 -> {
+                    // c.li, c.lui and c.addi16sp
+                    decoded_uses_ = rd == 2 && funct3 == 0x3 ? sp : 0;
+                    decoded_defs_ = X(rd);
+                    return rd == 0 ? kBarrier : kClassAlu;
+                }
+                case 0x4 -> {
+                    int reg = CReg(encoding, 7);
+                    decoded_uses_ = X(reg);
+                    decoded_defs_ = X(reg);
+                    if (((encoding >>> 10) & 0x3) != 0x3) {
+                        // c.srli, c.srai, c.andi
+                        return kClassAlu;
+                    }
+                    // Register-register and "Zcb" unary operations, the latter
+                    // are conservatively treated as reading rs2' too.
+                    decoded_uses_ |= X(CReg(encoding, 2));
+                    boolean is_mul = ((encoding >>> 12) & 0x1) == 1 && ((encoding >>> 5) & 0x3) == 0x2;
+                    return is_mul ? kClassMul : kClassAlu;
+                }
+                default -> {
+                    // c.j, c.beqz, c.bnez
+                    return kBarrier;
+                }
+            }
+        }
+        // quadrant == 0x2
+        switch (funct3) {
+            case 0x0 -> {
+                // c.slli
+                decoded_uses_ = X(rd);
+                decoded_defs_ = X(rd);
+                return rd == 0 ? kBarrier : kClassAlu;
+            }
+            case 0x1 -> {
+                // c.fldsp
+                decoded_uses_ = sp;
+                decoded_defs_ = F(rd);
+                return kClassLoad | kFlagLoad;
+            }
+            case 0x2, 0x3 -> {
+                // c.lwsp, c.ldsp
+                decoded_uses_ = sp;
+                decoded_defs_ = X(rd);
+                return rd == 0 ? kBarrier : kClassLoad | kFlagLoad;
+            }
+            case 0x4 -> {
+                // c.mv and c.add, rs2 == x0 encodes c.jr, c.jalr and c.ebreak,
+                // rd == x0 encodes hints, treated as prefix hints like "Zihintntl" c.ntl.*.
+                if (rs2 == 0) {
+                    return kBarrier;
+                }
+                if (rd == 0) {
+                    return kPrefixHint;
+                }
+                boolean is_add = ((encoding >>> 12) & 0x1) == 1;
+                decoded_uses_ = X(rs2) | (is_add ? X(rd) : 0);
+                decoded_defs_ = X(rd);
+                return kClassAlu;
+            }
+            case 0x5 -> {
+                // c.fsdsp
+                decoded_uses_ = sp | F(rs2);
+                return kClassStore | kFlagStore;
+            }
+            default -> {
+                // c.swsp, c.sdsp
+                decoded_uses_ = sp | X(rs2);
+                return kClassStore | kFlagStore;
+            }
+        }
+    }
+}
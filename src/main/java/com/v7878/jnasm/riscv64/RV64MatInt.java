@@ -0,0 +1,367 @@
+package com.v7878.jnasm.riscv64;
+
+import static com.v7878.jnasm.Utils.CHECK;
+import static com.v7878.jnasm.Utils.isLInt;
+import static com.v7878.jnasm.Utils.isLUInt;
+
+// Computes the shortest instruction sequence materializing a 64-bit constant
+// (in the spirit of LLVM's RISCVMatInt). The first instruction of the sequence
+// reads `Zero`, all the following ones read and write the destination register.
+final class RV64MatInt {
+    enum Opcode {
+        kLui,     // lui rd, imm20
+        kAddi,    // addi rd, src, imm12
+        kAddiw,   // addiw rd, src, imm12
+        kSlli,    // slli rd, rd, shamt
+        kSrli,    // srli rd, rd, shamt
+        kSlliUw,  // slli.uw rd, rd, shamt (Zba)
+        kAddUw,   // add.uw rd, rd, zero == zext.w rd, rd (Zba)
+        kSh1Add,  // sh1add rd, rd, rd (Zba)
+        kSh2Add,  // sh2add rd, rd, rd (Zba)
+        kSh3Add,  // sh3add rd, rd, rd (Zba)
+        kBseti,   // bseti rd, src, shamt (Zbs)
+        kBclri,   // bclri rd, rd, shamt (Zbs)
+        kRori     // rori rd, rd, shamt (Zbb)
+    }
+
+    private static final Opcode[] kOpcodes = Opcode.values();
+
+    // The longest sequence ever generated is 8 instructions, one more may be
+    // appended to a temporary sequence before it is compared with the result.
+    private static final int kMaxLength = 16;
+
+    // Fixed capacity instruction sequence.
+    static final class InstSeq {
+        private final byte[] opcodes = new byte[kMaxLength];
+        private final int[] imms = new int[kMaxLength];
+        private int size;
+
+        public int size() {
+            return size;
+        }
+
+        public Opcode opcode(int index) {
+            return kOpcodes[opcodes[index]];
+        }
+
+        public int imm(int index) {
+            return imms[index];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(Opcode opcode, int imm) {
+            opcodes[size] = (byte) opcode.ordinal();
+            imms[size] = imm;
+            size++;
+        }
+
+        void copyFrom(InstSeq other) {
+            System.arraycopy(other.opcodes, 0, opcodes, 0, other.size);
+            System.arraycopy(other.imms, 0, imms, 0, other.size);
+            size = other.size;
+        }
+    }
+
+    private final InstSeq res_ = new InstSeq();
+    private final InstSeq tmp_ = new InstSeq();
+
+    private boolean zba_;
+    private boolean zbb_;
+    private boolean zbs_;
+    private boolean zca_;
+
+    // Generates the sequence for `value` with the given extensions enabled.
+    // The result stays valid until the next call.
+    public InstSeq Generate(long value, long enabled_extensions) {
+        zba_ = (enabled_extensions & RV64Extension.kZba.extensionMask()) != 0;
+        zbb_ = (enabled_extensions & RV64Extension.kZbb.extensionMask()) != 0;
+        zbs_ = (enabled_extensions & RV64Extension.kZbs.extensionMask()) != 0;
+        zca_ = (enabled_extensions & RV64Extension.kZca.extensionMask()) != 0;
+
+        InstSeq res = res_;
+        InstSeq tmp = tmp_;
+        res.clear();
+        GenerateImpl(value, res);
+
+        // If the low 12 bits are non-zero, the first expansion may end with an ADDI or ADDIW.
+        // If there are trailing zeros, try generating a sign extended constant with no
+        // trailing zeros and use a final SLLI to restore them.
+        if ((value & 0xfff) != 0 && (value & 1) == 0 && res.size() >= 2) {
+            int trailing_zeros = Long.numberOfTrailingZeros(value);
+            long shifted_value = value >> trailing_zeros;
+            // If we can use C.LI+C.SLLI instead of LUI+ADDI(W) prefer that since it's more compressible.
+            boolean is_shifted_compressible = zca_ && isLInt(6, shifted_value);
+            tmp.clear();
+            GenerateImpl(shifted_value, tmp);
+            // Keep the new sequence if it is an improvement.
+            if ((tmp.size() + 1) < res.size() || is_shifted_compressible) {
+                tmp.add(Opcode.kSlli, trailing_zeros);
+                res.copyFrom(tmp);
+            }
+        }
+
+        if (res.size() <= 2) {
+            return res;
+        }
+
+        // If the constant is positive we might be able to generate a shifted constant
+        // with no leading zeros and use a final SRLI to restore them.
+        if (value > 0) {
+            int leading_zeros = Long.numberOfLeadingZeros(value);
+            long shifted_value = value << leading_zeros;
+            // Fill in the bits that will be shifted out with 1s. An example where this
+            // helps is trailing one masks with 32 or more ones. This will generate
+            // ADDI -1 and an SRLI.
+            shifted_value |= (1L << leading_zeros) - 1;
+            tmp.clear();
+            GenerateImpl(shifted_value, tmp);
+            tmp.add(Opcode.kSrli, leading_zeros);
+            if (tmp.size() < res.size()) {
+                res.copyFrom(tmp);
+            }
+
+            // Some cases can benefit from filling the lower bits with zeros instead.
+            shifted_value &= -(1L << leading_zeros);
+            tmp.clear();
+            GenerateImpl(shifted_value, tmp);
+            tmp.add(Opcode.kSrli, leading_zeros);
+            if (tmp.size() < res.size()) {
+                res.copyFrom(tmp);
+            }
+
+            // If we have exactly 32 leading zeros and Zba, we can try using
+            // zext.w at the end of the sequence.
+            if (leading_zeros == 32 && zba_) {
+                // Try replacing upper bits with 1.
+                long leading_ones_value = value | 0xffffffff00000000L;
+                tmp.clear();
+                GenerateImpl(leading_ones_value, tmp);
+                tmp.add(Opcode.kAddUw, 0);
+                if (tmp.size() < res.size()) {
+                    res.copyFrom(tmp);
+                }
+            }
+        }
+
+        // Perform optimization with BSETI in the Zbs extension.
+        if (res.size() > 2 && zbs_) {
+            // Create a simm32 value for LUI+ADDIW by forcing the upper 33 bits to zero.
+            // Xor that with original value to get which bits should be set by BSETI.
+            long lo = value & 0x7fffffffL;
+            long hi = value ^ lo;
+            CHECK(hi != 0);
+            tmp.clear();
+            if (lo != 0) {
+                GenerateImpl(lo, tmp);
+            }
+            if (tmp.size() + Long.bitCount(hi) < res.size()) {
+                do {
+                    tmp.add(Opcode.kBseti, Long.numberOfTrailingZeros(hi));
+                    hi &= hi - 1;  // Clear lowest set bit.
+                } while (hi != 0);
+                res.copyFrom(tmp);
+            }
+        }
+
+        // Perform optimization with BCLRI in the Zbs extension.
+        if (res.size() > 2 && zbs_) {
+            // Create a simm32 value for LUI+ADDIW by forcing the upper 33 bits to one.
+            // Xor that with original value to get which bits should be cleared by BCLRI.
+            long lo = value | 0xffffffff80000000L;
+            long hi = value ^ lo;
+            CHECK(hi != 0);
+            tmp.clear();
+            GenerateImpl(lo, tmp);
+            if (tmp.size() + Long.bitCount(hi) < res.size()) {
+                do {
+                    tmp.add(Opcode.kBclri, Long.numberOfTrailingZeros(hi));
+                    hi &= hi - 1;  // Clear lowest set bit.
+                } while (hi != 0);
+                res.copyFrom(tmp);
+            }
+        }
+
+        // Perform optimization with SH*ADD in the Zba extension.
+        if (res.size() > 2 && zba_) {
+            // Select the opcode and divisor.
+            long div = ShNAddDivisor(value);
+            if (div != 0) {
+                tmp.clear();
+                GenerateImpl(value / div, tmp);
+                if ((tmp.size() + 1) < res.size()) {
+                    tmp.add(ShNAddOpcode(div), 0);
+                    res.copyFrom(tmp);
+                }
+            } else {
+                // Try to use LUI+SH*ADD+ADDI.
+                long hi52 = (value + 0x800L) & ~0xfffL;
+                int lo12 = SignExtend12(value);
+                div = ShNAddDivisor(hi52);
+                if (div != 0) {
+                    // Value with zero lo12 (it equals hi52) has already been processed above.
+                    CHECK(lo12 != 0);
+                    tmp.clear();
+                    GenerateImpl(hi52 / div, tmp);
+                    if ((tmp.size() + 2) < res.size()) {
+                        tmp.add(ShNAddOpcode(div), 0);
+                        tmp.add(Opcode.kAddi, lo12);
+                        res.copyFrom(tmp);
+                    }
+                }
+            }
+        }
+
+        // Perform optimization with RORI in the Zbb extension.
+        if (res.size() > 2 && zbb_) {
+            int rotate = ExtractRotateInfo(value);
+            if (rotate != 0) {
+                long neg_imm12 = Long.rotateLeft(value, rotate);
+                CHECK(isLInt(12, neg_imm12));
+                res.clear();
+                res.add(Opcode.kAddi, (int) neg_imm12);
+                res.add(Opcode.kRori, rotate);
+            }
+        }
+
+        return res;
+    }
+
+    private void GenerateImpl(long value, InstSeq res) {
+        // Use BSETI for a single bit that can't be expressed by a single LUI or ADDI.
+        if (zbs_ && Long.bitCount(value) == 1 && (!isLInt(32, value) || value == 0x800)) {
+            res.add(Opcode.kBseti, Long.numberOfTrailingZeros(value));
+            return;
+        }
+
+        if (isLInt(32, value)) {
+            // Depending on the active bits in the immediate value v, the following
+            // instruction sequences are emitted:
+            //
+            // v == 0                        : ADDI
+            // v[0,12) != 0 && v[12,32) == 0 : ADDI
+            // v[0,12) == 0 && v[12,32) != 0 : LUI
+            // v[0,32) != 0                  : LUI+ADDIW
+            int hi20 = (int) ((value + 0x800) >> 12) & 0xfffff;
+            int lo12 = SignExtend12(value);
+
+            if (hi20 != 0) {
+                res.add(Opcode.kLui, hi20);
+            }
+
+            if (lo12 != 0 || hi20 == 0) {
+                res.add(hi20 != 0 ? Opcode.kAddiw : Opcode.kAddi, lo12);
+            }
+            return;
+        }
+
+        // In the worst case, for a full 64-bit constant, a sequence of 8 instructions
+        // (i.e., LUI+ADDIW+SLLI+ADDI+SLLI+ADDI+SLLI+ADDI) has to be emitted. Note that the
+        // first two instructions (LUI+ADDIW) can contribute up to 32 bits while the following
+        // ADDI instructions contribute up to 12 bits each.
+        //
+        // On the first glance, implementing this seems to be possible by simply emitting the
+        // most significant 32 bits (LUI+ADDIW) followed by as many left shift (SLLI) and
+        // immediate additions (ADDI) as needed. However, due to the fact that ADDI performs
+        // a sign extended addition, doing it like that would only be possible when at most
+        // 11 bits of the ADDI instructions are used. Using all 12 bits of the ADDI
+        // instructions, like it is done by GCC, requires that the constant is processed
+        // starting with the least significant bit.
+        //
+        // In the following, constants are processed from LSB to MSB but instruction emission
+        // is performed from MSB to LSB by recursively calling GenerateImpl. In each
+        // recursion, first the lowest 12 bits are removed from the constant and the optimal
+        // shift amount, which can be greater than 12 bits if the constant is sparse, is
+        // determined. Then, the shifted remaining constant is processed recursively and gets
+        // emitted as soon as it fits into 32 bits. The emission of the shifts and additions
+        // is subsequently performed when the recursion returns.
+
+        int lo12 = SignExtend12(value);
+        value -= lo12;
+        int shift_amount = 0;
+        boolean unsigned = false;
+
+        // Value might now be valid for LUI without needing a shift.
+        if (!isLInt(32, value)) {
+            shift_amount = Long.numberOfTrailingZeros(value);
+            value >>= shift_amount;
+
+            // If the remaining bits don't fit in 12 bits, we might be able to reduce
+            // the shift amount in order to use LUI which will zero the lower 12 bits.
+            if (shift_amount > 12 && !isLInt(12, value)) {
+                if (isLInt(32, value << 12)) {
+                    // Reduce the shift amount and add zeros to the LSBs so it will match LUI.
+                    shift_amount -= 12;
+                    value <<= 12;
+                } else if (isLUInt(32, value << 12) && zba_) {
+                    // Reduce the shift amount and add zeros to the LSBs so it will match
+                    // LUI, then shift left with SLLI.UW to clear the upper 32 set bits.
+                    shift_amount -= 12;
+                    value = (value << 12) | 0xffffffff00000000L;
+                    unsigned = true;
+                }
+            }
+
+            // Try to use SLLI.UW for value when it is uint32 but not int32.
+            if (isLUInt(32, value) && !isLInt(32, value) && zba_) {
+                // Use LUI+ADDI or LUI to compose, then clear the upper 32 bits with SLLI.UW.
+                value |= 0xffffffff00000000L;
+                unsigned = true;
+            }
+        }
+
+        GenerateImpl(value, res);
+
+        // Skip shift if we were able to use LUI directly.
+        if (shift_amount != 0) {
+            res.add(unsigned ? Opcode.kSlliUw : Opcode.kSlli, shift_amount);
+        }
+
+        if (lo12 != 0) {
+            res.add(Opcode.kAddi, lo12);
+        }
+    }
+
+    private static int SignExtend12(long value) {
+        return (int) (value << 52 >> 52);
+    }
+
+    private static long ShNAddDivisor(long value) {
+        if (value % 3 == 0 && isLInt(32, value / 3)) {
+            return 3;
+        } else if (value % 5 == 0 && isLInt(32, value / 5)) {
+            return 5;
+        } else if (value % 9 == 0 && isLInt(32, value / 9)) {
+            return 9;
+        }
+        return 0;
+    }
+
+    private static Opcode ShNAddOpcode(long div) {
+        return div == 3 ? Opcode.kSh1Add : div == 5 ? Opcode.kSh2Add : Opcode.kSh3Add;
+    }
+
+    // Returns the rotate amount for which `value` rotated left becomes a simm12,
+    // or 0 if there is no such amount.
+    private static int ExtractRotateInfo(long value) {
+        // for case: 0b111..1..xxxxxx1..1..
+        int leading_ones = Long.numberOfLeadingZeros(~value);
+        int trailing_ones = Long.numberOfTrailingZeros(~value);
+        if (trailing_ones > 0 && trailing_ones < 64 &&
+                (leading_ones + trailing_ones) > (64 - 12)) {
+            return 64 - trailing_ones;
+        }
+
+        // for case: 0bxxx1..1..1...xxx
+        int upper_trailing_ones = Integer.numberOfTrailingZeros(~(int) (value >>> 32));
+        int lower_leading_ones = Integer.numberOfLeadingZeros(~(int) value);
+        if (upper_trailing_ones < 32 &&
+                (upper_trailing_ones + lower_leading_ones) > (64 - 12)) {
+            return 32 - upper_trailing_ones;
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.v7878.jnasm.riscv64;
+
+// Latencies and issue width of a RISC-V core used by the instruction scheduler, see
+// RV64Assembler.setSchedulingModel(). The values are approximations of the result
+// latencies in cycles as seen by a dependent instruction, not exact pipeline models.
+public enum RV64SchedulingModel {
+    // A single-issue in-order pipeline with typical latencies.
+    kGenericInOrder(1, 1, 3, 3, 20, 4, 20, 2, 4),
+    // T-Head C906: single-issue in-order, 3-cycle loads, slow multiplies.
+    kC906(1, 1, 3, 4, 20, 5, 17, 3, 4),
+    // SiFive U74: dual-issue in-order, 3-cycle loads, 5-cycle FPU.
+    kU74(2, 1, 3, 3, 20, 5, 20, 2, 4);
+
+    private final int issue_width;
+    private final int alu_latency;
+    private final int load_latency;
+    private final int mul_latency;
+    private final int div_latency;
+    private final int fp_latency;
+    private final int fp_div_latency;
+    private final int fp_move_latency;
+    private final int vector_latency;
+
+    RV64SchedulingModel(int issue_width, int alu_latency, int load_latency,
+                        int mul_latency, int div_latency, int fp_latency,
+                        int fp_div_latency, int fp_move_latency, int vector_latency) {
+        this.issue_width = issue_width;
+        this.alu_latency = alu_latency;
+        this.load_latency = load_latency;
+        this.mul_latency = mul_latency;
+        this.div_latency = div_latency;
+        this.fp_latency = fp_latency;
+        this.fp_div_latency = fp_div_latency;
+        this.fp_move_latency = fp_move_latency;
+        this.vector_latency = vector_latency;
+    }
+
+    // Instructions that may start in the same cycle.
+    public int issueWidth() {
+        return issue_width;
+    }
+
+    // Integer, bit-manipulation and other single-cycle operations.
+    public int aluLatency() {
+        return alu_latency;
+    }
+
+    // Integer and floating-point loads, until the loaded value can be used.
+    public int loadLatency() {
+        return load_latency;
+    }
+
+    // Integer and carry-less multiplication.
+    public int mulLatency() {
+        return mul_latency;
+    }
+
+    // Integer division and remainder.
+    public int divLatency() {
+        return div_latency;
+    }
+
+    // Floating-point arithmetic, fused multiply-add and conversions.
+    public int fpLatency() {
+        return fp_latency;
+    }
+
+    // Floating-point division and square root.
+    public int fpDivLatency() {
+        return fp_div_latency;
+    }
+
+    // Floating-point sign injection, min/max, comparisons, classification and moves.
+    public int fpMoveLatency() {
+        return fp_move_latency;
+    }
+
+    // Vector instructions producing a scalar result, such as vmv.x.s or vfirst.m.
+    public int vectorLatency() {
+        return vector_latency;
+    }
+}
@@ -0,0 +1,140 @@
+package com.v7878.jnasm.riscv64;
+
+import static com.v7878.jnasm.riscv64.RV64XRegister.Zero;
+
+// Tracks the vector configuration (vtype and the AVL that produced vl) established by
+// the last VSetvli/VSetivli in straight-line code, so that identical reconfigurations
+// can be skipped. The state is only trusted while no label, call or unknown vtype/vl
+// change happened since it was recorded.
+final class RV64VectorConfigTracker {
+    private static final int kUnknownVType = -1;
+
+    private enum AvlKind {
+        kUnknown,
+        kImmediate,  // vsetivli with uimm5
+        kRegister,   // vsetvli with rs1 != Zero, valid while rs1 is not written
+        kVlmax       // vsetvli with rd != Zero and rs1 == Zero
+    }
+
+    private int vtype_ = kUnknownVType;
+    private AvlKind avl_kind_ = AvlKind.kUnknown;
+    private int avl_;  // Immediate value or register index.
+
+    // Forgets everything, e.g. at labels, calls and explicit barriers.
+    public void Invalidate() {
+        vtype_ = kUnknownVType;
+        avl_kind_ = AvlKind.kUnknown;
+    }
+
+    // The SEW in bits of the tracked vtype, or 0 if it is unknown.
+    public int GetSew() {
+        return vtype_ == kUnknownVType ? 0 : 8 << ((vtype_ >> 3) & 0x7);
+    }
+
+    // vl may have changed while vtype is preserved (fault-only-first loads).
+    private void InvalidateAvl() {
+        avl_kind_ = AvlKind.kUnknown;
+    }
+
+    // Called for every instruction that may write the register `reg`.
+    public void OnRegisterWrite(RV64XRegister reg) {
+        OnRegisterWrite(reg.index());
+    }
+
+    private void OnRegisterWrite(int reg) {
+        if (avl_kind_ == AvlKind.kRegister && avl_ == reg) {
+            InvalidateAvl();
+        }
+    }
+
+    public boolean IsRedundantVSetvli(RV64XRegister rd, RV64XRegister rs1, int vtypei) {
+        if (rd != Zero || vtype_ == kUnknownVType || vtype_ != vtypei) {
+            return false;
+        }
+        if (rs1 == Zero) {
+            // Keeps vl and sets the very same vtype.
+            return true;
+        }
+        return avl_kind_ == AvlKind.kRegister && avl_ == rs1.index();
+    }
+
+    public boolean IsRedundantVSetivli(RV64XRegister rd, int uimm, int vtypei) {
+        return rd == Zero && vtype_ != kUnknownVType && vtype_ == vtypei &&
+                avl_kind_ == AvlKind.kImmediate && avl_ == uimm;
+    }
+
+    public void OnVSetvli(RV64XRegister rd, RV64XRegister rs1, int vtypei) {
+        vtype_ = vtypei;
+        if (rs1 == Zero) {
+            if (rd != Zero) {
+                avl_kind_ = AvlKind.kVlmax;
+            }
+            // Otherwise vl is kept and so is the AVL that produced it.
+        } else if (rd == rs1) {
+            // The AVL register now holds the new vl.
+            InvalidateAvl();
+        } else {
+            avl_kind_ = AvlKind.kRegister;
+            avl_ = rs1.index();
+        }
+    }
+
+    public void OnVSetivli(int uimm, int vtypei) {
+        vtype_ = vtypei;
+        avl_kind_ = AvlKind.kImmediate;
+        avl_ = uimm;
+    }
+
+    // Conservatively accounts for the effects of an arbitrary compressed instruction.
+    public void OnInstruction16(int encoding) {
+        if ((encoding & 0xf07f) == 0x9002) {
+            // c.jalr or c.ebreak.
+            Invalidate();
+            return;
+        }
+        // Any of the destination register fields of the compressed formats.
+        OnRegisterWrite((encoding >> 7) & 0x1f);
+        OnRegisterWrite(8 + ((encoding >> 7) & 0x7));
+        OnRegisterWrite(8 + ((encoding >> 2) & 0x7));
+    }
+
+    // Conservatively accounts for the effects of an arbitrary 32-bit instruction.
+    public void OnInstruction32(int encoding) {
+        int opcode = encoding & 0x7f;
+        int rd = (encoding >> 7) & 0x1f;
+        int funct3 = (encoding >> 12) & 0x7;
+        switch (opcode) {
+            case 0x57:
+                if (funct3 == 0x7) {
+                    // VSetvli, VSetivli and VSetvl update the state themselves.
+                    return;
+                }
+                break;
+            case 0x07:
+                // Vector unit-stride fault-only-first loads may shrink vl.
+                boolean is_vector = funct3 == 0x0 || funct3 >= 0x5;
+                boolean is_unit_stride = ((encoding >> 26) & 0x3) == 0;
+                boolean is_fault_only_first = ((encoding >> 20) & 0x1f) == 0x10;
+                if (is_vector && is_unit_stride && is_fault_only_first) {
+                    InvalidateAvl();
+                }
+                break;
+            case 0x6f:
+            case 0x67:
+                if (rd != 0) {
+                    // Calls may change the configuration.
+                    Invalidate();
+                    return;
+                }
+                break;
+            case 0x73:
+                if (funct3 == 0x0) {
+                    // Ecall, ebreak and other environment instructions.
+                    Invalidate();
+                    return;
+                }
+                break;
+        }
+        OnRegisterWrite(rd);
+    }
+}
@@ -0,0 +1,479 @@
+package com.v7878.jnasm.riscv64;
+
+import static com.v7878.jnasm.Utils.CHECK;
+import static com.v7878.jnasm.riscv64.RV64FRegister.FA0;
+import static com.v7878.jnasm.riscv64.RV64FRegister.FT0;
+import static com.v7878.jnasm.riscv64.RV64VRegister.V0;
+import static com.v7878.jnasm.riscv64.RV64VRegister.V16;
+import static com.v7878.jnasm.riscv64.RV64VRegister.V24;
+import static com.v7878.jnasm.riscv64.RV64VRegister.V8;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A0;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A1;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A2;
+import static com.v7878.jnasm.riscv64.RV64XRegister.A3;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T0;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T1;
+import static com.v7878.jnasm.riscv64.RV64XRegister.T2;
+import static com.v7878.jnasm.riscv64.RV64XRegister.Zero;
+
+// Emits vector-length-agnostic leaf functions for common memory and arithmetic
+// kernels with the "V" extension. Every loop is strip-mined with vsetvli, so the
+// last iteration handles the tail with a shorter vl instead of a scalar epilogue,
+// and the code runs unchanged on any VLEN.
+//
+// Vector operands use the register groups starting at v8, v16 and v24, which are
+// aligned for any LMUL, v0 is used for masks and scalar reduction operands.
+// All functions clobber v0, v8-v31, t0-t2, ft0 and their argument registers.
+public final class RV64VectorKernels {
+    public enum ElementType {
+        kInt8(RV64SelectedElementWidth.kE8, false, false),
+        kInt16(RV64SelectedElementWidth.kE16, false, false),
+        kInt32(RV64SelectedElementWidth.kE32, false, false),
+        kInt64(RV64SelectedElementWidth.kE64, false, false),
+        kUint8(RV64SelectedElementWidth.kE8, true, false),
+        kUint16(RV64SelectedElementWidth.kE16, true, false),
+        kUint32(RV64SelectedElementWidth.kE32, true, false),
+        kUint64(RV64SelectedElementWidth.kE64, true, false),
+        kFloat32(RV64SelectedElementWidth.kE32, false, true),
+        kFloat64(RV64SelectedElementWidth.kE64, false, true);
+
+        private final RV64SelectedElementWidth sew;
+        private final boolean is_unsigned;
+        private final boolean is_float;
+
+        ElementType(RV64SelectedElementWidth sew, boolean is_unsigned, boolean is_float) {
+            this.sew = sew;
+            this.is_unsigned = is_unsigned;
+            this.is_float = is_float;
+        }
+
+        public RV64SelectedElementWidth sew() {
+            return sew;
+        }
+
+        public boolean isUnsigned() {
+            return is_unsigned;
+        }
+
+        public boolean isFloat() {
+            return is_float;
+        }
+
+        // log2 of the element size in bytes.
+        public int sizeShift() {
+            return sew.value();
+        }
+
+        public int bits() {
+            return 8 << sizeShift();
+        }
+    }
+
+    // The "V" extension requires ELEN = 64.
+    private static final int kELen = 64;
+
+    // The "vl" CSR, read after fault-only-first loads.
+    private static final int kVlCsr = 0xc20;
+
+    private enum Reduction {
+        kSum,
+        kMin,
+        kMax
+    }
+
+    private RV64VectorKernels() {
+    }
+
+    private static int VType(RV64SelectedElementWidth sew, RV64LengthMultiplier lmul,
+                             RV64VectorTailAgnostic vta) {
+        CHECK(lmul != RV64LengthMultiplier.kReserved1);
+        // Fractional LMUL requires SEW <= ELEN * LMUL, otherwise vsetvli sets vill
+        // and the first vector instruction traps.
+        int lmul_shift = lmul.value() > 4 ? 8 - lmul.value() : 0;
+        CHECK((8 << sew.value()) <= (kELen >> lmul_shift));
+        return RV64AssemblerI.VTypeiValue(RV64VectorMaskAgnostic.kAgnostic, vta, sew, lmul);
+    }
+
+    private static int VType(RV64SelectedElementWidth sew, RV64LengthMultiplier lmul) {
+        return VType(sew, lmul, RV64VectorTailAgnostic.kAgnostic);
+    }
+
+    // ptr += count << shift, clobbers T1.
+    private static void AdvancePointer(RV64Assembler assembler, RV64XRegister ptr,
+                                       RV64XRegister count, int shift) {
+        if (shift == 0) {
+            assembler.Add(ptr, ptr, count);
+        } else {
+            assembler.Slli(T1, count, shift);
+            assembler.Add(ptr, ptr, T1);
+        }
+    }
+
+    private static void VLoad(RV64Assembler assembler, ElementType type,
+                              RV64VRegister vd, RV64XRegister rs1) {
+        switch (type.sew()) {
+            case kE8 -> assembler.VLe8(vd, rs1, RV64VM.kUnmasked);
+            case kE16 -> assembler.VLe16(vd, rs1, RV64VM.kUnmasked);
+            case kE32 -> assembler.VLe32(vd, rs1, RV64VM.kUnmasked);
+            default -> assembler.VLe64(vd, rs1, RV64VM.kUnmasked);
+        }
+    }
+
+    private static void VStore(RV64Assembler assembler, ElementType type,
+                               RV64VRegister vs3, RV64XRegister rs1) {
+        switch (type.sew()) {
+            case kE8 -> assembler.VSe8(vs3, rs1, RV64VM.kUnmasked);
+            case kE16 -> assembler.VSe16(vs3, rs1, RV64VM.kUnmasked);
+            case kE32 -> assembler.VSe32(vs3, rs1, RV64VM.kUnmasked);
+            default -> assembler.VSe64(vs3, rs1, RV64VM.kUnmasked);
+        }
+    }
+
+    // Brings a SEW-wide integer result returned by vmv.x.s (sign-extended) to the ABI form.
+    private static void ExtendResult(RV64Assembler assembler, ElementType type, RV64XRegister rd) {
+        if (!type.isUnsigned()) {
+            return;
+        }
+        switch (type.sew()) {
+            case kE8 -> assembler.ZextB(rd, rd);
+            case kE16 -> assembler.ZextH(rd, rd);
+            default -> {
+                // 32-bit values are kept sign-extended by the ABI, 64-bit ones need nothing.
+            }
+        }
+    }
+
+    // The raw bits of the identity element of `op` for `type`.
+    private static long IdentityBits(ElementType type, Reduction op) {
+        if (type.isFloat()) {
+            boolean single = type.sew() == RV64SelectedElementWidth.kE32;
+            double value = switch (op) {
+                case kSum -> 0.0;
+                case kMin -> Double.POSITIVE_INFINITY;
+                case kMax -> Double.NEGATIVE_INFINITY;
+            };
+            return single ? Float.floatToRawIntBits((float) value) & 0xffffffffL
+                    : Double.doubleToRawLongBits(value);
+        }
+        int bits = type.bits();
+        return switch (op) {
+            case kSum -> 0;
+            // Only the low SEW bits are used by vmv.v.x and vmv.s.x.
+            case kMin -> type.isUnsigned() ? -1L : (-1L >>> (65 - bits));
+            case kMax -> type.isUnsigned() ? 0L : (-1L << (bits - 1));
+        };
+    }
+
+    // Splats (`splat` == true) or moves to element 0 the identity of `op`, clobbers T1 and FT0.
+    private static void LoadIdentity(RV64Assembler assembler, ElementType type,
+                                     Reduction op, RV64VRegister vd, boolean splat) {
+        long bits = IdentityBits(type, op);
+        if (!type.isFloat()) {
+            assembler.Li(T1, bits);
+            if (splat) {
+                assembler.VMv_vx(vd, T1);
+            } else {
+                assembler.VMv_s_x(vd, T1);
+            }
+            return;
+        }
+        assembler.Li(T1, bits);
+        if (type.sew() == RV64SelectedElementWidth.kE32) {
+            assembler.FMvWX(FT0, T1);
+        } else {
+            assembler.FMvDX(FT0, T1);
+        }
+        if (splat) {
+            assembler.VFmv_v_f(vd, FT0);
+        } else {
+            assembler.VFmv_s_f(vd, FT0);
+        }
+    }
+
+    private static void MoveResult(RV64Assembler assembler, ElementType type, RV64VRegister vs) {
+        if (type.isFloat()) {
+            assembler.VFmv_f_s(FA0, vs);
+        } else {
+            assembler.VMv_x_s(A0, vs);
+            ExtendResult(assembler, type, A0);
+        }
+    }
+
+    // void* memcpy(void* dst = a0, const void* src = a1, size_t n = a2), returns dst.
+    public static void Memcpy(RV64Assembler assembler, RV64LengthMultiplier lmul) {
+        final int vtype = VType(RV64SelectedElementWidth.kE8, lmul);
+        RV64Label loop = new RV64Label();
+        RV64Label done = new RV64Label();
+
+        assembler.Mv(A3, A0);
+        assembler.Beqz(A2, done, false);
+        assembler.bind(loop);
+        assembler.VSetvli(T0, A2, vtype);
+        assembler.VLe8(V8, A1, RV64VM.kUnmasked);
+        assembler.Sub(A2, A2, T0);
+        assembler.Add(A1, A1, T0);
+        assembler.VSe8(V8, A3, RV64VM.kUnmasked);
+        assembler.Add(A3, A3, T0);
+        assembler.Bnez(A2, loop, false);
+        assembler.bind(done);
+        assembler.Ret();
+    }
+
+    // void* memset(void* dst = a0, int c = a1, size_t n = a2), returns dst.
+    public static void Memset(RV64Assembler assembler, RV64LengthMultiplier lmul) {
+        final int vtype = VType(RV64SelectedElementWidth.kE8, lmul);
+        RV64Label loop = new RV64Label();
+        RV64Label done = new RV64Label();
+
+        assembler.Mv(A3, A0);
+        assembler.Beqz(A2, done, false);
+        // The splat covers VLMAX elements, so later iterations with a shorter vl
+        // (only the last one) still store the fill value.
+        assembler.VSetvli(T0, Zero, vtype);
+        assembler.VMv_vx(V8, A1);
+        assembler.bind(loop);
+        assembler.VSetvli(T0, A2, vtype);
+        assembler.VSe8(V8, A3, RV64VM.kUnmasked);
+        assembler.Sub(A2, A2, T0);
+        assembler.Add(A3, A3, T0);
+        assembler.Bnez(A2, loop, false);
+        assembler.bind(done);
+        assembler.Ret();
+    }
+
+    // void* memchr(const void* s = a0, int c = a1, size_t n = a2).
+    // Fault-only-first loads keep the search from faulting on pages after the match.
+    public static void Memchr(RV64Assembler assembler, RV64LengthMultiplier lmul) {
+        final int vtype = VType(RV64SelectedElementWidth.kE8, lmul);
+        RV64Label loop = new RV64Label();
+        RV64Label found = new RV64Label();
+
+        assembler.bind(loop);
+        assembler.VSetvli(Zero, A2, vtype);
+        assembler.VLe8ff(V8, A0);
+        assembler.Csrr(T0, kVlCsr);
+        assembler.VMseq_vx(V0, V8, A1, RV64VM.kUnmasked);
+        assembler.VFirst_m(T1, V0, RV64VM.kUnmasked);
+        assembler.Bgez(T1, found, false);
+        assembler.Add(A0, A0, T0);
+        assembler.Sub(A2, A2, T0);
+        assembler.Bnez(A2, loop, false);
+        assembler.Mv(A0, Zero);
+        assembler.Ret();
+        assembler.bind(found);
+        assembler.Add(A0, A0, T1);
+        assembler.Ret();
+    }
+
+    // size_t strlen(const char* s = a0).
+    public static void Strlen(RV64Assembler assembler, RV64LengthMultiplier lmul) {
+        final int vtype = VType(RV64SelectedElementWidth.kE8, lmul);
+        RV64Label loop = new RV64Label();
+
+        assembler.Mv(A1, A0);
+        assembler.bind(loop);
+        // vl is reset to VLMAX every iteration, as the load may have shrunk it.
+        assembler.VSetvli(T0, Zero, vtype);
+        assembler.VLe8ff(V8, A1);
+        assembler.Csrr(T0, kVlCsr);
+        assembler.VMseq_vi(V0, V8, 0, RV64VM.kUnmasked);
+        assembler.VFirst_m(T1, V0, RV64VM.kUnmasked);
+        assembler.Add(A1, A1, T0);
+        assembler.Bltz(T1, loop, false);
+        // The terminator is at a1 - vl + index.
+        assembler.Sub(A1, A1, T0);
+        assembler.Add(A1, A1, T1);
+        assembler.Sub(A0, A1, A0);
+        assembler.Ret();
+    }
+
+    // int memcmp(const void* s1 = a0, const void* s2 = a1, size_t n = a2).
+    // Returns the difference of the first mismatching bytes as unsigned values, or 0.
+    public static void Memcmp(RV64Assembler assembler, RV64LengthMultiplier lmul) {
+        final int vtype = VType(RV64SelectedElementWidth.kE8, lmul);
+        RV64Label loop = new RV64Label();
+        RV64Label differ = new RV64Label();
+        RV64Label equal = new RV64Label();
+
+        assembler.Beqz(A2, equal, false);
+        assembler.bind(loop);
+        assembler.VSetvli(T0, A2, vtype);
+        assembler.VLe8(V8, A0, RV64VM.kUnmasked);
+        assembler.VLe8(V16, A1, RV64VM.kUnmasked);
+        assembler.VMsne_vv(V0, V8, V16, RV64VM.kUnmasked);
+        assembler.VFirst_m(T1, V0, RV64VM.kUnmasked);
+        assembler.Bgez(T1, differ, false);
+        assembler.Add(A0, A0, T0);
+        assembler.Add(A1, A1, T0);
+        assembler.Sub(A2, A2, T0);
+        assembler.Bnez(A2, loop, false);
+        assembler.bind(equal);
+        assembler.Mv(A0, Zero);
+        assembler.Ret();
+        assembler.bind(differ);
+        assembler.Add(A0, A0, T1);
+        assembler.Add(A1, A1, T1);
+        assembler.Lbu(T0, A0, 0);
+        assembler.Lbu(T2, A1, 0);
+        assembler.Sub(A0, T0, T2);
+        assembler.Ret();
+    }
+
+    // Partial results are accumulated element-wise in v16 with a tail-undisturbed
+    // policy, so the shorter last iteration keeps the lanes beyond vl, and are
+    // reduced once after the loop.
+    private static void Reduce(RV64Assembler assembler, ElementType type,
+                               RV64LengthMultiplier lmul, Reduction op) {
+        final RV64SelectedElementWidth sew = type.sew();
+        final int vtype_ta = VType(sew, lmul);
+        final int vtype_tu = VType(sew, lmul, RV64VectorTailAgnostic.kUndisturbed);
+        RV64Label loop = new RV64Label();
+        RV64Label done = new RV64Label();
+
+        assembler.VSetvli(T0, Zero, vtype_ta);
+        LoadIdentity(assembler, type, op, V16, true);
+        assembler.Beqz(A1, done, false);
+        assembler.bind(loop);
+        assembler.VSetvli(T0, A1, vtype_tu);
+        VLoad(assembler, type, V8, A0);
+        assembler.Sub(A1, A1, T0);
+        AdvancePointer(assembler, A0, T0, type.sizeShift());
+        if (type.isFloat()) {
+            switch (op) {
+                case kSum -> assembler.VFadd_vv(V16, V16, V8, RV64VM.kUnmasked);
+                case kMin -> assembler.VFmin_vv(V16, V16, V8, RV64VM.kUnmasked);
+                case kMax -> assembler.VFmax_vv(V16, V16, V8, RV64VM.kUnmasked);
+            }
+        } else if (op == Reduction.kSum) {
+            assembler.VAdd_vv(V16, V16, V8, RV64VM.kUnmasked);
+        } else if (op == Reduction.kMin) {
+            if (type.isUnsigned()) {
+                assembler.VMinu_vv(V16, V16, V8, RV64VM.kUnmasked);
+            } else {
+                assembler.VMin_vv(V16, V16, V8, RV64VM.kUnmasked);
+            }
+        } else {
+            if (type.isUnsigned()) {
+                assembler.VMaxu_vv(V16, V16, V8, RV64VM.kUnmasked);
+            } else {
+                assembler.VMax_vv(V16, V16, V8, RV64VM.kUnmasked);
+            }
+        }
+        assembler.Bnez(A1, loop, false);
+
+        assembler.bind(done);
+        assembler.VSetvli(T0, Zero, vtype_ta);
+        LoadIdentity(assembler, type, op, V0, false);
+        if (type.isFloat()) {
+            switch (op) {
+                case kSum -> assembler.VFredusum_vs(V0, V16, V0, RV64VM.kUnmasked);
+                case kMin -> assembler.VFredmin_vs(V0, V16, V0, RV64VM.kUnmasked);
+                case kMax -> assembler.VFredmax_vs(V0, V16, V0, RV64VM.kUnmasked);
+            }
+        } else if (op == Reduction.kSum) {
+            assembler.VRedsum_vs(V0, V16, V0, RV64VM.kUnmasked);
+        } else if (op == Reduction.kMin) {
+            if (type.isUnsigned()) {
+                assembler.VRedminu_vs(V0, V16, V0, RV64VM.kUnmasked);
+            } else {
+                assembler.VRedmin_vs(V0, V16, V0, RV64VM.kUnmasked);
+            }
+        } else {
+            if (type.isUnsigned()) {
+                assembler.VRedmaxu_vs(V0, V16, V0, RV64VM.kUnmasked);
+            } else {
+                assembler.VRedmax_vs(V0, V16, V0, RV64VM.kUnmasked);
+            }
+        }
+        MoveResult(assembler, type, V0);
+        assembler.Ret();
+    }
+
+    // T sum(const T* x = a0, size_t n = a1), the result is returned in a0 or fa0.
+    // Integer sums wrap around, floating-point sums are computed in an unspecified order.
+    public static void Sum(RV64Assembler assembler, ElementType type, RV64LengthMultiplier lmul) {
+        Reduce(assembler, type, lmul, Reduction.kSum);
+    }
+
+    // T min(const T* x = a0, size_t n = a1), the result is returned in a0 or fa0.
+    // Returns the maximum value of the type (+inf for floats) if n is 0. NaNs are
+    // ignored, so +inf is also returned if all elements are NaN.
+    public static void Min(RV64Assembler assembler, ElementType type, RV64LengthMultiplier lmul) {
+        Reduce(assembler, type, lmul, Reduction.kMin);
+    }
+
+    // T max(const T* x = a0, size_t n = a1), the result is returned in a0 or fa0.
+    // Returns the minimum value of the type (-inf for floats) if n is 0. NaNs are
+    // ignored, so -inf is also returned if all elements are NaN.
+    public static void Max(RV64Assembler assembler, ElementType type, RV64LengthMultiplier lmul) {
+        Reduce(assembler, type, lmul, Reduction.kMax);
+    }
+
+    // void axpy(size_t n = a0, T alpha, const T* x, T* y), computes y[i] += alpha * x[i].
+    // A floating-point alpha is passed in fa0 with x = a1 and y = a2, an integer one
+    // in a1 with x = a2 and y = a3, as the C calling convention assigns them.
+    public static void Axpy(RV64Assembler assembler, ElementType type, RV64LengthMultiplier lmul) {
+        final int vtype = VType(type.sew(), lmul);
+        final RV64XRegister x = type.isFloat() ? A1 : A2;
+        final RV64XRegister y = type.isFloat() ? A2 : A3;
+        RV64Label loop = new RV64Label();
+        RV64Label done = new RV64Label();
+
+        assembler.Beqz(A0, done, false);
+        assembler.bind(loop);
+        assembler.VSetvli(T0, A0, vtype);
+        VLoad(assembler, type, V8, x);
+        VLoad(assembler, type, V16, y);
+        if (type.isFloat()) {
+            assembler.VFmacc_vf(V16, FA0, V8, RV64VM.kUnmasked);
+        } else {
+            assembler.VMacc_vx(V16, A1, V8, RV64VM.kUnmasked);
+        }
+        VStore(assembler, type, V16, y);
+        assembler.Sub(A0, A0, T0);
+        AdvancePointer(assembler, x, T0, type.sizeShift());
+        AdvancePointer(assembler, y, T0, type.sizeShift());
+        assembler.Bnez(A0, loop, false);
+        assembler.bind(done);
+        assembler.Ret();
+    }
+
+    // T dot(size_t n = a0, const T* x = a1, const T* y = a2), the result is returned
+    // in a0 or fa0. Integer products wrap around at the element width, floating-point
+    // products are accumulated in an unspecified order.
+    public static void Dot(RV64Assembler assembler, ElementType type, RV64LengthMultiplier lmul) {
+        final RV64SelectedElementWidth sew = type.sew();
+        final int vtype_ta = VType(sew, lmul);
+        final int vtype_tu = VType(sew, lmul, RV64VectorTailAgnostic.kUndisturbed);
+        RV64Label loop = new RV64Label();
+        RV64Label done = new RV64Label();
+
+        assembler.VSetvli(T0, Zero, vtype_ta);
+        LoadIdentity(assembler, type, Reduction.kSum, V24, true);
+        assembler.Beqz(A0, done, false);
+        assembler.bind(loop);
+        assembler.VSetvli(T0, A0, vtype_tu);
+        VLoad(assembler, type, V8, A1);
+        VLoad(assembler, type, V16, A2);
+        if (type.isFloat()) {
+            assembler.VFmacc_vv(V24, V8, V16, RV64VM.kUnmasked);
+        } else {
+            assembler.VMacc_vv(V24, V8, V16, RV64VM.kUnmasked);
+        }
+        assembler.Sub(A0, A0, T0);
+        AdvancePointer(assembler, A1, T0, type.sizeShift());
+        AdvancePointer(assembler, A2, T0, type.sizeShift());
+        assembler.Bnez(A0, loop, false);
+
+        assembler.bind(done);
+        assembler.VSetvli(T0, Zero, vtype_ta);
+        LoadIdentity(assembler, type, Reduction.kSum, V0, false);
+        if (type.isFloat()) {
+            assembler.VFredusum_vs(V0, V24, V0, RV64VM.kUnmasked);
+        } else {
+            assembler.VRedsum_vs(V0, V24, V0, RV64VM.kUnmasked);
+        }
+        MoveResult(assembler, type, V0);
+        assembler.Ret();
+    }
+}
@@ -1,6 +1,8 @@
 package com.v7878.jnasm.x86;
 
-public enum X86CpuRegister {
+import com.v7878.jnasm.common_x86.X86CommonCpuRegister;
+
+public enum X86CpuRegister implements X86CommonCpuRegister {
     EAX(0),
     ECX(1),
     EDX(2),
@@ -23,6 +25,7 @@ public enum X86CpuRegister {
         return values()[index];
     }
 
+    @Override
     public int index() {
         return value;
     }
@@ -1,20 +1,30 @@
 package com.v7878.jnasm.x86;
 
 import com.v7878.jnasm.Utils;
+import com.v7878.jnasm.common_x86.X86CommonImmediate;
 
-public record X86Immediate(int value) {
+public record X86Immediate(int value) implements X86CommonImmediate {
+    @Override
+    public long longValue() {
+        return value;
+    }
+
+    @Override
     public boolean isInt8() {
         return Utils.isInt(8, value);
     }
 
+    @Override
     public boolean isUInt8() {
         return Utils.isUInt(8, value);
     }
 
+    @Override
     public boolean isInt16() {
         return Utils.isInt(16, value);
     }
 
+    @Override
     public boolean isUInt16() {
         return Utils.isUInt(16, value);
     }
@@ -3,20 +3,11 @@ package com.v7878.jnasm.x86;
 import static com.v7878.jnasm.x86.X86CpuRegister.EBP;
 import static com.v7878.jnasm.x86.X86CpuRegister.ESP;
 
-import com.v7878.jnasm.AssemblerFixup;
 import com.v7878.jnasm.ScaleFactor;
+import com.v7878.jnasm.common_x86.X86CommonOperand;
 
-import java.util.Objects;
-
-public class X86Operand {
-    protected int length;
-    protected AssemblerFixup fixup;
-    protected final byte[] encoding;
-
+public class X86Operand extends X86CommonOperand {
     protected X86Operand() {
-        this.length = 0;
-        this.fixup = null;
-        this.encoding = new byte[6];
     }
 
     X86Operand(X86CpuRegister reg) {
@@ -24,16 +15,8 @@ public class X86Operand {
         setModRM(3, reg);
     }
 
-    public void setFixup(AssemblerFixup fixup) {
-        this.fixup = fixup;
-    }
-
-    public AssemblerFixup getFixup() {
-        return fixup;
-    }
-
-    int mod() {
-        return (encodingAt(0) >> 6) & 3;
+    int length() {
+        return length;
     }
 
     X86CpuRegister rm() {
@@ -64,31 +47,12 @@ public class X86Operand {
         };
     }
 
-    byte disp8() {
-        assert length >= 2;
-        return encodingAt(length - 1);
-    }
-
-    int disp32() {
-        assert length >= 5;
-        // little-endian
-        return (encodingAt(length - 1) & 0xff) << 24 |
-                (encodingAt(length - 2) & 0xff) << 16 |
-                (encodingAt(length - 3) & 0xff) << 8 |
-                (encodingAt(length - 4) & 0xff);
-    }
-
     @SuppressWarnings("SameParameterValue")
     boolean isRegister(X86CpuRegister reg) {
         return (encodingAt(0) & 0xF8) == 0xC0 &&  // Addressing mode is register only.
                 (encodingAt(0) & 0x07) == reg.index(); // X86CpuRegister codes match.
     }
 
-    protected byte encodingAt(int index) {
-        Objects.checkIndex(index, length);
-        return encoding[index];
-    }
-
     protected void setModRM(int mod_in, X86CpuRegister rm) {
         assert (mod_in & ~3) == 0;
         encoding[0] = (byte) ((mod_in << 6) | rm.index());
@@ -101,18 +65,4 @@ public class X86Operand {
                 (index.index() << 3) | base.index());
         length = 2;
     }
-
-    protected void setDisp8(byte disp) {
-        assert length == 1 || length == 2;
-        encoding[length++] = disp;
-    }
-
-    protected void setDisp32(int disp) {
-        assert length == 1 || length == 2;
-        // little-endian
-        encoding[length++] = (byte) disp;
-        encoding[length++] = (byte) (disp >> 8);
-        encoding[length++] = (byte) (disp >> 16);
-        encoding[length++] = (byte) (disp >> 24);
-    }
-}
\ No newline at end of file
+}
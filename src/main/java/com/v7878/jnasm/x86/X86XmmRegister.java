@@ -1,6 +1,8 @@
 package com.v7878.jnasm.x86;
 
-public enum X86XmmRegister {
+import com.v7878.jnasm.common_x86.X86CommonXmmRegister;
+
+public enum X86XmmRegister implements X86CommonXmmRegister {
     XMM0(0),
     XMM1(1),
     XMM2(2),
@@ -22,6 +24,7 @@ public enum X86XmmRegister {
         return values()[index];
     }
 
+    @Override
     public int index() {
         return value;
     }
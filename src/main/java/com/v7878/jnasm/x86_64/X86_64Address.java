@@ -132,6 +132,18 @@ public class X86_64Address extends X86_64Operand {
         return newAddr;
     }
 
+    // Returns true if the register is used as the base or the index of the address.
+    boolean usesRegister(X86_64CpuRegister reg) {
+        assert mod() != 3;
+        if (lowRM() == RSP) {
+            // Index RSP means no index, base RBP with mod 00b means no base.
+            boolean has_base = mod() != 0 || lowBase() != RBP;
+            return (index() != RSP && index() == reg) || (has_base && base() == reg);
+        }
+        // RBP with mod 00b means RIP-relative addressing, there is no base.
+        return (mod() != 0 || lowRM() != RBP) && rm() == reg;
+    }
+
     @Override
     public String toString() {
         return switch (mod()) {
@@ -1,6 +1,6 @@
 package com.v7878.jnasm.x86_64;
 
-import com.v7878.jnasm.Label;
+import com.v7878.jnasm.common_x86.X86CommonAssemblerI;
 import com.v7878.jnasm.common_x86.X86Condition;
 import com.v7878.jnasm.common_x86.X86NearLabel;
 
@@ -8,13 +8,12 @@ import com.v7878.jnasm.common_x86.X86NearLabel;
   Emit Machine Instructions.
  */
 // TODO: javadoc
-public interface X86_64AssemblerI {
+public interface X86_64AssemblerI extends X86CommonAssemblerI<
+        X86_64CpuRegister, X86_64XmmRegister, X86_64Address, X86_64Immediate> {
     void call(X86_64CpuRegister reg);
 
     void call(X86_64Address address);
 
-    void call(Label label);
-
     void pushq(X86_64CpuRegister reg);
 
     void pushq(X86_64Address address);
@@ -25,6 +24,10 @@ public interface X86_64AssemblerI {
 
     void popq(X86_64Address address);
 
+    void push2(X86_64CpuRegister first, X86_64CpuRegister second);
+
+    void pop2(X86_64CpuRegister first, X86_64CpuRegister second);
+
     void movq(X86_64CpuRegister dst, X86_64Immediate src);
 
     void movl(X86_64CpuRegister dst, X86_64Immediate src);
@@ -87,32 +90,6 @@ public interface X86_64AssemblerI {
 
     void leal(X86_64CpuRegister dst, X86_64Address src);
 
-    void movaps(X86_64XmmRegister dst, X86_64XmmRegister src);     // move
-
-    void movaps(X86_64XmmRegister dst, X86_64Address src);  // load aligned
-
-    void movups(X86_64XmmRegister dst, X86_64Address src);  // load unaligned
-
-    void movaps(X86_64Address dst, X86_64XmmRegister src);  // store aligned
-
-    void movups(X86_64Address dst, X86_64XmmRegister src);  // store unaligned
-
-    void vmovaps(X86_64XmmRegister dst, X86_64XmmRegister src);     // move
-
-    void vmovaps(X86_64XmmRegister dst, X86_64Address src);  // load aligned
-
-    void vmovaps(X86_64Address dst, X86_64XmmRegister src);  // store aligned
-
-    void vmovups(X86_64XmmRegister dst, X86_64Address src);  // load unaligned
-
-    void vmovups(X86_64Address dst, X86_64XmmRegister src);  // store unaligned
-
-    void movss(X86_64XmmRegister dst, X86_64Address src);
-
-    void movss(X86_64Address dst, X86_64XmmRegister src);
-
-    void movss(X86_64XmmRegister dst, X86_64XmmRegister src);
-
     void movsxd(X86_64CpuRegister dst, X86_64CpuRegister src);
 
     void movsxd(X86_64CpuRegister dst, X86_64Address src);
@@ -121,592 +98,395 @@ public interface X86_64AssemblerI {
 
     void movq(X86_64CpuRegister dst, X86_64XmmRegister src);
 
-    void movd(X86_64XmmRegister dst, X86_64CpuRegister src);
-
-    void movd(X86_64CpuRegister dst, X86_64XmmRegister src);
-
-    void addss(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void addss(X86_64XmmRegister dst, X86_64Address src);
-
-    void subss(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void subss(X86_64XmmRegister dst, X86_64Address src);
-
-    void mulss(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void mulss(X86_64XmmRegister dst, X86_64Address src);
-
-    void divss(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void divss(X86_64XmmRegister dst, X86_64Address src);
-
-    void addps(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
-
-    void subps(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void mulps(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void divps(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void vmulps(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void vmulpd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void vdivps(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void vdivpd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void vaddps(X86_64XmmRegister dst, X86_64XmmRegister add_left, X86_64XmmRegister add_right);
-
-    void vsubps(X86_64XmmRegister dst, X86_64XmmRegister add_left, X86_64XmmRegister add_right);
-
-    void vsubpd(X86_64XmmRegister dst, X86_64XmmRegister add_left, X86_64XmmRegister add_right);
-
-    void vaddpd(X86_64XmmRegister dst, X86_64XmmRegister add_left, X86_64XmmRegister add_right);
-
-    void vfmadd213ss(X86_64XmmRegister accumulator, X86_64XmmRegister left, X86_64XmmRegister right);
-
-    void vfmadd213sd(X86_64XmmRegister accumulator, X86_64XmmRegister left, X86_64XmmRegister right);
-
-    void movapd(X86_64XmmRegister dst, X86_64XmmRegister src);     // move
-
-    void movapd(X86_64XmmRegister dst, X86_64Address src);  // load aligned
-
-    void movupd(X86_64XmmRegister dst, X86_64Address src);  // load unaligned
-
-    void movapd(X86_64Address dst, X86_64XmmRegister src);  // store aligned
-
-    void movupd(X86_64Address dst, X86_64XmmRegister src);  // store unaligned
-
-    void vmovapd(X86_64XmmRegister dst, X86_64XmmRegister src);     // move
-
-    void vmovapd(X86_64XmmRegister dst, X86_64Address src);  // load aligned
-
-    void vmovapd(X86_64Address dst, X86_64XmmRegister src);  // store aligned
-
-    void vmovupd(X86_64XmmRegister dst, X86_64Address src);  // load unaligned
-
-    void vmovupd(X86_64Address dst, X86_64XmmRegister src);  // store unaligned
-
-    void movsd(X86_64XmmRegister dst, X86_64Address src);
-
-    void movsd(X86_64Address dst, X86_64XmmRegister src);
-
-    void movsd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void addsd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void addsd(X86_64XmmRegister dst, X86_64Address src);
-
-    void subsd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void subsd(X86_64XmmRegister dst, X86_64Address src);
-
-    void mulsd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void mulsd(X86_64XmmRegister dst, X86_64Address src);
-
-    void divsd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void divsd(X86_64XmmRegister dst, X86_64Address src);
-
-    void addpd(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
-
-    void subpd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void mulpd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void divpd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void movdqa(X86_64XmmRegister dst, X86_64XmmRegister src);     // move
-
-    void movdqa(X86_64XmmRegister dst, X86_64Address src);  // load aligned
-
-    void movdqu(X86_64XmmRegister dst, X86_64Address src);  // load unaligned
-
-    void movdqa(X86_64Address dst, X86_64XmmRegister src);  // store aligned
-
-    void movdqu(X86_64Address dst, X86_64XmmRegister src);  // store unaligned
-
-    void vmovdqa(X86_64XmmRegister dst, X86_64XmmRegister src);     // move
-
-    void vmovdqa(X86_64XmmRegister dst, X86_64Address src);  // load aligned
-
-    void vmovdqa(X86_64Address dst, X86_64XmmRegister src);  // store aligned
-
-    void vmovdqu(X86_64XmmRegister dst, X86_64Address src);  // load unaligned
-
-    void vmovdqu(X86_64Address dst, X86_64XmmRegister src);  // store unaligned
-
-    void paddb(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
-
-    void psubb(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void vpaddb(X86_64XmmRegister dst, X86_64XmmRegister add_left, X86_64XmmRegister add_right);
-
-    void vpaddw(X86_64XmmRegister dst, X86_64XmmRegister add_left, X86_64XmmRegister add_right);
-
-    void paddw(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void psubw(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void pmullw(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void vpmullw(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void vpsubb(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void vpsubw(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void vpsubd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void paddd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void psubd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void pmulld(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void vpmulld(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void vpaddd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
-
-    void paddq(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void psubq(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void vpaddq(X86_64XmmRegister dst, X86_64XmmRegister add_left, X86_64XmmRegister add_right);
-
-    void vpsubq(X86_64XmmRegister dst, X86_64XmmRegister add_left, X86_64XmmRegister add_right);
-
-    void paddusb(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void paddsb(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void paddusw(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void paddsw(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void psubusb(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void psubsb(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void psubusw(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void psubsw(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void cvtsi2ss(X86_64XmmRegister dst, X86_64CpuRegister src);  // Note: this is the r/m32 version.
-
     void cvtsi2ss(X86_64XmmRegister dst, X86_64CpuRegister src, boolean is64bit);
 
     void cvtsi2ss(X86_64XmmRegister dst, X86_64Address src, boolean is64bit);
 
-    void cvtsi2sd(X86_64XmmRegister dst, X86_64CpuRegister src);  // Note: this is the r/m32 version.
-
     void cvtsi2sd(X86_64XmmRegister dst, X86_64CpuRegister src, boolean is64bit);
 
     void cvtsi2sd(X86_64XmmRegister dst, X86_64Address src, boolean is64bit);
 
-    void cvtss2si(X86_64CpuRegister dst, X86_64XmmRegister src);  // Note: this is the r32 version.
-
-    void cvtss2sd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void cvtss2sd(X86_64XmmRegister dst, X86_64Address src);
-
-    void cvtsd2si(X86_64CpuRegister dst, X86_64XmmRegister src);  // Note: this is the r32 version.
-
-    void cvtsd2ss(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void cvtsd2ss(X86_64XmmRegister dst, X86_64Address src);
-
-    void cvttss2si(X86_64CpuRegister dst, X86_64XmmRegister src);  // Note: this is the r32 version.
-
     void cvttss2si(X86_64CpuRegister dst, X86_64XmmRegister src, boolean is64bit);
 
-    void cvttsd2si(X86_64CpuRegister dst, X86_64XmmRegister src);  // Note: this is the r32 version.
-
     void cvttsd2si(X86_64CpuRegister dst, X86_64XmmRegister src, boolean is64bit);
 
-    void cvtdq2ps(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void cvtdq2pd(X86_64XmmRegister dst, X86_64XmmRegister src);
-
-    void comiss(X86_64XmmRegister a, X86_64XmmRegister b);
-
-    void comiss(X86_64XmmRegister a, X86_64Address b);
+    void andn(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void comisd(X86_64XmmRegister a, X86_64XmmRegister b);
+    void pinsrq(X86_64XmmRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void comisd(X86_64XmmRegister a, X86_64Address b);
+    void pinsrq(X86_64XmmRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void ucomiss(X86_64XmmRegister a, X86_64XmmRegister b);
+    void vpinsrq(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64CpuRegister src2, X86_64Immediate imm);
 
-    void ucomiss(X86_64XmmRegister a, X86_64Address b);
+    void vpinsrq(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64Address src2, X86_64Immediate imm);
 
-    void ucomisd(X86_64XmmRegister a, X86_64XmmRegister b);
+    void pextrq(X86_64CpuRegister dst, X86_64XmmRegister src, X86_64Immediate imm);
 
-    void ucomisd(X86_64XmmRegister a, X86_64Address b);
+    void pextrq(X86_64Address dst, X86_64XmmRegister src, X86_64Immediate imm);
 
-    void roundsd(X86_64XmmRegister dst, X86_64XmmRegister src, X86_64Immediate imm);
+    void vpextrq(X86_64CpuRegister dst, X86_64XmmRegister src, X86_64Immediate imm);
 
-    void roundss(X86_64XmmRegister dst, X86_64XmmRegister src, X86_64Immediate imm);
+    void vpextrq(X86_64Address dst, X86_64XmmRegister src, X86_64Immediate imm);
+    // no psraq
 
-    void sqrtsd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void xchgb(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void sqrtss(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void xchgb(X86_64CpuRegister reg, X86_64Address address);
 
-    void xorpd(X86_64XmmRegister dst, X86_64Address src);
+    void xchgw(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void xorpd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void xchgw(X86_64CpuRegister reg, X86_64Address address);
 
-    void xorps(X86_64XmmRegister dst, X86_64Address src);
+    void xchgl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void xorps(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void xchgl(X86_64CpuRegister reg, X86_64Address address);
 
-    void pxor(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
+    void xchgq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void vpxor(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void xchgq(X86_64CpuRegister reg, X86_64Address address);
 
-    void vxorps(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void xaddb(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void vxorpd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void xaddb(X86_64Address address, X86_64CpuRegister reg);
 
-    void andpd(X86_64XmmRegister dst, X86_64Address src);
+    void xaddw(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void andpd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void xaddw(X86_64Address address, X86_64CpuRegister reg);
 
-    void andps(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
+    void xaddl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void pand(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void xaddl(X86_64Address address, X86_64CpuRegister reg);
 
-    void vpand(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void xaddq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void vandps(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void xaddq(X86_64Address address, X86_64CpuRegister reg);
 
-    void vandpd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void cmpb(X86_64Address address, X86_64Immediate imm);
 
-    void andn(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
+    void cmpw(X86_64Address address, X86_64Immediate imm);
 
-    void andnpd(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
+    void cmpl(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void andnps(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void cmpl(X86_64CpuRegister reg0, X86_64CpuRegister reg1);
 
-    void pandn(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void cmpl(X86_64CpuRegister reg, X86_64Address address);
 
-    void vpandn(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void cmpl(X86_64Address address, X86_64CpuRegister reg);
 
-    void vandnps(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void cmpl(X86_64Address address, X86_64Immediate imm);
 
-    void vandnpd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void cmpq(X86_64CpuRegister reg0, X86_64CpuRegister reg1);
 
-    void orpd(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
+    void cmpq(X86_64CpuRegister reg0, X86_64Immediate imm);
 
-    void orps(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void cmpq(X86_64CpuRegister reg0, X86_64Address address);
 
-    void por(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void cmpq(X86_64Address address, X86_64Immediate imm);
 
-    void vpor(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void testl(X86_64CpuRegister reg1, X86_64CpuRegister reg2);
 
-    void vorps(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void testl(X86_64CpuRegister reg, X86_64Address address);
 
-    void vorpd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    void testl(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void pavgb(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
+    void testq(X86_64CpuRegister reg1, X86_64CpuRegister reg2);
 
-    void pavgw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void testq(X86_64CpuRegister reg, X86_64Address address);
 
-    void psadbw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void testb(X86_64Address address, X86_64Immediate imm);
 
-    void pmaddwd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void testl(X86_64Address address, X86_64Immediate imm);
 
-    void vpmaddwd(X86_64XmmRegister dst, X86_64XmmRegister src1, X86_64XmmRegister src2);
+    // APX conditional compare and test: if the condition c holds, the flags are set
+    // by the comparison, otherwise they are set to dfv (see X86_64Assembler.kDfv*).
+    void ccmpl(X86Condition c, X86_64CpuRegister reg0, X86_64CpuRegister reg1, int dfv);
 
-    void phaddw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ccmpl(X86Condition c, X86_64CpuRegister reg, X86_64Address address, int dfv);
 
-    void phaddd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ccmpl(X86Condition c, X86_64Address address, X86_64CpuRegister reg, int dfv);
 
-    void haddps(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ccmpl(X86Condition c, X86_64CpuRegister reg, X86_64Immediate imm, int dfv);
 
-    void haddpd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ccmpl(X86Condition c, X86_64Address address, X86_64Immediate imm, int dfv);
 
-    void phsubw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ctestl(X86Condition c, X86_64CpuRegister reg1, X86_64CpuRegister reg2, int dfv);
 
-    void phsubd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ctestl(X86Condition c, X86_64CpuRegister reg, X86_64Address address, int dfv);
 
-    void hsubps(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ctestl(X86Condition c, X86_64CpuRegister reg, X86_64Immediate imm, int dfv);
 
-    void hsubpd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ctestl(X86Condition c, X86_64Address address, X86_64Immediate imm, int dfv);
 
-    void pminsb(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
+    void ccmpq(X86Condition c, X86_64CpuRegister reg0, X86_64CpuRegister reg1, int dfv);
 
-    void pmaxsb(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ccmpq(X86Condition c, X86_64CpuRegister reg, X86_64Address address, int dfv);
 
-    void pminsw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ccmpq(X86Condition c, X86_64Address address, X86_64CpuRegister reg, int dfv);
 
-    void pmaxsw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ccmpq(X86Condition c, X86_64CpuRegister reg, X86_64Immediate imm, int dfv);
 
-    void pminsd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ccmpq(X86Condition c, X86_64Address address, X86_64Immediate imm, int dfv);
 
-    void pmaxsd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ctestq(X86Condition c, X86_64CpuRegister reg1, X86_64CpuRegister reg2, int dfv);
 
-    void pminub(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
+    void ctestq(X86Condition c, X86_64CpuRegister reg, X86_64Address address, int dfv);
 
-    void pmaxub(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ctestq(X86Condition c, X86_64CpuRegister reg, X86_64Immediate imm, int dfv);
 
-    void pminuw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void ctestq(X86Condition c, X86_64Address address, X86_64Immediate imm, int dfv);
 
-    void pmaxuw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void andl(X86_64CpuRegister dst, X86_64Immediate imm);
 
-    void pminud(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void andl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void pmaxud(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void andl(X86_64CpuRegister reg, X86_64Address address);
 
-    void minps(X86_64XmmRegister dst, X86_64XmmRegister src);  // no addr variant (for now)
+    void andq(X86_64CpuRegister dst, X86_64Immediate imm);
 
-    void maxps(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void andq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void minpd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void andq(X86_64CpuRegister reg, X86_64Address address);
 
-    void maxpd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void andw(X86_64Address address, X86_64Immediate imm);
 
-    void pcmpeqb(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void orl(X86_64CpuRegister dst, X86_64Immediate imm);
 
-    void pcmpeqw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void orl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void pcmpeqd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void orl(X86_64CpuRegister reg, X86_64Address address);
 
-    void pcmpeqq(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void orq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void pcmpgtb(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void orq(X86_64CpuRegister dst, X86_64Immediate imm);
 
-    void pcmpgtw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void orq(X86_64CpuRegister reg, X86_64Address address);
 
-    void pcmpgtd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void xorl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void pcmpgtq(X86_64XmmRegister dst, X86_64XmmRegister src);  // SSE4.2
+    void xorl(X86_64CpuRegister dst, X86_64Immediate imm);
 
-    void shufpd(X86_64XmmRegister dst, X86_64XmmRegister src, X86_64Immediate imm);
+    void xorl(X86_64CpuRegister reg, X86_64Address address);
 
-    void shufps(X86_64XmmRegister dst, X86_64XmmRegister src, X86_64Immediate imm);
+    void xorq(X86_64CpuRegister dst, X86_64Immediate imm);
 
-    void pshufd(X86_64XmmRegister dst, X86_64XmmRegister src, X86_64Immediate imm);
+    void xorq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void punpcklbw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void xorq(X86_64CpuRegister reg, X86_64Address address);
 
-    void punpcklwd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    // APX new data destination forms: dst = src1 op src2.
+    void addl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void punpckldq(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void addl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void punpcklqdq(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void addl(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void punpckhbw(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void addl(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void punpckhwd(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void addl(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void punpckhdq(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void addq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void punpckhqdq(X86_64XmmRegister dst, X86_64XmmRegister src);
+    void addq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void psllw(X86_64XmmRegister reg, X86_64Immediate shift_count);
+    void addq(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void pslld(X86_64XmmRegister reg, X86_64Immediate shift_count);
+    void addq(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void psllq(X86_64XmmRegister reg, X86_64Immediate shift_count);
+    void addq(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void psraw(X86_64XmmRegister reg, X86_64Immediate shift_count);
+    void orl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void psrad(X86_64XmmRegister reg, X86_64Immediate shift_count);
-    // no psraq
+    void orl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void psrlw(X86_64XmmRegister reg, X86_64Immediate shift_count);
+    void orl(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void psrld(X86_64XmmRegister reg, X86_64Immediate shift_count);
+    void orl(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void psrlq(X86_64XmmRegister reg, X86_64Immediate shift_count);
+    void orl(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void psrldq(X86_64XmmRegister reg, X86_64Immediate shift_count);
+    void orq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void flds(X86_64Address src);
+    void orq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void fstps(X86_64Address dst);
+    void orq(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void fsts(X86_64Address dst);
+    void orq(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void fldl(X86_64Address src);
+    void orq(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void fstpl(X86_64Address dst);
+    void adcl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void fstl(X86_64Address dst);
+    void adcl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void fstsw();
+    void adcl(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void fucompp();
+    void adcl(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void fnstcw(X86_64Address dst);
+    void adcl(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void fldcw(X86_64Address src);
+    void adcq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void fistpl(X86_64Address dst);
+    void adcq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void fistps(X86_64Address dst);
+    void adcq(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void fildl(X86_64Address src);
+    void adcq(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void filds(X86_64Address src);
+    void adcq(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void fincstp();
+    void sbbl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void ffree(X86_64Immediate index);
+    void sbbl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void fsin();
+    void sbbl(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void fcos();
+    void sbbl(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void fptan();
+    void sbbl(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void fprem();
+    void sbbq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void xchgb(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void sbbq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void xchgb(X86_64CpuRegister reg, X86_64Address address);
+    void sbbq(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void xchgw(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void sbbq(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void xchgw(X86_64CpuRegister reg, X86_64Address address);
+    void sbbq(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void xchgl(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void andl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void xchgl(X86_64CpuRegister reg, X86_64Address address);
+    void andl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void xchgq(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void andl(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void xchgq(X86_64CpuRegister reg, X86_64Address address);
+    void andl(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void xaddb(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void andl(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void xaddb(X86_64Address address, X86_64CpuRegister reg);
+    void andq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void xaddw(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void andq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void xaddw(X86_64Address address, X86_64CpuRegister reg);
+    void andq(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void xaddl(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void andq(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void xaddl(X86_64Address address, X86_64CpuRegister reg);
+    void andq(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void xaddq(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void subl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void xaddq(X86_64Address address, X86_64CpuRegister reg);
+    void subl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void cmpb(X86_64Address address, X86_64Immediate imm);
+    void subl(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void cmpw(X86_64Address address, X86_64Immediate imm);
+    void subl(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void cmpl(X86_64CpuRegister reg, X86_64Immediate imm);
+    void subl(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void cmpl(X86_64CpuRegister reg0, X86_64CpuRegister reg1);
+    void subq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void cmpl(X86_64CpuRegister reg, X86_64Address address);
+    void subq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void cmpl(X86_64Address address, X86_64CpuRegister reg);
+    void subq(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void cmpl(X86_64Address address, X86_64Immediate imm);
+    void subq(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void cmpq(X86_64CpuRegister reg0, X86_64CpuRegister reg1);
+    void subq(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void cmpq(X86_64CpuRegister reg0, X86_64Immediate imm);
+    void xorl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void cmpq(X86_64CpuRegister reg0, X86_64Address address);
+    void xorl(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void cmpq(X86_64Address address, X86_64Immediate imm);
+    void xorl(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void testl(X86_64CpuRegister reg1, X86_64CpuRegister reg2);
+    void xorl(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void testl(X86_64CpuRegister reg, X86_64Address address);
+    void xorl(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void testl(X86_64CpuRegister reg, X86_64Immediate imm);
+    void xorq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64CpuRegister src2);
 
-    void testq(X86_64CpuRegister reg1, X86_64CpuRegister reg2);
+    void xorq(X86_64CpuRegister dst, X86_64CpuRegister src1, X86_64Address src2);
 
-    void testq(X86_64CpuRegister reg, X86_64Address address);
+    void xorq(X86_64CpuRegister dst, X86_64Address src1, X86_64CpuRegister src2);
 
-    void testb(X86_64Address address, X86_64Immediate imm);
+    void xorq(X86_64CpuRegister dst, X86_64CpuRegister src, X86_64Immediate imm);
 
-    void testl(X86_64Address address, X86_64Immediate imm);
+    void xorq(X86_64CpuRegister dst, X86_64Address src, X86_64Immediate imm);
 
-    void andl(X86_64CpuRegister dst, X86_64Immediate imm);
+    void addl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void andl(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void addl(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void andl(X86_64CpuRegister reg, X86_64Address address);
+    void addl(X86_64CpuRegister reg, X86_64Address address);
 
-    void andq(X86_64CpuRegister dst, X86_64Immediate imm);
+    void addl(X86_64Address address, X86_64CpuRegister reg);
 
-    void andq(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void addl(X86_64Address address, X86_64Immediate imm);
 
-    void andq(X86_64CpuRegister reg, X86_64Address address);
+    void addw(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void andw(X86_64Address address, X86_64Immediate imm);
+    void addw(X86_64Address address, X86_64Immediate imm);
 
-    void orl(X86_64CpuRegister dst, X86_64Immediate imm);
+    void addw(X86_64Address address, X86_64CpuRegister reg);
 
-    void orl(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void addq(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void orl(X86_64CpuRegister reg, X86_64Address address);
+    void addq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void orq(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void addq(X86_64CpuRegister dst, X86_64Address address);
 
-    void orq(X86_64CpuRegister dst, X86_64Immediate imm);
+    void adcl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void orq(X86_64CpuRegister reg, X86_64Address address);
+    void adcl(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void xorl(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void adcl(X86_64CpuRegister reg, X86_64Address address);
 
-    void xorl(X86_64CpuRegister dst, X86_64Immediate imm);
+    void adcl(X86_64Address address, X86_64CpuRegister reg);
 
-    void xorl(X86_64CpuRegister reg, X86_64Address address);
+    void adcl(X86_64Address address, X86_64Immediate imm);
 
-    void xorq(X86_64CpuRegister dst, X86_64Immediate imm);
+    void adcq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void xorq(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void adcq(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void xorq(X86_64CpuRegister reg, X86_64Address address);
+    void adcq(X86_64CpuRegister reg, X86_64Address address);
 
-    void addl(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void adcq(X86_64Address address, X86_64CpuRegister reg);
 
-    void addl(X86_64CpuRegister reg, X86_64Immediate imm);
+    void adcq(X86_64Address address, X86_64Immediate imm);
 
-    void addl(X86_64CpuRegister reg, X86_64Address address);
+    void subl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void addl(X86_64Address address, X86_64CpuRegister reg);
+    void subl(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void addl(X86_64Address address, X86_64Immediate imm);
+    void subl(X86_64CpuRegister reg, X86_64Address address);
 
-    void addw(X86_64CpuRegister reg, X86_64Immediate imm);
+    void subq(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void addw(X86_64Address address, X86_64Immediate imm);
+    void subq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void addw(X86_64Address address, X86_64CpuRegister reg);
+    void subq(X86_64CpuRegister dst, X86_64Address address);
 
-    void addq(X86_64CpuRegister reg, X86_64Immediate imm);
+    void sbbl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void addq(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void sbbl(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void addq(X86_64CpuRegister dst, X86_64Address address);
+    void sbbl(X86_64CpuRegister reg, X86_64Address address);
 
-    void subl(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void sbbl(X86_64Address address, X86_64CpuRegister reg);
 
-    void subl(X86_64CpuRegister reg, X86_64Immediate imm);
+    void sbbl(X86_64Address address, X86_64Immediate imm);
 
-    void subl(X86_64CpuRegister reg, X86_64Address address);
+    void sbbq(X86_64CpuRegister dst, X86_64CpuRegister src);
 
-    void subq(X86_64CpuRegister reg, X86_64Immediate imm);
+    void sbbq(X86_64CpuRegister reg, X86_64Immediate imm);
 
-    void subq(X86_64CpuRegister dst, X86_64CpuRegister src);
+    void sbbq(X86_64CpuRegister reg, X86_64Address address);
 
-    void subq(X86_64CpuRegister dst, X86_64Address address);
+    void sbbq(X86_64Address address, X86_64CpuRegister reg);
 
-    void cdq();
+    void sbbq(X86_64Address address, X86_64Immediate imm);
 
     void cqo();
 
@@ -778,32 +558,14 @@ public interface X86_64AssemblerI {
 
     void enter(X86_64Immediate imm);
 
-    void leave();
-
-    void ret();
-
     void ret(X86_64Immediate imm);
 
-    void nop();
-
-    void int3();
-
-    void hlt();
-
-    void j(X86Condition condition, Label label);
-
-    void j(X86Condition condition, X86NearLabel label);
-
     void jrcxz(X86NearLabel label);
 
     void jmp(X86_64CpuRegister reg);
 
     void jmp(X86_64Address address);
 
-    void jmp(Label label);
-
-    void jmp(X86NearLabel label);
-
     X86_64AssemblerI lock();
 
     void cmpxchgb(X86_64Address address, X86_64CpuRegister reg);
@@ -814,8 +576,6 @@ public interface X86_64AssemblerI {
 
     void cmpxchgq(X86_64Address address, X86_64CpuRegister reg);
 
-    void mfence();
-
     X86_64AssemblerI gs();
 
     void setcc(X86Condition condition, X86_64CpuRegister dst);
@@ -838,6 +598,18 @@ public interface X86_64AssemblerI {
 
     void blsr(X86_64CpuRegister dst, X86_64CpuRegister src);  // no addr variant (for now)
 
+    void adcx(X86_64CpuRegister dst, X86_64CpuRegister src);
+
+    void adcx(X86_64CpuRegister dst, X86_64Address src);
+
+    void adox(X86_64CpuRegister dst, X86_64CpuRegister src);
+
+    void adox(X86_64CpuRegister dst, X86_64Address src);
+
+    void mulx(X86_64CpuRegister dst_hi, X86_64CpuRegister dst_lo, X86_64CpuRegister src);
+
+    void mulx(X86_64CpuRegister dst_hi, X86_64CpuRegister dst_lo, X86_64Address src);
+
     void bsrl(X86_64CpuRegister dst, X86_64CpuRegister src);
 
     void bsrl(X86_64CpuRegister dst, X86_64Address src);
@@ -854,7 +626,23 @@ public interface X86_64AssemblerI {
 
     void popcntq(X86_64CpuRegister dst, X86_64Address src);
 
-    void rdtsc();
+    void crc32b(X86_64CpuRegister dst, X86_64CpuRegister src);
+
+    void crc32b(X86_64CpuRegister dst, X86_64Address src);
+
+    void crc32w(X86_64CpuRegister dst, X86_64CpuRegister src);
+
+    void crc32w(X86_64CpuRegister dst, X86_64Address src);
+
+    void crc32l(X86_64CpuRegister dst, X86_64CpuRegister src);
+
+    void crc32l(X86_64CpuRegister dst, X86_64Address src);
+
+    void crc32q(X86_64CpuRegister dst, X86_64CpuRegister src);
+
+    void crc32q(X86_64CpuRegister dst, X86_64Address src);
+
+    void rdpid(X86_64CpuRegister dst);
 
     void rorl(X86_64CpuRegister reg, X86_64Immediate imm);
 
@@ -872,21 +660,5 @@ public interface X86_64AssemblerI {
 
     void rolq(X86_64CpuRegister operand, X86_64CpuRegister shifter);
 
-    void repne_scasb();
-
-    void repne_scasw();
-
-    void repe_cmpsw();
-
-    void repe_cmpsl();
-
     void repe_cmpsq();
-
-    void rep_movsw();
-
-    void rep_movsb();
-
-    void rep_movsl();
-
-    void ud2();
 }
@@ -0,0 +1,169 @@
+package com.v7878.jnasm.x86_64;
+
+import static com.v7878.jnasm.Utils.CHECK;
+import static com.v7878.jnasm.Utils.CHECK_GT;
+import static com.v7878.jnasm.x86_64.X86_64CpuRegister.RDX;
+
+import java.util.EnumSet;
+
+// Reference generator of fully unrolled multi-precision multiplication routines.
+//
+// Numbers are stored in memory as arrays of 64-bit limbs, least significant limb first.
+// The generated code requires BMI2 (mulx) and ADX (adcx, adox): the two independent
+// carry chains of adcx and adox let the low half of each partial product be added to
+// the accumulator while the high half of the previous one is added to the current
+// limb, without any flag juggling.
+public final class X86_64BigIntGenerator {
+    private X86_64BigIntGenerator() {
+    }
+
+    private static X86_64Address limb(X86_64CpuRegister base, int index) {
+        return new X86_64Address(base, index * 8);
+    }
+
+    private static void checkRegisters(X86_64CpuRegister... regs) {
+        var set = EnumSet.noneOf(X86_64CpuRegister.class);
+        for (var reg : regs) {
+            CHECK(reg != RDX);  // Implicit mulx operand.
+            CHECK(set.add(reg));
+        }
+    }
+
+    // Emits acc[offset .. offset + n) (+)= RDX * src[0 .. n) and returns the register
+    // holding the high limb of the row (including both carries). If accumulate is false,
+    // the previous contents of acc are ignored.
+    private static X86_64CpuRegister emitMulAddRow(
+            X86_64Assembler assembler, int n, X86_64CpuRegister acc, int offset,
+            X86_64CpuRegister src, boolean accumulate,
+            X86_64CpuRegister tmp1, X86_64CpuRegister tmp2, X86_64CpuRegister tmp3) {
+        X86_64CpuRegister hi = tmp1;
+        X86_64CpuRegister prev_hi = tmp2;
+        X86_64CpuRegister lo = tmp3;
+
+        // Clear CF and OF.
+        assembler.xorl(lo, lo);
+        for (int j = 0; j < n; j++) {
+            assembler.mulx(hi, lo, limb(src, j));
+            if (accumulate) {
+                assembler.adox(lo, limb(acc, offset + j));
+            }
+            if (j != 0) {
+                assembler.adcx(lo, prev_hi);
+            }
+            assembler.movq(limb(acc, offset + j), lo);
+            X86_64CpuRegister tmp = hi;
+            hi = prev_hi;
+            prev_hi = tmp;
+        }
+        // Flush both carry chains, mov does not affect flags.
+        // The high limb of the row can not overflow.
+        assembler.movl(lo, new X86_64Immediate(0));
+        if (accumulate) {
+            assembler.adox(prev_hi, lo);
+        }
+        assembler.adcx(prev_hi, lo);
+        return prev_hi;
+    }
+
+    private static void emitMulUnchecked(
+            X86_64Assembler assembler, int n, X86_64CpuRegister dst,
+            X86_64CpuRegister a, X86_64CpuRegister b,
+            X86_64CpuRegister tmp1, X86_64CpuRegister tmp2, X86_64CpuRegister tmp3) {
+        for (int i = 0; i < n; i++) {
+            assembler.movq(RDX, limb(b, i));
+            X86_64CpuRegister hi = emitMulAddRow(assembler, n, dst, i, a,
+                    /*accumulate=*/ i != 0, tmp1, tmp2, tmp3);
+            assembler.movq(limb(dst, i + n), hi);
+        }
+    }
+
+    /**
+     * Emits a schoolbook multiplication {@code dst[0 .. 2n) = a[0 .. n) * b[0 .. n)}.
+     * <p>
+     * {@code dst} must not overlap with {@code a} or {@code b}. {@code RDX},
+     * {@code tmp1}, {@code tmp2}, {@code tmp3} and the flags are clobbered.
+     */
+    public static void emitMul(X86_64Assembler assembler, int n,
+                               X86_64CpuRegister dst,
+                               X86_64CpuRegister a,
+                               X86_64CpuRegister b,
+                               X86_64CpuRegister tmp1,
+                               X86_64CpuRegister tmp2,
+                               X86_64CpuRegister tmp3) {
+        CHECK_GT(n, 0);
+        checkRegisters(dst, a, b, tmp1, tmp2, tmp3);
+        emitMulUnchecked(assembler, n, dst, a, b, tmp1, tmp2, tmp3);
+    }
+
+    /**
+     * Emits a Montgomery multiplication {@code dst = a * b * 2^(-64n) mod m}, where
+     * {@code m} is an odd n-limb modulus, {@code a} and {@code b} are fully reduced
+     * and {@code m_inv == -m^(-1) mod 2^64}. The result is fully reduced.
+     * <p>
+     * The product is computed into {@code scratch[0 .. 2n)} and then reduced in place
+     * (separated operand scanning), followed by a constant time final subtraction.
+     * {@code dst} and {@code scratch} must not overlap with each other or with the
+     * inputs. {@code RDX}, {@code tmp1} .. {@code tmp4} and the flags are clobbered.
+     */
+    public static void emitMontgomeryMul(X86_64Assembler assembler, int n, long m_inv,
+                                         X86_64CpuRegister dst,
+                                         X86_64CpuRegister a,
+                                         X86_64CpuRegister b,
+                                         X86_64CpuRegister m,
+                                         X86_64CpuRegister scratch,
+                                         X86_64CpuRegister tmp1,
+                                         X86_64CpuRegister tmp2,
+                                         X86_64CpuRegister tmp3,
+                                         X86_64CpuRegister tmp4) {
+        CHECK_GT(n, 0);
+        CHECK((m_inv & 1) != 0);
+        checkRegisters(dst, a, b, m, scratch, tmp1, tmp2, tmp3, tmp4);
+
+        X86_64CpuRegister t = scratch;
+        X86_64CpuRegister lo = tmp3;
+        X86_64CpuRegister carry = tmp4;
+
+        emitMulUnchecked(assembler, n, t, a, b, tmp1, tmp2, tmp3);
+
+        // Reduction: for each i, add (t[i] * m_inv mod 2^64) * m at limb i, which
+        // zeroes t[i]. The carry out of limb i + n is kept in a register.
+        assembler.xorl(carry, carry);
+        for (int i = 0; i < n; i++) {
+            assembler.movq(RDX, limb(t, i));
+            assembler.movq(lo, new X86_64Immediate(m_inv));
+            assembler.imulq(RDX, lo);
+            X86_64CpuRegister hi = emitMulAddRow(assembler, n, t, i, m,
+                    /*accumulate=*/ true, tmp1, tmp2, tmp3);
+            assembler.xorl(lo, lo);
+            assembler.addq(hi, carry);
+            assembler.adcq(lo, new X86_64Immediate(0));
+            assembler.addq(hi, limb(t, i + n));
+            assembler.adcq(lo, new X86_64Immediate(0));
+            assembler.movq(limb(t, i + n), hi);
+            assembler.movq(carry, lo);
+        }
+
+        // The result is carry:t[n .. 2n) < 2m, compute dst = t - m and keep t
+        // instead if the subtraction borrows past the carry limb.
+        for (int j = 0; j < n; j++) {
+            assembler.movq(lo, limb(t, n + j));
+            if (j == 0) {
+                assembler.subq(lo, limb(m, j));
+            } else {
+                assembler.sbbq(lo, limb(m, j));
+            }
+            assembler.movq(limb(dst, j), lo);
+        }
+        // carry = 0 to keep the difference, -1 to restore t.
+        assembler.sbbq(carry, new X86_64Immediate(0));
+        X86_64CpuRegister diff = tmp1;
+        for (int j = 0; j < n; j++) {
+            assembler.movq(lo, limb(t, n + j));
+            assembler.movq(diff, limb(dst, j));
+            assembler.xorq(lo, diff);
+            assembler.andq(lo, carry);
+            assembler.xorq(diff, lo);
+            assembler.movq(limb(dst, j), diff);
+        }
+    }
+}
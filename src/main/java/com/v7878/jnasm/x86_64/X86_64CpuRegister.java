@@ -1,6 +1,10 @@
 package com.v7878.jnasm.x86_64;
 
-public enum X86_64CpuRegister {
+import static com.v7878.jnasm.Utils.CHECK;
+
+import com.v7878.jnasm.common_x86.X86CommonCpuRegister;
+
+public enum X86_64CpuRegister implements X86CommonCpuRegister {
     RAX(0),
     RCX(1),
     RDX(2),
@@ -16,9 +20,25 @@ public enum X86_64CpuRegister {
     R12(12),
     R13(13),
     R14(14),
-    R15(15);
+    R15(15),
+    R16(16),
+    R17(17),
+    R18(18),
+    R19(19),
+    R20(20),
+    R21(21),
+    R22(22),
+    R23(23),
+    R24(24),
+    R25(25),
+    R26(26),
+    R27(27),
+    R28(28),
+    R29(29),
+    R30(30),
+    R31(31);
 
-    public static final int kNumberOfCpuRegisters = 16;
+    public static final int kNumberOfCpuRegisters = 32;
 
     private final int value;
 
@@ -30,6 +50,7 @@ public enum X86_64CpuRegister {
         return values()[index];
     }
 
+    @Override
     public int index() {
         return value;
     }
@@ -38,11 +59,19 @@ public enum X86_64CpuRegister {
         return of(lowBits());
     }
 
+    @Override
     public int lowBits() {
         return value & 7;
     }
 
+    @Override
     public boolean needsRex() {
+        // APX extended registers can not be encoded with REX or VEX prefixes.
+        CHECK(!needsRex2());
         return value > 7;
     }
+
+    public boolean needsRex2() {
+        return value > 15;
+    }
 }
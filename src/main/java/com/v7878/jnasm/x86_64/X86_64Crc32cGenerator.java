@@ -0,0 +1,176 @@
+package com.v7878.jnasm.x86_64;
+
+import static com.v7878.jnasm.Utils.CHECK;
+import static com.v7878.jnasm.Utils.CHECK_ALIGNED;
+import static com.v7878.jnasm.Utils.CHECK_GE;
+import static com.v7878.jnasm.Utils.CHECK_LE;
+
+import com.v7878.jnasm.Label;
+import com.v7878.jnasm.ScaleFactor;
+import com.v7878.jnasm.common_x86.X86Condition;
+import com.v7878.jnasm.common_x86.X86NearLabel;
+
+import java.util.EnumSet;
+
+// Generator of CRC32C (Castagnoli) routines based on the SSE4.2 crc32 instruction.
+//
+// The crc32 instruction has a latency of 3 cycles and a throughput of 1 per cycle, so a
+// single dependency chain uses only a third of the available bandwidth. The generated
+// code splits each block of 3 * stride bytes into three independent streams and merges
+// their partial results with carry-less multiplications (PCLMULQDQ), using the fact that
+// CRC32C(A || B) = CRC32C(A) * x^(8 * |B|) ^ CRC32C(B) (mod P).
+public final class X86_64Crc32cGenerator {
+    // Reflected CRC32C polynomial.
+    private static final int kPolynomial = 0x82F63B78;
+
+    // Smallest and largest supported per-stream block size.
+    public static final int kMinStride = 16;
+    public static final int kMaxStride = Integer.MAX_VALUE / 3 & ~7;
+
+    private X86_64Crc32cGenerator() {
+    }
+
+    // Returns a(x) * b(x) mod P in the reflected representation.
+    private static int multModP(int a, int b) {
+        int product = 0;
+        for (int m = 1 << 31; m != 0; m >>>= 1) {
+            if ((a & m) != 0) {
+                product ^= b;
+            }
+            b = (b & 1) != 0 ? (b >>> 1) ^ kPolynomial : b >>> 1;
+        }
+        return product;
+    }
+
+    // Returns x^n mod P in the reflected representation.
+    static int xPowModP(long n) {
+        CHECK(n >= 0);
+        int result = 1 << 31;  // x^0
+        int square = 1 << 30;  // x^1
+        while (n != 0) {
+            if ((n & 1) != 0) {
+                result = multModP(result, square);
+            }
+            square = multModP(square, square);
+            n >>>= 1;
+        }
+        return result;
+    }
+
+    // Returns the constant K such that crc32q(0, clmul(crc, K)) == crc * x^(8 * bytes) (mod P).
+    static int shiftConstant(long bytes) {
+        // clmul of two reflected 32-bit values yields a product shifted left by one bit
+        // and crc32q multiplies its input by x^32, hence the -33 correction.
+        return xPowModP(8 * bytes - 33);
+    }
+
+    /**
+     * Emits code that updates the (not inverted) CRC32C value in {@code crc} with
+     * {@code len} bytes starting at {@code buf}. Initial and final inversion is left
+     * to the caller.
+     * <p>
+     * Blocks of {@code 3 * stride} bytes are processed with three interleaved streams,
+     * the remainder with a single stream of 8-byte and 1-byte steps. Larger strides
+     * amortize the merge cost better but need larger buffers to be effective, so the
+     * stride should be chosen for the expected buffer size class.
+     * <p>
+     * {@code buf} and {@code len} are consumed. {@code tmp1}, {@code tmp2}, {@code tmp3},
+     * {@code xtmp1} and {@code xtmp2} are clobbered.
+     */
+    public static void emitCrc32c(X86_64Assembler assembler, int stride,
+                                  X86_64CpuRegister crc,
+                                  X86_64CpuRegister buf,
+                                  X86_64CpuRegister len,
+                                  X86_64CpuRegister tmp1,
+                                  X86_64CpuRegister tmp2,
+                                  X86_64CpuRegister tmp3,
+                                  X86_64XmmRegister xtmp1,
+                                  X86_64XmmRegister xtmp2) {
+        CHECK_GE(stride, kMinStride);
+        CHECK_LE(stride, kMaxStride);
+        CHECK_ALIGNED(stride, 8);
+        var registers = EnumSet.of(crc, buf, len, tmp1, tmp2, tmp3);
+        CHECK(registers.size() == 6);
+        CHECK(xtmp1 != xtmp2);
+
+        final int block = 3 * stride;
+        final int k1 = shiftConstant(2L * stride);
+        final int k2 = shiftConstant(stride);
+
+        // The three partial CRCs are kept in crc, tmp1 and tmp2, tmp3 is the offset
+        // in the current stream.
+        X86_64CpuRegister crc1 = tmp1;
+        X86_64CpuRegister crc2 = tmp2;
+        X86_64CpuRegister offset = tmp3;
+
+        Label block_loop = new Label();
+        Label tail8 = new Label();
+        X86NearLabel stream_loop = new X86NearLabel();
+        X86NearLabel tail8_loop = new X86NearLabel();
+        X86NearLabel tail1 = new X86NearLabel();
+        X86NearLabel tail1_loop = new X86NearLabel();
+        X86NearLabel done = new X86NearLabel();
+
+        assembler.bind(block_loop);
+        assembler.cmpq(len, new X86_64Immediate(block));
+        assembler.j(X86Condition.kBelow, tail8);
+        assembler.xorl(crc1, crc1);
+        assembler.xorl(crc2, crc2);
+        assembler.xorl(offset, offset);
+
+        // All streams except for the last 8 bytes of each one.
+        assembler.bind(stream_loop);
+        assembler.crc32q(crc, new X86_64Address(buf, offset, ScaleFactor.TIMES_1, 0));
+        assembler.crc32q(crc1, new X86_64Address(buf, offset, ScaleFactor.TIMES_1, stride));
+        assembler.crc32q(crc2, new X86_64Address(buf, offset, ScaleFactor.TIMES_1, 2 * stride));
+        assembler.addq(offset, new X86_64Immediate(8));
+        assembler.cmpq(offset, new X86_64Immediate(stride - 8));
+        assembler.j(X86Condition.kBelow, stream_loop);
+
+        // Finish the first two streams.
+        assembler.crc32q(crc, new X86_64Address(buf, stride - 8));
+        assembler.crc32q(crc1, new X86_64Address(buf, 2 * stride - 8));
+
+        // Shift the first two CRCs to the end of the block and fold them into the last
+        // 8 bytes of the third stream.
+        assembler.movd(xtmp1, crc);
+        assembler.movl(offset, new X86_64Immediate(k1));
+        assembler.movd(xtmp2, offset);
+        assembler.pclmulqdq(xtmp1, xtmp2, new X86_64Immediate(0x00));
+        assembler.movq(offset, xtmp1);
+        assembler.movd(xtmp1, crc1);
+        assembler.movl(crc1, new X86_64Immediate(k2));
+        assembler.movd(xtmp2, crc1);
+        assembler.pclmulqdq(xtmp1, xtmp2, new X86_64Immediate(0x00));
+        assembler.movq(crc1, xtmp1);
+        assembler.xorq(offset, crc1);
+        assembler.xorq(offset, new X86_64Address(buf, block - 8));
+        assembler.crc32q(crc2, offset);
+        assembler.movl(crc, crc2);
+
+        assembler.addq(buf, new X86_64Immediate(block));
+        assembler.subq(len, new X86_64Immediate(block));
+        assembler.jmp(block_loop);
+
+        // Remaining 8-byte chunks.
+        assembler.bind(tail8);
+        assembler.bind(tail8_loop);
+        assembler.cmpq(len, new X86_64Immediate(8));
+        assembler.j(X86Condition.kBelow, tail1);
+        assembler.crc32q(crc, new X86_64Address(buf, 0));
+        assembler.addq(buf, new X86_64Immediate(8));
+        assembler.subq(len, new X86_64Immediate(8));
+        assembler.jmp(tail8_loop);
+
+        // Remaining bytes.
+        assembler.bind(tail1);
+        assembler.testq(len, len);
+        assembler.j(X86Condition.kZero, done);
+        assembler.bind(tail1_loop);
+        assembler.crc32b(crc, new X86_64Address(buf, 0));
+        assembler.addq(buf, new X86_64Immediate(1));
+        assembler.subq(len, new X86_64Immediate(1));
+        assembler.j(X86Condition.kNotZero, tail1_loop);
+        assembler.bind(done);
+    }
+}
@@ -0,0 +1,89 @@
+package com.v7878.jnasm.x86_64;
+
+import static com.v7878.jnasm.Utils.CHECK;
+import static com.v7878.jnasm.x86_64.X86_64CpuRegister.RAX;
+import static com.v7878.jnasm.x86_64.X86_64CpuRegister.RCX;
+import static com.v7878.jnasm.x86_64.X86_64CpuRegister.RDX;
+
+// Generator of in-code timing brackets based on the time stamp counter.
+//
+// rdtsc is not an ordered instruction: it may be executed before preceding instructions
+// have completed and later instructions may start before it. The generated sequences
+// follow the usual recipe of fencing the counter reads with lfence (which waits for all
+// preceding instructions to complete locally) on the way in and reading the final value
+// with rdtscp (which waits for all preceding instructions itself) on the way out.
+public final class X86_64CycleCounterGenerator {
+    // Layout of the counter block, three 64-bit slots.
+    public static final int kTotalCyclesOffset = 0;
+    public static final int kSamplesOffset = 8;
+    public static final int kStartOffset = 16;
+    public static final int kCounterBlockSize = 24;
+
+    private X86_64CycleCounterGenerator() {
+    }
+
+    // Combines EDX:EAX as returned by rdtsc/rdtscp into RAX.
+    private static void emitCombineEdxEax(X86_64Assembler assembler) {
+        assembler.shlq(RDX, new X86_64Immediate(32));
+        assembler.orq(RAX, RDX);
+    }
+
+    /**
+     * Emits rdtsc fenced with lfence on both sides, leaving the 64-bit time stamp in {@code RAX}:
+     * the counter is read after all preceding instructions have completed and before
+     * any following instruction starts. {@code RDX} and the flags are clobbered.
+     */
+    public static void emitReadStart(X86_64Assembler assembler) {
+        assembler.lfence();
+        assembler.rdtsc();
+        emitCombineEdxEax(assembler);
+        assembler.lfence();
+    }
+
+    /**
+     * Emits {@code rdtscp; lfence} leaving the 64-bit time stamp in {@code RAX}: the counter
+     * is read after all preceding instructions have executed and before any following
+     * instruction starts. {@code RCX}, {@code RDX} and the flags are clobbered.
+     */
+    public static void emitReadEnd(X86_64Assembler assembler) {
+        assembler.rdtscp();
+        assembler.lfence();
+        emitCombineEdxEax(assembler);
+    }
+
+    /**
+     * Emits the code of {@code body} bracketed by time stamp counter reads. The elapsed
+     * counter ticks are added to the total cycles slot of the counter block at
+     * {@code counter} and its samples slot is incremented, so a block can be shared by
+     * repeated executions (see {@code k*Offset} for the layout, the start slot is used
+     * as scratch). The counter block must be initialized by the caller.
+     * <p>
+     * The bracket clobbers {@code RAX}, {@code RCX}, {@code RDX} and the flags before and
+     * after the body, so {@code counter} must not be based on or indexed by these registers
+     * (this is checked) and must stay valid through the body. Its own overhead is constant
+     * and can be measured by bracketing an empty body.
+     */
+    public static void emitMeasured(X86_64Assembler assembler, X86_64Address counter,
+                                    Runnable body) {
+        CHECK(!counter.usesRegister(RAX));
+        CHECK(!counter.usesRegister(RCX));
+        CHECK(!counter.usesRegister(RDX));
+
+        X86_64Address total = X86_64Address.displace(counter, kTotalCyclesOffset);
+        X86_64Address samples = X86_64Address.displace(counter, kSamplesOffset);
+        X86_64Address start = X86_64Address.displace(counter, kStartOffset);
+
+        emitReadStart(assembler);
+        assembler.movq(start, RAX);
+
+        body.run();
+
+        emitReadEnd(assembler);
+        assembler.subq(RAX, start);
+        assembler.addq(RAX, total);
+        assembler.movq(total, RAX);
+        assembler.movq(RAX, samples);
+        assembler.addq(RAX, new X86_64Immediate(1));
+        assembler.movq(samples, RAX);
+    }
+}
@@ -1,20 +1,30 @@
 package com.v7878.jnasm.x86_64;
 
 import com.v7878.jnasm.Utils;
+import com.v7878.jnasm.common_x86.X86CommonImmediate;
 
-public record X86_64Immediate(long value) {
+public record X86_64Immediate(long value) implements X86CommonImmediate {
+    @Override
+    public long longValue() {
+        return value;
+    }
+
+    @Override
     public boolean isInt8() {
         return Utils.isLInt(8, value);
     }
 
+    @Override
     public boolean isUInt8() {
         return Utils.isLUInt(8, value);
     }
 
+    @Override
     public boolean isInt16() {
         return Utils.isLInt(16, value);
     }
 
+    @Override
     public boolean isUInt16() {
         return Utils.isLUInt(16, value);
     }
@@ -1,24 +1,19 @@
 package com.v7878.jnasm.x86_64;
 
+import static com.v7878.jnasm.Utils.CHECK_EQ;
 import static com.v7878.jnasm.x86_64.X86_64CpuRegister.RBP;
 import static com.v7878.jnasm.x86_64.X86_64CpuRegister.RSP;
 
-import com.v7878.jnasm.AssemblerFixup;
 import com.v7878.jnasm.ScaleFactor;
+import com.v7878.jnasm.common_x86.X86CommonOperand;
 
-import java.util.Objects;
-
-public class X86_64Operand {
-    protected int length;
+public class X86_64Operand extends X86CommonOperand {
     protected int rex;
-    protected AssemblerFixup fixup;
-    protected final byte[] encoding;
+    protected int rex2;
 
     protected X86_64Operand() {
-        this.length = 0;
         this.rex = 0;
-        this.fixup = null;
-        this.encoding = new byte[6];
+        this.rex2 = 0;
     }
 
     X86_64Operand(X86_64CpuRegister reg) {
@@ -26,20 +21,16 @@ public class X86_64Operand {
         setModRM(3, reg);
     }
 
-    public void setFixup(AssemblerFixup fixup) {
-        this.fixup = fixup;
-    }
-
-    public AssemblerFixup getFixup() {
-        return fixup;
-    }
-
-    int rex() {
+    @Override
+    protected int rex() {
+        // APX extended registers can not be encoded with REX or VEX prefixes.
+        CHECK_EQ(rex2, 0);
         return rex;
     }
 
-    int mod() {
-        return (encodingAt(0) >> 6) & 3;
+    // Returns the X4, B4, X3 and B3 bits in the REX2 payload layout.
+    int rex2() {
+        return rex2 | (rex & 0x3);
     }
 
     ScaleFactor scale() {
@@ -66,19 +57,24 @@ public class X86_64Operand {
         return X86_64CpuRegister.of(rawBase());
     }
 
+    private int extB() {
+        return ((rex & 0x1) != 0 ? 8 : 0) | ((rex2 & 0x10) != 0 ? 16 : 0);
+    }
+
+    private int extX() {
+        return ((rex & 0x2) != 0 ? 8 : 0) | ((rex2 & 0x20) != 0 ? 16 : 0);
+    }
+
     X86_64CpuRegister rm() {
-        int ext = (rex & 0x1) != 0 ? 8 : 0;
-        return X86_64CpuRegister.of(rawRM() + ext);
+        return X86_64CpuRegister.of(rawRM() + extB());
     }
 
     X86_64CpuRegister index() {
-        int ext = (rex & 0x2) != 0 ? 8 : 0;
-        return X86_64CpuRegister.of(rawIndex() + ext);
+        return X86_64CpuRegister.of(rawIndex() + extX());
     }
 
     X86_64CpuRegister base() {
-        int ext = (rex & 0x1) != 0 ? 8 : 0;
-        return X86_64CpuRegister.of(rawBase() + ext);
+        return X86_64CpuRegister.of(rawBase() + extB());
     }
 
     int disp() {
@@ -93,65 +89,40 @@ public class X86_64Operand {
         };
     }
 
-    byte disp8() {
-        assert length >= 2;
-        return encodingAt(length - 1);
-    }
-
-    int disp32() {
-        assert length >= 5;
-        // little-endian
-        return (encodingAt(length - 1) & 0xff) << 24 |
-                (encodingAt(length - 2) & 0xff) << 16 |
-                (encodingAt(length - 3) & 0xff) << 8 |
-                (encodingAt(length - 4) & 0xff);
-    }
-
     @SuppressWarnings("SameParameterValue")
     boolean isRegister(X86_64CpuRegister reg) {
         return ((encodingAt(0) & 0xF8) == 0xC0)  // Addressing mode is register only.
-                && ((encodingAt(0) & 0x07) == reg.lowBits())  // Register codes match.
-                && (reg.needsRex() == ((rex & 1) != 0));  // REX.000B bits match.
-    }
-
-    protected byte encodingAt(int index) {
-        Objects.checkIndex(index, length);
-        return encoding[index];
+                && rm() == reg;  // Register codes match, including REX.B and REX2.B4 bits.
     }
 
     protected void setModRM(int mod_in, X86_64CpuRegister rm_in) {
         assert (mod_in & ~3) == 0;
-        if (rm_in.needsRex()) {
+        if ((rm_in.index() & 8) != 0) {
             rex |= 0x41;  // REX.000B
         }
+        if (rm_in.needsRex2()) {
+            rex2 |= 0x10;  // REX2.B4
+        }
         encoding[0] = (byte) ((mod_in << 6) | rm_in.lowBits());
         length = 1;
     }
 
     protected void setSIB(ScaleFactor scale, X86_64CpuRegister index, X86_64CpuRegister base) {
         assert length == 1;
-        if (base.needsRex()) {
+        if ((base.index() & 8) != 0) {
             rex |= 0x41;  // REX.000B
         }
-        if (index.needsRex()) {
+        if (base.needsRex2()) {
+            rex2 |= 0x10;  // REX2.B4
+        }
+        if ((index.index() & 8) != 0) {
             rex |= 0x42;  // REX.00X0
         }
+        if (index.needsRex2()) {
+            rex2 |= 0x20;  // REX2.X4
+        }
         encoding[1] = (byte) ((scale.index() << 6) |
                 (index.lowBits() << 3) | base.lowBits());
         length = 2;
     }
-
-    protected void setDisp8(byte disp) {
-        assert length == 1 || length == 2;
-        encoding[length++] = disp;
-    }
-
-    protected void setDisp32(int disp) {
-        assert length == 1 || length == 2;
-        // little-endian
-        encoding[length++] = (byte) disp;
-        encoding[length++] = (byte) (disp >> 8);
-        encoding[length++] = (byte) (disp >> 16);
-        encoding[length++] = (byte) (disp >> 24);
-    }
 }
@@ -1,6 +1,8 @@
 package com.v7878.jnasm.x86_64;
 
-public enum X86_64XmmRegister {
+import com.v7878.jnasm.common_x86.X86CommonXmmRegister;
+
+public enum X86_64XmmRegister implements X86CommonXmmRegister {
     XMM0(0),
     XMM1(1),
     XMM2(2),
@@ -30,6 +32,7 @@ public enum X86_64XmmRegister {
         return values()[index];
     }
 
+    @Override
     public int index() {
         return value;
     }
@@ -38,10 +41,12 @@ public enum X86_64XmmRegister {
         return of(lowBits());
     }
 
+    @Override
     public int lowBits() {
         return value & 7;
     }
 
+    @Override
     public boolean needsRex() {
         return value > 7;
     }